@@ -0,0 +1,47 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.model.GeneratedCode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput del render de cada template Mustache a través de los métodos públicos de
+ * {@link CodeGeneratorService} (camino de generar_tabla, generar_mapa, etc.).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodeGenerationBenchmark {
+
+    @Param({"poncho-table", "poncho-map", "setup", "national-holidays", "mapa-argentina-svg"})
+    public String template;
+
+    private CodeGeneratorService service;
+
+    @Setup
+    public void setUp() {
+        service = new CodeGeneratorService();
+        service.init();
+    }
+
+    @Benchmark
+    public GeneratedCode render() {
+        return switch (template) {
+            case "poncho-table" -> service.generateTable("Datos", "data.json", null, null,
+                0, "asc", 10, List.of("id"), true, true, true, false, false, false);
+            case "poncho-map" -> service.generateMap("poncho-map", "map", 400, -34.6, -58.38, 12,
+                "name", "Resumen", true, false, false, true, true, true, "data.json", null, null);
+            case "setup" -> service.generateSetup("Mi página", true, true);
+            case "national-holidays" -> service.generateHolidaysCalendar(2025, "es", "calendar", "month-tpl");
+            case "mapa-argentina-svg" -> service.generateArgentinaMapSvg("js-mapa-svg",
+                List.of("AR-B", "AR-C"), "#039BE5", "#999999", 1, "#DDDDDD", Map.of("AR-X", "#F00"));
+            default -> throw new IllegalArgumentException("Template desconocido: " + template);
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.service.KeywordSearchService.SearchableItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de aplicar el cambio de un solo item al índice: reconstrucción completa con
+ * {@link KeywordSearchService#buildIndex(List)} contra delta con
+ * {@link KeywordSearchService#update(SearchIndex, java.util.Collection, List)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class IndexUpdateBenchmark {
+
+    @Param({"catalog", "10000", "100000"})
+    public String catalogSize;
+
+    private KeywordSearchService service;
+    private List<SearchableItem> items;
+    private SearchIndex index;
+    private SearchableItem edited;
+
+    @Setup
+    public void setUp() {
+        // Sin reconstrucción por fragmentación: se mide solo el delta
+        service = new KeywordSearchService(KeywordSearchService.RankingMode.WEIGHTED, true,
+            SynonymDictionary.bundled(), false, 10_000, 1.0);
+        items = SyntheticCatalog.forSize(catalogSize).stream()
+            .map(service::analyze)
+            .toList();
+        index = service.buildIndex(items);
+
+        SearchableItem original = items.get(items.size() / 2);
+        List<String> keywords = new ArrayList<>(original.keywords());
+        keywords.add("semaforo");
+        edited = service.analyze(new SearchableItem(original.id(), original.name(), original.category(),
+            original.description(), keywords, original.type(), original.metadata()));
+    }
+
+    @Benchmark
+    public SearchIndex fullRebuild() {
+        List<SearchableItem> updated = new ArrayList<>(items);
+        updated.set(items.size() / 2, edited);
+        return service.buildIndex(updated);
+    }
+
+    @Benchmark
+    public SearchIndex delta() {
+        return service.update(index, List.of(), List.of(edited));
+    }
+}
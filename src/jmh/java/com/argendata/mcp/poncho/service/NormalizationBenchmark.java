@@ -0,0 +1,46 @@
+package com.argendata.mcp.poncho.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalización y tokenización de texto: implementación original (toLowerCase + NFD +
+ * regex) contra {@link TextNormalizer}. Con {@code -prof gc} se ve la diferencia de allocation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NormalizationBenchmark {
+
+    @Param({
+        "tabla con filtros",
+        "Formulario de identificación personal con DNI, CUIL y datos básicos",
+        "Página de inicio institucional con destacados, noticias y accesos rápidos"
+    })
+    public String text;
+
+    @Benchmark
+    public String legacyNormalize() {
+        return LegacyKeywordScorer.normalize(text);
+    }
+
+    @Benchmark
+    public String tableNormalize() {
+        return TextNormalizer.normalize(text);
+    }
+
+    @Benchmark
+    public List<String> legacyTokenize() {
+        return LegacyKeywordScorer.tokenList(text);
+    }
+
+    @Benchmark
+    public List<String> tableTokenize() {
+        return TextNormalizer.tokenList(text);
+    }
+}
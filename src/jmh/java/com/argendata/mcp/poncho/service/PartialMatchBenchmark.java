@@ -0,0 +1,70 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.service.SearchIndex.FieldPostings;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coincidencia parcial de un token contra el vocabulario de un campo: recorrido completo
+ * de términos contra índice de trigramas, sobre un vocabulario sintético de 50k términos.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PartialMatchBenchmark {
+
+    private static final String[] SYLLABLES = {
+        "ta", "bla", "for", "mu", "la", "rio", "pa", "gi", "na", "ma", "pe", "ci",
+        "con", "sul", "re", "gis", "tro", "da", "tos", "fil", "ar", "gen", "ti", "zo"
+    };
+
+    @Param({"50000"})
+    public int vocabularySize;
+
+    @Param({"formulario", "tabla", "gistroda", "ta"})
+    public String token;
+
+    private FieldPostings postings;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Set<String> words = new HashSet<>();
+        while (words.size() < vocabularySize) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 2 + random.nextInt(4);
+            for (int s = 0; s < syllables; s++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words.add(word.toString());
+        }
+        FieldPostings.Builder builder = new FieldPostings.Builder();
+        int ordinal = 0;
+        for (String word : words) {
+            builder.add(word, ordinal++ % 10_000);
+        }
+        postings = builder.build();
+    }
+
+    @Benchmark
+    public BitSet vocabularyScan() {
+        BitSet out = new BitSet();
+        postings.collectMatchesByScan(token, out);
+        return out;
+    }
+
+    @Benchmark
+    public BitSet trigramIndex() {
+        BitSet out = new BitSet();
+        postings.collectMatches(token, out);
+        return out;
+    }
+}
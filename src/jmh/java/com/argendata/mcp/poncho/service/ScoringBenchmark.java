@@ -0,0 +1,53 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.service.KeywordSearchService.SearchResult;
+import com.argendata.mcp.poncho.service.KeywordSearchService.SearchableItem;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el scoring del camino original (normaliza y tokeniza el texto del catálogo en
+ * cada query y puntúa item por item) contra el scoring del índice, que acumula las
+ * coincidencias desde los postings y puntúa los campos pre-analizados.
+ * Ambos puntúan todo el catálogo real, sin recortar resultados, para aislar el costo del scorer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScoringBenchmark {
+
+    @Param({"tabla filtros", "formulario contacto consulta", "login"})
+    public String query;
+
+    private KeywordSearchService service;
+    private List<SearchableItem> rawItems;
+    private SearchIndex index;
+    private Set<String> queryTokens;
+
+    @Setup
+    public void setUp() {
+        service = new KeywordSearchService();
+        rawItems = LegacyKeywordScorer.loadCatalog();
+        index = service.buildIndex(rawItems);
+        queryTokens = service.tokenize(query);
+    }
+
+    @Benchmark
+    public void rawFields(Blackhole bh) {
+        for (SearchableItem item : rawItems) {
+            bh.consume(LegacyKeywordScorer.score(queryTokens, query, item));
+        }
+    }
+
+    @Benchmark
+    public List<SearchResult> indexedFields() {
+        return service.search(query, index, rawItems.size());
+    }
+}
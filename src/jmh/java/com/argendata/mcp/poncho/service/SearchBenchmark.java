@@ -0,0 +1,51 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.service.KeywordSearchService.SearchResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput de {@link KeywordSearchService#search(String, SearchIndex, int)} sobre el
+ * catálogo real y catálogos sintéticos de tamaño creciente (camino de buscar_componente).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+
+    @Param({"catalog", "1000", "10000", "100000"})
+    public String catalogSize;
+
+    @Param({"tabla filtros", "formulario contacto consulta", "login"})
+    public String query;
+
+    @Param({"5"})
+    public int maxResults;
+
+    @Param({"true", "false"})
+    public boolean parallel;
+
+    @Param({"WEIGHTED", "BM25"})
+    public KeywordSearchService.RankingMode ranking;
+
+    private KeywordSearchService service;
+    private SearchIndex index;
+
+    @Setup
+    public void setUp() {
+        service = new KeywordSearchService(ranking, true, SynonymDictionary.bundled(), parallel, 10_000);
+        index = service.buildIndex(SyntheticCatalog.forSize(catalogSize).stream()
+            .map(service::analyze)
+            .toList());
+    }
+
+    @Benchmark
+    public List<SearchResult> search() {
+        return service.search(query, index, maxResults);
+    }
+}
@@ -0,0 +1,88 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.service.KeywordSearchService.SearchableItem;
+
+import java.util.*;
+
+/**
+ * Genera catálogos sintéticos y deterministas para benchmarks.
+ * Mezcla el vocabulario real de components.json con palabras inventadas
+ * para que el vocabulario crezca con el tamaño del catálogo.
+ */
+final class SyntheticCatalog {
+
+    private static final String[] SYLLABLES = {
+        "ta", "bla", "for", "mu", "la", "rio", "pa", "gi", "na", "ma", "pe", "ci",
+        "con", "sul", "ta", "re", "gis", "tro", "da", "tos", "fil", "ar", "gen", "ti"
+    };
+
+    private static final String[] CATEGORIES = {
+        "data", "maps", "calendar", "design", "i18n", "content", "paginas-argentina",
+        "login-registro", "formularios", "tablas", "paneles", "destacados", "headers-footers"
+    };
+
+    private SyntheticCatalog() {}
+
+    /**
+     * "catalog" devuelve el catálogo real; un número devuelve ese tamaño de items sintéticos
+     */
+    static List<SearchableItem> forSize(String size) {
+        if ("catalog".equals(size)) {
+            return LegacyKeywordScorer.loadCatalog();
+        }
+        return generate(Integer.parseInt(size), 42L);
+    }
+
+    static List<SearchableItem> generate(int size, long seed) {
+        Random random = new Random(seed);
+        List<String> vocabulary = buildVocabulary(Math.max(500, size / 4), random);
+        List<SearchableItem> items = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            String type = i % 3 == 0 ? "template" : "component";
+            List<String> keywords = new ArrayList<>();
+            for (int k = 0; k < 6; k++) {
+                keywords.add(pick(vocabulary, random));
+            }
+            StringBuilder description = new StringBuilder();
+            for (int w = 0; w < 14; w++) {
+                description.append(pick(vocabulary, random)).append(' ');
+            }
+            items.add(new SearchableItem(
+                "item-" + i,
+                capitalize(pick(vocabulary, random)) + capitalize(pick(vocabulary, random)),
+                CATEGORIES[random.nextInt(CATEGORIES.length)],
+                description.toString().trim(),
+                keywords,
+                type,
+                Map.of()
+            ));
+        }
+        return items;
+    }
+
+    private static List<String> buildVocabulary(int size, Random random) {
+        Set<String> words = new LinkedHashSet<>();
+        for (SearchableItem item : LegacyKeywordScorer.loadCatalog()) {
+            words.addAll(item.keywords());
+            words.addAll(Arrays.asList(item.description().split("\\s+")));
+        }
+        while (words.size() < size) {
+            int syllables = 2 + random.nextInt(3);
+            StringBuilder word = new StringBuilder();
+            for (int s = 0; s < syllables; s++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words.add(word.toString());
+        }
+        return new ArrayList<>(words);
+    }
+
+    private static String pick(List<String> vocabulary, Random random) {
+        return vocabulary.get(random.nextInt(vocabulary.size()));
+    }
+
+    private static String capitalize(String word) {
+        return word.isEmpty() ? word : Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,57 @@
+package com.argendata.mcp.poncho.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selección de los K mejores candidatos: sort completo (camino anterior de
+ * {@code search}) contra el heap acotado de {@link TopKCollector}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TopKBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int candidates;
+
+    @Param({"5", "50"})
+    public int maxResults;
+
+    private double[] scores;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        scores = new double[candidates];
+        for (int i = 0; i < candidates; i++) {
+            scores[i] = random.nextInt(40) * 0.25;
+        }
+    }
+
+    @Benchmark
+    public Integer[] fullSort() {
+        Integer[] ordinals = new Integer[candidates];
+        for (int i = 0; i < candidates; i++) {
+            ordinals[i] = i;
+        }
+        Arrays.sort(ordinals, Comparator.comparingDouble((Integer i) -> scores[i]).reversed());
+        return Arrays.copyOf(ordinals, Math.min(maxResults, candidates));
+    }
+
+    @Benchmark
+    public int[] boundedHeap() {
+        TopKCollector topK = new TopKCollector(maxResults);
+        for (int i = 0; i < candidates; i++) {
+            topK.offer(i, scores[i]);
+        }
+        return topK.drainSorted(new double[topK.size()]);
+    }
+}
@@ -0,0 +1,51 @@
+package com.argendata.mcp.poncho.tools;
+
+import com.argendata.mcp.poncho.service.DocumentationService;
+import com.argendata.mcp.poncho.service.KeywordSearchService;
+import com.argendata.mcp.poncho.service.SearchResultCache;
+import com.argendata.mcp.poncho.service.TemplateContentStore;
+import com.argendata.mcp.poncho.service.ToolResponseCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput de {@link PonchoTemplateTools#obtener_plantilla} sobre la plantilla más grande
+ * (formulario_completo.html) y una chica de referencia. Sin contexto Spring ni red.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateFetchBenchmark {
+
+    @Param({"formularios:formulario_completo", "paneles:panel-simple"})
+    public String template;
+
+    private PonchoTemplateTools tools;
+    private String categoria;
+    private String nombre;
+
+    @Setup
+    public void setUp() {
+        DocumentationService documentationService =
+            new DocumentationService(new ObjectMapper(), new KeywordSearchService(),
+                new SearchResultCache(0, Duration.ZERO), event -> { }, null);
+        documentationService.init();
+        tools = new PonchoTemplateTools(documentationService, new TemplateContentStore(false),
+            new ToolResponseCache(1000));
+
+        String[] parts = template.split(":");
+        categoria = parts[0];
+        nombre = parts[1];
+    }
+
+    @Benchmark
+    public String obtenerPlantilla() {
+        return tools.obtener_plantilla(categoria, nombre);
+    }
+}
@@ -1,17 +1,19 @@
 package com.argendata.mcp.poncho.config;
 
+import com.argendata.mcp.poncho.model.CacheStats;
 import com.argendata.mcp.poncho.model.PonchoComponent;
 import com.argendata.mcp.poncho.service.DocumentationService;
+import com.argendata.mcp.poncho.service.SearchResultCache;
+import com.argendata.mcp.poncho.service.TemplateContentStore;
+import com.argendata.mcp.poncho.service.ToolResponseCache;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.modelcontextprotocol.server.McpServerFeatures;
 import io.modelcontextprotocol.spec.McpSchema.*;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.ClassPathResource;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -24,13 +26,14 @@ import static com.argendata.mcp.poncho.config.PonchoConstants.TEMPLATE_CATEGORIE
 @Configuration
 public class McpPrimitivesConfig {
 
-    private static final String TEMPLATES_BASE_PATH = "templates/";
-
     // ========== RESOURCES ==========
 
     @Bean
     public List<McpServerFeatures.SyncResourceSpecification> ponchoResources(
             DocumentationService documentationService,
+            TemplateContentStore templateContentStore,
+            ToolResponseCache responseCache,
+            SearchResultCache searchResultCache,
             ObjectMapper objectMapper
     ) {
         List<McpServerFeatures.SyncResourceSpecification> specs = new ArrayList<>();
@@ -109,12 +112,12 @@ public class McpPrimitivesConfig {
                 ),
                 (exchange, request) -> {
                     try {
-                        ClassPathResource resource = new ClassPathResource(TEMPLATES_BASE_PATH + templatePath);
-                        String html = new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                        String html = templateContentStore.getContent(templatePath)
+                            .orElseThrow(() -> new RuntimeException("Template no encontrado: " + templatePath));
                         return new ReadResourceResult(List.of(
                             new TextResourceContents(request.uri(), "text/html", html)
                         ));
-                    } catch (IOException e) {
+                    } catch (UncheckedIOException e) {
                         throw new RuntimeException("Error leyendo template " + templatePath, e);
                     }
                 }
@@ -136,7 +139,8 @@ public class McpPrimitivesConfig {
                     null
                 ),
                 (exchange, request) -> {
-                    String markdown = documentationService.getFormattedDocumentation(compId);
+                    String markdown = responseCache.get("obtener_documentacion",
+                        () -> documentationService.getFormattedDocumentation(compId), compId);
                     return new ReadResourceResult(List.of(
                         new TextResourceContents(request.uri(), "text/markdown", markdown)
                     ));
@@ -177,6 +181,32 @@ public class McpPrimitivesConfig {
             ));
         }
 
+        // Resource: Métricas de los caches en memoria
+        specs.add(new McpServerFeatures.SyncResourceSpecification(
+            new Resource(
+                "poncho://metrics/cache",
+                "Métricas de caches",
+                "Aciertos, fallos, desalojos y tamaño de los caches de plantillas, respuestas y búsquedas",
+                "application/json",
+                null
+            ),
+            (exchange, request) -> {
+                try {
+                    List<CacheStats> stats = List.of(
+                        templateContentStore.stats(),
+                        responseCache.stats(),
+                        searchResultCache.stats()
+                    );
+                    String json = objectMapper.writeValueAsString(stats);
+                    return new ReadResourceResult(List.of(
+                        new TextResourceContents(request.uri(), "application/json", json)
+                    ));
+                } catch (JsonProcessingException e) {
+                    throw new RuntimeException("Error generando JSON de métricas", e);
+                }
+            }
+        ));
+
         return specs;
     }
 
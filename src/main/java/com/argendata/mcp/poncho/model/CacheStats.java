@@ -0,0 +1,21 @@
+package com.argendata.mcp.poncho.model;
+
+/**
+ * Contadores de un cache en memoria
+ */
+public record CacheStats(
+    String name,
+    long hits,
+    long misses,
+    long evictions,
+    int size
+) {
+    
+    /**
+     * Proporción de accesos resueltos desde el cache (0 si no hubo accesos)
+     */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
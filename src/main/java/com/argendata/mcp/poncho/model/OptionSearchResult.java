@@ -0,0 +1,30 @@
+package com.argendata.mcp.poncho.model;
+
+import com.argendata.mcp.poncho.model.PonchoComponent.ComponentOption;
+
+/**
+ * Resultado de búsqueda de opciones: la opción de configuración y el componente que la define
+ */
+public record OptionSearchResult(
+    String componentId,
+    String componentName,
+    String optionName,
+    String type,
+    boolean required,
+    String defaultValue,
+    String description,
+    double score
+) {
+    public static OptionSearchResult from(PonchoComponent component, ComponentOption option, double score) {
+        return new OptionSearchResult(
+            component.id(),
+            component.name(),
+            option.name(),
+            option.type(),
+            option.required(),
+            option.defaultValue(),
+            option.description(),
+            score
+        );
+    }
+}
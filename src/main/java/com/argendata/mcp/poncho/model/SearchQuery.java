@@ -0,0 +1,13 @@
+package com.argendata.mcp.poncho.model;
+
+/**
+ * Una búsqueda dentro de un lote (ver {@code DocumentationService#searchBatch}).
+ * {@code type} es "component", "template" o {@code null} para ambos;
+ * {@code category} {@code null} busca en todas las categorías.
+ */
+public record SearchQuery(
+    String query,
+    String type,
+    String category,
+    int maxResults
+) {}
@@ -0,0 +1,20 @@
+package com.argendata.mcp.poncho.service;
+
+/**
+ * Query ya procesada para el scoring: tokens, sus stems ({@code null} sin stemming),
+ * los grupos de sinónimos de cada token ({@code null} si ninguno tiene), la query
+ * normalizada completa y si se acumulan los pesos BM25 de keywords y descripción.
+ * Se arma una vez por búsqueda.
+ */
+record AnalyzedQuery(
+    String[] tokens,
+    String[] stems,
+    int[][] synonymGroups,
+    String normalized,
+    boolean bm25
+) {
+
+    int tokenCount() {
+        return tokens.length;
+    }
+}
@@ -0,0 +1,364 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.service.KeywordSearchService.AnalyzedFields;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Estadísticas BM25 para los campos keywords y descripción.
+ * Se guardan las frecuencias crudas de cada término y, por campo, el IDF de todo el
+ * vocabulario: el peso (IDF × frecuencia normalizada por largo) se arma al acumular la query
+ * (ver {@link SearchIndex#accumulate}), así un cambio en el corpus actualiza IDF y largo
+ * promedio para todos los items sin recorrerlos.
+ */
+final class Bm25Statistics {
+
+    static final Bm25Statistics EMPTY = new Bm25Statistics(Field.EMPTY, Field.EMPTY);
+
+    // Parámetros estándar de BM25: saturación de frecuencia y normalización por largo
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+
+    // Una coincidencia parcial o solo por stem vale esta fracción del peso (keyword parcial / exacta)
+    static final double PARTIAL_FACTOR = 2.0 / 3.0;
+
+    private final Field keywords;
+    private final Field description;
+
+    private Bm25Statistics(Field keywords, Field description) {
+        this.keywords = keywords;
+        this.description = description;
+    }
+
+    Field keywords() {
+        return keywords;
+    }
+
+    Field description() {
+        return description;
+    }
+
+    /**
+     * Calcula frecuencias, IDF y largos de campo sobre todos los items.
+     * {@code descriptionTokenLists} trae los tokens de cada descripción con repeticiones,
+     * para obtener la frecuencia de cada término.
+     */
+    static Bm25Statistics build(AnalyzedFields[] analyzed, List<List<String>> descriptionTokenLists) {
+        int count = analyzed.length;
+        FieldChanges keywordChanges = new FieldChanges(count);
+        FieldChanges descriptionChanges = new FieldChanges(count);
+
+        for (int ordinal = 0; ordinal < count; ordinal++) {
+            analyzeItem(ordinal, analyzed[ordinal], descriptionTokenLists.get(ordinal), keywordChanges,
+                descriptionChanges);
+        }
+        return new Bm25Statistics(
+            Field.EMPTY.withChanges(new BitSet(), count, keywordChanges),
+            Field.EMPTY.withChanges(new BitSet(), count, descriptionChanges));
+    }
+
+    /**
+     * Estadísticas con los ordinales {@code removed} fuera del corpus y los items desde
+     * {@code firstAdded} agregados. Solo se analizan los items agregados; la frecuencia de
+     * documento de los términos afectados se ajusta con la diferencia y el IDF se recalcula
+     * para todo el vocabulario, así los pesos coinciden con los de una reconstrucción completa.
+     *
+     * @param analyzed               campos de todos los ordinales, incluidos los agregados
+     * @param addedDescriptionTokens tokens de la descripción de cada item agregado, con repeticiones
+     */
+    Bm25Statistics withChanges(BitSet removed, AnalyzedFields[] analyzed, int firstAdded,
+                               List<List<String>> addedDescriptionTokens) {
+        int size = analyzed.length;
+        FieldChanges keywordChanges = new FieldChanges(size - firstAdded);
+        FieldChanges descriptionChanges = new FieldChanges(size - firstAdded);
+
+        for (int ordinal = firstAdded; ordinal < size; ordinal++) {
+            analyzeItem(ordinal - firstAdded, analyzed[ordinal], addedDescriptionTokens.get(ordinal - firstAdded),
+                keywordChanges, descriptionChanges);
+        }
+        return new Bm25Statistics(
+            keywords.withChanges(removed, size, keywordChanges),
+            description.withChanges(removed, size, descriptionChanges));
+    }
+
+    /**
+     * Escribe las estadísticas para el snapshot del catálogo (ver {@link SearchIndex#write})
+     */
+    void write(DataOutputStream out) throws IOException {
+        keywords.write(out);
+        description.write(out);
+    }
+
+    static Bm25Statistics read(ByteBuffer in) {
+        return new Bm25Statistics(Field.read(in), Field.read(in));
+    }
+
+    private static void analyzeItem(int position, AnalyzedFields fields, List<String> descriptionTokenList,
+                                    FieldChanges keywordChanges, FieldChanges descriptionChanges) {
+        String[] terms = fields.keywords().toArray(new String[0]);
+        Arrays.sort(terms);
+        int[] keywordFrequencies = new int[terms.length];
+        Arrays.fill(keywordFrequencies, 1);
+        keywordChanges.add(position, terms, keywordFrequencies, terms.length);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (String token : descriptionTokenList) {
+            counts.merge(token, 1, Integer::sum);
+        }
+        String[] tokens = fields.descriptionTokens();
+        int[] descriptionFrequencies = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            descriptionFrequencies[i] = counts.getOrDefault(tokens[i], 1);
+        }
+        descriptionChanges.add(position, tokens, descriptionFrequencies, descriptionTokenList.size());
+    }
+
+    /**
+     * IDF (variante no negativa de Lucene) por frecuencia saturada y normalizada por largo
+     */
+    private static double weight(double idf, int termFrequency, int fieldLength, double avgFieldLength) {
+        double lengthNorm = avgFieldLength > 0 ? 1 - B + B * fieldLength / avgFieldLength : 1.0;
+        return idf * (termFrequency * (K1 + 1)) / (termFrequency + K1 * lengthNorm);
+    }
+
+    private static double idf(int documentCount, int documentFrequency) {
+        return Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    /**
+     * Términos, frecuencias y largo de los items agregados a un campo, por posición desde el primero
+     */
+    private record FieldChanges(String[][] terms, int[][] frequencies, int[] lengths) {
+
+        FieldChanges(int count) {
+            this(new String[count][], new int[count][], new int[count]);
+        }
+
+        void add(int position, String[] itemTerms, int[] itemFrequencies, int length) {
+            terms[position] = itemTerms;
+            frequencies[position] = itemFrequencies;
+            lengths[position] = length;
+        }
+    }
+
+    /**
+     * Frecuencias crudas de un campo por item e IDF por término. Los términos se identifican
+     * con un entero para que el IDF sea un arreglo; un término que deja de aparecer conserva su
+     * id con frecuencia de documento cero hasta la próxima reconstrucción completa. Los ids por
+     * stem permiten pasar de un stem de la query a los términos del campo sin recorrerlos.
+     */
+    static final class Field {
+
+        static final Field EMPTY = new Field(new int[0][], new int[0][], new int[0], Map.of(), new String[0],
+            Map.of(), new int[0], new double[0], 0, 0);
+
+        private static final int[] NO_IDS = new int[0];
+
+        private final int[][] termIds;
+        private final int[][] frequencies;
+        private final int[] lengths;
+        private final Map<String, Integer> ids;
+        private final String[] stems;
+        private final Map<String, int[]> idsByStem;
+        private final int[] documentFrequencies;
+        private final double[] idf;
+        private final int documentCount;
+        private final long lengthSum;
+        private final double avgLength;
+
+        private Field(int[][] termIds, int[][] frequencies, int[] lengths, Map<String, Integer> ids, String[] stems,
+                      Map<String, int[]> idsByStem, int[] documentFrequencies, double[] idf, int documentCount,
+                      long lengthSum) {
+            this.termIds = termIds;
+            this.frequencies = frequencies;
+            this.lengths = lengths;
+            this.ids = ids;
+            this.stems = stems;
+            this.idsByStem = idsByStem;
+            this.documentFrequencies = documentFrequencies;
+            this.idf = idf;
+            this.documentCount = documentCount;
+            this.lengthSum = lengthSum;
+            this.avgLength = documentCount > 0 ? (double) lengthSum / documentCount : 0.0;
+        }
+
+        /**
+         * Id del término, o -1
+         */
+        int id(String term) {
+            Integer id = ids.get(term);
+            return id != null ? id : -1;
+        }
+
+        /**
+         * Ids de los términos con ese stem ({@link SpanishStemmer#stemPhrase})
+         */
+        int[] idsWithStem(String stem) {
+            return idsByStem.getOrDefault(stem, NO_IDS);
+        }
+
+        /**
+         * Peso BM25 del término en el item, con las estadísticas actuales; 0 si el item no lo tiene.
+         * Recorre solo los ids del item (pocos enteros), sin comparar texto.
+         */
+        double weight(int ordinal, int id) {
+            int[] itemIds = termIds[ordinal];
+            for (int i = 0; i < itemIds.length; i++) {
+                if (itemIds[i] == id) {
+                    return Bm25Statistics.weight(idf[id], frequencies[ordinal][i], lengths[ordinal], avgLength);
+                }
+            }
+            return 0.0;
+        }
+
+        /**
+         * Mayor peso entre los términos del item que pertenecen a alguno de {@code groups},
+         * multiplicado por el peso del grupo
+         */
+        double synonymWeight(int ordinal, int[] groups, SynonymDictionary synonyms) {
+            int[] itemIds = termIds[ordinal];
+            double best = 0.0;
+            for (int i = 0; i < itemIds.length; i++) {
+                for (int group : synonyms.groupsOfStem(stems[itemIds[i]])) {
+                    if (contains(groups, group)) {
+                        best = Math.max(best, synonyms.weight(group) * Bm25Statistics.weight(idf[itemIds[i]],
+                            frequencies[ordinal][i], lengths[ordinal], avgLength));
+                    }
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Frecuencias por item, vocabulario con sus stems y frecuencias de documento; el IDF
+         * y los ids por stem se derivan al leer
+         */
+        private void write(DataOutputStream out) throws IOException {
+            out.writeInt(termIds.length);
+            for (int ordinal = 0; ordinal < termIds.length; ordinal++) {
+                CatalogSnapshot.writeInts(out, termIds[ordinal]);
+                CatalogSnapshot.writeInts(out, frequencies[ordinal]);
+            }
+            CatalogSnapshot.writeInts(out, lengths);
+            String[] terms = new String[ids.size()];
+            ids.forEach((term, id) -> terms[id] = term);
+            CatalogSnapshot.writeArray(out, terms);
+            CatalogSnapshot.writeArray(out, stems);
+            CatalogSnapshot.writeInts(out, documentFrequencies);
+            out.writeInt(documentCount);
+            out.writeLong(lengthSum);
+        }
+
+        private static Field read(ByteBuffer in) {
+            int size = CatalogSnapshot.readCount(in, 2 * Integer.BYTES);
+            int[][] termIds = new int[size][];
+            int[][] frequencies = new int[size][];
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                termIds[ordinal] = CatalogSnapshot.readInts(in);
+                frequencies[ordinal] = CatalogSnapshot.readInts(in);
+            }
+            int[] lengths = CatalogSnapshot.readInts(in);
+            String[] terms = CatalogSnapshot.readArray(in);
+            String[] stems = CatalogSnapshot.readArray(in);
+            int[] documentFrequencies = CatalogSnapshot.readInts(in);
+            int documentCount = in.getInt();
+            long lengthSum = in.getLong();
+            if (terms == null || stems == null || stems.length != terms.length
+                    || documentFrequencies.length != terms.length || lengths.length != size) {
+                throw new IllegalStateException("estadísticas BM25 inconsistentes");
+            }
+
+            Map<String, Integer> ids = new HashMap<>(terms.length * 4 / 3 + 1);
+            Map<String, List<Integer>> byStem = new HashMap<>();
+            double[] idf = new double[terms.length];
+            for (int id = 0; id < terms.length; id++) {
+                ids.put(terms[id], id);
+                byStem.computeIfAbsent(stems[id], stem -> new ArrayList<>(1)).add(id);
+                idf[id] = idf(documentCount, documentFrequencies[id]);
+            }
+            Map<String, int[]> idsByStem = new HashMap<>(byStem.size() * 4 / 3 + 1);
+            byStem.forEach((stem, list) -> idsByStem.put(stem, list.stream().mapToInt(Integer::intValue).toArray()));
+            return new Field(termIds, frequencies, lengths, ids, stems, idsByStem, documentFrequencies, idf,
+                documentCount, lengthSum);
+        }
+
+        private static boolean contains(int[] values, int value) {
+            for (int v : values) {
+                if (v == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Campo sin los ordinales {@code removed} y con los items de {@code added} a partir
+         * de {@code size - added.lengths().length}
+         */
+        private Field withChanges(BitSet removed, int size, FieldChanges added) {
+            int firstAdded = size - added.lengths().length;
+            int[][] nextTermIds = Arrays.copyOf(termIds, size);
+            int[][] nextFrequencies = Arrays.copyOf(frequencies, size);
+            int[] nextLengths = Arrays.copyOf(lengths, size);
+            Map<String, Integer> nextIds = new HashMap<>(ids);
+            String[] nextStems = stems;
+            Map<String, int[]> nextIdsByStem = idsByStem;
+            int[] nextDf = Arrays.copyOf(documentFrequencies, documentFrequencies.length);
+            int count = documentCount;
+            long nextLengthSum = lengthSum;
+
+            for (int ordinal = removed.nextSetBit(0); ordinal >= 0; ordinal = removed.nextSetBit(ordinal + 1)) {
+                count--;
+                nextLengthSum -= lengths[ordinal];
+                for (int id : termIds[ordinal]) {
+                    nextDf[id]--;
+                }
+            }
+            for (int ordinal = firstAdded; ordinal < size; ordinal++) {
+                String[] terms = added.terms()[ordinal - firstAdded];
+                int[] itemIds = new int[terms.length];
+                for (int i = 0; i < terms.length; i++) {
+                    Integer id = nextIds.get(terms[i]);
+                    if (id == null) {
+                        id = nextIds.size();
+                        nextIds.put(terms[i], id);
+                        if (nextStems == stems) {
+                            nextStems = Arrays.copyOf(stems, Math.max(16, stems.length * 2));
+                            nextIdsByStem = new HashMap<>(idsByStem);
+                        } else if (id >= nextStems.length) {
+                            nextStems = Arrays.copyOf(nextStems, nextStems.length * 2);
+                        }
+                        String stem = SpanishStemmer.stemPhrase(terms[i]);
+                        nextStems[id] = stem;
+                        int[] withStem = nextIdsByStem.getOrDefault(stem, NO_IDS);
+                        withStem = Arrays.copyOf(withStem, withStem.length + 1);
+                        withStem[withStem.length - 1] = id;
+                        nextIdsByStem.put(stem, withStem);
+                    }
+                    itemIds[i] = id;
+                    if (id >= nextDf.length) {
+                        nextDf = Arrays.copyOf(nextDf, Math.max(16, nextDf.length * 2));
+                    }
+                    nextDf[id]++;
+                }
+                count++;
+                nextTermIds[ordinal] = itemIds;
+                nextFrequencies[ordinal] = added.frequencies()[ordinal - firstAdded];
+                nextLengths[ordinal] = added.lengths()[ordinal - firstAdded];
+                nextLengthSum += nextLengths[ordinal];
+            }
+
+            nextDf = Arrays.copyOf(nextDf, nextIds.size());
+            nextStems = Arrays.copyOf(nextStems, nextIds.size());
+            double[] nextIdf = new double[nextDf.length];
+            for (int id = 0; id < nextDf.length; id++) {
+                nextIdf[id] = idf(count, nextDf[id]);
+            }
+            return new Field(nextTermIds, nextFrequencies, nextLengths, nextIds, nextStems, nextIdsByStem, nextDf,
+                nextIdf, count, nextLengthSum);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.model.PonchoComponent;
+import com.argendata.mcp.poncho.model.PonchoComponent.ComponentOption;
+import com.argendata.mcp.poncho.service.KeywordSearchService.SearchableItem;
+
+import java.util.*;
+
+/**
+ * Estado inmutable del catálogo: componentes, vistas por categoría, items de búsqueda
+ * y los índices derivados. {@link DocumentationService} lo publica con una única
+ * escritura volátil, así que un lector ve siempre un catálogo completo y consistente
+ * (el anterior o el nuevo) sin tomar locks. Las colecciones no se pueden modificar.
+ *
+ * @param componentsById       componentes y templates por id
+ * @param componentsByCategory componentes y templates por categoría
+ * @param searchableItems      items de búsqueda, en el orden de los ordinales del índice
+ * @param partitions           índice de búsqueda completo y sus particiones por tipo y categoría
+ * @param optionsById          opciones de configuración por id {@code componente#opcion}
+ * @param optionIndex          índice de búsqueda de opciones
+ */
+record Catalog(
+    Map<String, PonchoComponent> componentsById,
+    Map<String, List<PonchoComponent>> componentsByCategory,
+    List<SearchableItem> searchableItems,
+    SearchPartitions partitions,
+    Map<String, ComponentOption> optionsById,
+    SearchIndex optionIndex
+) {
+
+    static final Catalog EMPTY = new Catalog(Map.of(), Map.of(), List.of(), SearchPartitions.EMPTY, Map.of(),
+        SearchIndex.EMPTY);
+
+    /**
+     * Arma el catálogo y todos sus índices. Los mapas conservan el orden de iteración de
+     * {@link HashMap} (no el aleatorio de {@link Map#copyOf}) para que los listados y los
+     * desempates sean estables entre ejecuciones.
+     *
+     * @param components componentes en el mismo orden que {@code items}
+     * @param items      un item analizado por componente
+     */
+    static Catalog build(List<PonchoComponent> components, List<SearchableItem> items,
+                         KeywordSearchService searchService) {
+        Map<String, ComponentOption> optionsById = new HashMap<>();
+        SearchIndex optionIndex = searchService.buildIndex(optionItems(components, optionsById, searchService));
+        return of(components, items, SearchPartitions.build(items, searchService), optionsById, optionIndex);
+    }
+
+    /**
+     * Catálogo con índices ya construidos sobre {@code items} y sobre las opciones de
+     * {@code components}, leídos de un snapshot (ver {@link CatalogSnapshot}): solo se arman los mapas
+     */
+    static Catalog restore(List<PonchoComponent> components, List<SearchableItem> items,
+                           SearchPartitions partitions, SearchIndex optionIndex) {
+        Map<String, ComponentOption> optionsById = new HashMap<>();
+        for (PonchoComponent component : components) {
+            if (component.options() == null) {
+                continue;
+            }
+            for (ComponentOption option : component.options()) {
+                if (option.name() != null && !option.name().isBlank()) {
+                    optionsById.put(component.id() + "#" + option.name(), option);
+                }
+            }
+        }
+        return of(components, items, partitions, optionsById, optionIndex);
+    }
+
+    /**
+     * Catálogo nuevo a partir de {@code previous} con {@code upserts} agregados o reemplazados
+     * (por id) y {@code removedIds} quitados, sin reconstruir lo que no cambió: los índices se
+     * actualizan como delta (ver {@link SearchPartitions#update}), solo se rearman las listas de
+     * las categorías afectadas y las opciones de los componentes que cambiaron. Los items
+     * agregados o reemplazados pasan al final, en el mismo orden que sus ordinales en el índice.
+     *
+     * @param upsertItems un item analizado por componente de {@code upserts}, en el mismo orden
+     */
+    static Catalog update(Catalog previous, List<PonchoComponent> upserts, List<SearchableItem> upsertItems,
+                          Collection<String> removedIds, KeywordSearchService searchService) {
+        Map<String, PonchoComponent> byId = new HashMap<>(previous.componentsById());
+        Map<String, ComponentOption> optionsById = new HashMap<>(previous.optionsById());
+        Set<String> gone = new HashSet<>();
+        Set<String> affectedCategories = new HashSet<>();
+        List<PonchoComponent> changedComponents = new ArrayList<>();
+        List<String> removedOptionIds = new ArrayList<>();
+        
+        for (String id : removedIds) {
+            PonchoComponent old = byId.remove(id);
+            if (old != null) {
+                gone.add(id);
+                affectedCategories.add(old.category());
+                removedOptionIds.addAll(optionIds(old));
+            }
+        }
+        for (PonchoComponent component : upserts) {
+            PonchoComponent old = byId.put(component.id(), component);
+            gone.add(component.id());
+            affectedCategories.add(component.category());
+            if (old != null) {
+                affectedCategories.add(old.category());
+            }
+            // Si solo cambió el contenido de la plantilla las opciones siguen igual
+            if (!component.equals(old)) {
+                changedComponents.add(component);
+                if (old != null) {
+                    removedOptionIds.addAll(optionIds(old));
+                }
+            }
+        }
+        
+        List<SearchableItem> items = new ArrayList<>(previous.searchableItems().size() + upsertItems.size());
+        List<SearchableItem> removedItems = new ArrayList<>();
+        for (SearchableItem item : previous.searchableItems()) {
+            (gone.contains(item.id()) ? removedItems : items).add(item);
+        }
+        items.addAll(upsertItems);
+        
+        Map<String, List<PonchoComponent>> byCategory = new HashMap<>(previous.componentsByCategory());
+        for (String category : affectedCategories) {
+            List<PonchoComponent> list = new ArrayList<>();
+            for (PonchoComponent component : previous.componentsByCategory().getOrDefault(category, List.of())) {
+                if (!gone.contains(component.id())) {
+                    list.add(component);
+                }
+            }
+            for (PonchoComponent component : upserts) {
+                if (Objects.equals(component.category(), category)) {
+                    list.add(component);
+                }
+            }
+            if (list.isEmpty()) {
+                byCategory.remove(category);
+            } else {
+                byCategory.put(category, List.copyOf(list));
+            }
+        }
+        
+        removedOptionIds.forEach(optionsById::remove);
+        SearchIndex optionIndex = searchService.update(previous.optionIndex(), removedOptionIds,
+            optionItems(changedComponents, optionsById, searchService));
+        
+        return new Catalog(
+            Collections.unmodifiableMap(byId),
+            Collections.unmodifiableMap(byCategory),
+            List.copyOf(items),
+            previous.partitions().update(removedItems, upsertItems, searchService),
+            Collections.unmodifiableMap(optionsById),
+            optionIndex
+        );
+    }
+
+    private static Catalog of(List<PonchoComponent> components, List<SearchableItem> items,
+                              SearchPartitions partitions, Map<String, ComponentOption> optionsById,
+                              SearchIndex optionIndex) {
+        Map<String, PonchoComponent> byId = new HashMap<>();
+        Map<String, List<PonchoComponent>> byCategory = new HashMap<>();
+        for (PonchoComponent component : components) {
+            byId.put(component.id(), component);
+            byCategory
+                .computeIfAbsent(component.category(), k -> new ArrayList<>())
+                .add(component);
+        }
+        byCategory.replaceAll((category, list) -> List.copyOf(list));
+
+        return new Catalog(
+            Collections.unmodifiableMap(byId),
+            Collections.unmodifiableMap(byCategory),
+            List.copyOf(items),
+            partitions,
+            Collections.unmodifiableMap(optionsById),
+            optionIndex
+        );
+    }
+
+    private static List<String> optionIds(PonchoComponent component) {
+        if (component.options() == null) {
+            return List.of();
+        }
+        return component.options().stream()
+            .filter(option -> option.name() != null && !option.name().isBlank())
+            .map(option -> component.id() + "#" + option.name())
+            .toList();
+    }
+
+    /**
+     * Una entrada por opción, con id {@code componente#opcion}. El nombre camelCase se separa
+     * en palabras ("ordenColumna" → "orden Columna") y se conserva entero como keyword.
+     */
+    private static List<SearchableItem> optionItems(List<PonchoComponent> components,
+                                                    Map<String, ComponentOption> optionsById,
+                                                    KeywordSearchService searchService) {
+        List<SearchableItem> items = new ArrayList<>();
+        for (PonchoComponent component : components) {
+            if (component.options() == null) {
+                continue;
+            }
+            for (ComponentOption option : component.options()) {
+                if (option.name() == null || option.name().isBlank()) {
+                    continue;
+                }
+                String id = component.id() + "#" + option.name();
+                optionsById.put(id, option);
+                items.add(searchService.analyze(new SearchableItem(
+                    id,
+                    option.name().replaceAll("([a-z0-9])([A-Z])", "$1 $2"),
+                    component.category(),
+                    option.description(),
+                    List.of(option.name()),
+                    "option",
+                    Map.of("componentId", component.id())
+                )));
+            }
+        }
+        return items;
+    }
+}
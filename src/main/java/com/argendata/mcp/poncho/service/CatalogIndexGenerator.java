@@ -0,0 +1,54 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.model.PonchoComponent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Genera en el build el índice precomputado del catálogo (ver {@link CatalogSnapshot}).
+ * Lo invoca {@code exec-maven-plugin} en la fase {@code process-classes} con el
+ * directorio de clases en el classpath, así que lee {@code components.json} y las
+ * plantillas tal como quedan en el jar. Valida el catálogo ({@link CatalogValidator})
+ * y falla el build si encuentra errores. Los índices se construyen con la configuración de
+ * búsqueda por defecto; con otra, el servidor los reconstruye al arrancar.
+ *
+ * <p>Uso: {@code CatalogIndexGenerator <archivo de salida>}
+ */
+public final class CatalogIndexGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogIndexGenerator.class);
+
+    private CatalogIndexGenerator() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Uso: CatalogIndexGenerator <archivo de salida>");
+        }
+        Path output = Path.of(args[0]);
+        
+        KeywordSearchService searchService = new KeywordSearchService();
+        DocumentationService documentationService = new DocumentationService(new ObjectMapper(),
+            searchService, new SearchResultCache(0, Duration.ZERO), event -> { }, null);
+        List<byte[]> sources = documentationService.readSources();
+        List<PonchoComponent> components = documentationService.parseCatalog(sources.get(0));
+        
+        List<String> errors = CatalogValidator.validate(components,
+            path -> new ClassPathResource(TemplateContentStore.TEMPLATES_BASE_PATH + path).exists());
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Catálogo inválido:\n  " + String.join("\n  ", errors));
+        }
+        
+        CatalogSnapshot snapshot = documentationService.buildSnapshot(components);
+        Catalog built = Catalog.build(snapshot.components(), snapshot.items(), searchService);
+        snapshot.withIndexes(built).write(output, CatalogSnapshot.hash(sources),
+            CatalogSnapshot.hash(searchService.indexSettings()));
+        log.info("Índice del catálogo generado en {} ({} items)", output, components.size());
+    }
+}
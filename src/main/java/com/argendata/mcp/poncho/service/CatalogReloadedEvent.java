@@ -0,0 +1,9 @@
+package com.argendata.mcp.poncho.service;
+
+/**
+ * Evento publicado por {@link DocumentationService} cuando el catálogo se recarga.
+ * Las vistas derivadas del catálogo (respuestas memorizadas, caches) deben invalidarse.
+ */
+public record CatalogReloadedEvent(
+    int componentCount
+) {}
@@ -0,0 +1,449 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.model.PonchoComponent;
+import com.argendata.mcp.poncho.model.PonchoComponent.ComponentDependencies;
+import com.argendata.mcp.poncho.model.PonchoComponent.ComponentOption;
+import com.argendata.mcp.poncho.service.KeywordSearchService.AnalyzedFields;
+import com.argendata.mcp.poncho.service.KeywordSearchService.SearchableItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Snapshot binario del catálogo ya procesado: los componentes parseados de
+ * {@code components.json}, sus items de búsqueda con el texto de las plantillas
+ * extraído y los campos analizados, y los índices construidos sobre ellos (postings,
+ * trigramas, estadísticas BM25, corrector y particiones; ver {@link SearchPartitions}).
+ * Al arrancar se compara el hash del contenido fuente con el guardado en el encabezado;
+ * si coincide, el archivo se lee con un único mapeo en memoria y se evita parsear el JSON,
+ * recorrer el HTML, tokenizar y construir los índices. Los índices dependen además de la
+ * configuración de búsqueda (ver {@link KeywordSearchService#indexSettings()}): si su hash
+ * no coincide se leen solo los componentes y los índices se reconstruyen.
+ *
+ * <p>Formato: {@code MAGIC}, {@code FORMAT_VERSION}, hash SHA-256 de la fuente, hash de la
+ * configuración y a continuación los componentes y sus items, y los índices si se guardaron.
+ * Los strings van como largo + UTF-8 (-1 para {@code null}). Cambios en el formato, en el
+ * análisis de texto o en las estructuras de los índices deben incrementar {@code FORMAT_VERSION}.
+ */
+final class CatalogSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshot.class);
+
+    /**
+     * Ruta del snapshot generado en el build dentro del classpath
+     */
+    static final String BUNDLED_PATH = "docs/catalog.snapshot";
+
+    private static final int MAGIC = 0x504F4E43;  // "PONC"
+    static final int FORMAT_VERSION = 2;
+    private static final int HASH_LENGTH = 32;
+
+    private final List<PonchoComponent> components;
+    private final List<SearchableItem> items;
+    // Índices sobre items y sobre las opciones; null si hay que construirlos
+    private final SearchPartitions partitions;
+    private final SearchIndex optionIndex;
+
+    /**
+     * @param items un item analizado por componente, en el mismo orden
+     */
+    CatalogSnapshot(List<PonchoComponent> components, List<SearchableItem> items) {
+        this(components, items, null, null);
+    }
+
+    private CatalogSnapshot(List<PonchoComponent> components, List<SearchableItem> items,
+                            SearchPartitions partitions, SearchIndex optionIndex) {
+        if (components.size() != items.size()) {
+            throw new IllegalArgumentException("Se esperaba un item por componente");
+        }
+        this.components = components;
+        this.items = items;
+        this.partitions = partitions;
+        this.optionIndex = optionIndex;
+    }
+
+    /**
+     * El mismo snapshot con los índices de un catálogo recién construido sobre sus items
+     * ({@link Catalog#build}), para guardarlos
+     */
+    CatalogSnapshot withIndexes(Catalog catalog) {
+        return new CatalogSnapshot(components, items, catalog.partitions(), catalog.optionIndex());
+    }
+
+    List<PonchoComponent> components() {
+        return components;
+    }
+
+    List<SearchableItem> items() {
+        return items;
+    }
+
+    boolean hasIndexes() {
+        return partitions != null;
+    }
+
+    /**
+     * Catálogo con los índices guardados, o construidos si el snapshot no los trae
+     */
+    Catalog toCatalog(KeywordSearchService searchService) {
+        return hasIndexes()
+            ? Catalog.restore(components, items, partitions, optionIndex)
+            : Catalog.build(components, items, searchService);
+    }
+
+    /**
+     * Hash del contenido fuente (en orden) más la versión del formato
+     */
+    static byte[] hash(List<byte[]> sources) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(ByteBuffer.allocate(4).putInt(FORMAT_VERSION).array());
+            for (byte[] source : sources) {
+                digest.update(ByteBuffer.allocate(4).putInt(source.length).array());
+                digest.update(source);
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Lee el snapshot si existe y su hash coincide. Un archivo ausente, de otra versión,
+     * desactualizado o corrupto devuelve vacío: el llamador reconstruye desde la fuente.
+     * Con otra configuración de búsqueda devuelve solo los componentes, sin índices.
+     *
+     * @param synonyms diccionario con el que se construyeron los índices (el de {@code settingsHash})
+     */
+    static Optional<CatalogSnapshot> read(Path path, byte[] expectedHash, byte[] settingsHash,
+                                          SynonymDictionary synonyms) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(buffer, expectedHash, settingsHash, synonyms);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Snapshot del catálogo ilegible en {}, se reconstruye: {}", path, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Escribe el snapshot en un archivo temporal y lo mueve al destino, para que otro
+     * proceso que arranca a la vez nunca lea un archivo a medio escribir
+     */
+    void write(Path path, byte[] hash, byte[] settingsHash) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, encode(hash, settingsHash));
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    byte[] encode(byte[] hash, byte[] settingsHash) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.write(hash);
+        out.write(settingsHash);
+        out.writeInt(components.size());
+        for (int i = 0; i < components.size(); i++) {
+            writeComponent(out, components.get(i));
+            writeItem(out, items.get(i));
+        }
+        out.writeBoolean(hasIndexes());
+        if (hasIndexes()) {
+            partitions.write(out);
+            List<SearchableItem> optionItems = optionIndex.items();
+            out.writeInt(optionItems.size());
+            for (SearchableItem item : optionItems) {
+                writeItem(out, item);
+            }
+            optionIndex.write(out);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param synonyms diccionario con el que se construyeron los índices (el de {@code settingsHash})
+     */
+    static Optional<CatalogSnapshot> decode(ByteBuffer in, byte[] expectedHash, byte[] settingsHash,
+                                            SynonymDictionary synonyms) {
+        if (in.remaining() < 8 + 2 * HASH_LENGTH || in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+            return Optional.empty();
+        }
+        byte[] hash = new byte[HASH_LENGTH];
+        in.get(hash);
+        if (!Arrays.equals(hash, expectedHash)) {
+            return Optional.empty();
+        }
+        byte[] storedSettings = new byte[HASH_LENGTH];
+        in.get(storedSettings);
+        try {
+            int count = readCount(in, 2 * Integer.BYTES);
+            List<PonchoComponent> components = new ArrayList<>(count);
+            List<SearchableItem> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                components.add(readComponent(in));
+                items.add(readItem(in));
+            }
+            // Con otra configuración los índices guardados no sirven: se omite el resto del archivo
+            if (in.get() == 0 || !Arrays.equals(storedSettings, settingsHash)) {
+                return Optional.of(new CatalogSnapshot(components, items));
+            }
+            SearchPartitions partitions = SearchPartitions.read(in, items, synonyms);
+            int optionCount = readCount(in, 2 * Integer.BYTES);
+            List<SearchableItem> optionItems = new ArrayList<>(optionCount);
+            for (int i = 0; i < optionCount; i++) {
+                optionItems.add(readItem(in));
+            }
+            SearchIndex optionIndex = SearchIndex.read(in, optionItems, synonyms);
+            if (in.hasRemaining()) {
+                throw new IllegalStateException("bytes sobrantes al final");
+            }
+            return Optional.of(new CatalogSnapshot(components, items, partitions, optionIndex));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalStateException("snapshot truncado", e);
+        }
+    }
+
+    private static void writeComponent(DataOutputStream out, PonchoComponent c) throws IOException {
+        writeString(out, c.id());
+        writeString(out, c.type());
+        writeString(out, c.name());
+        writeString(out, c.category());
+        writeString(out, c.description());
+        writeStrings(out, c.keywords());
+        out.writeBoolean(c.dependencies() != null);
+        if (c.dependencies() != null) {
+            writeStrings(out, c.dependencies().css());
+            writeStrings(out, c.dependencies().js());
+        }
+        List<ComponentOption> options = c.options() != null ? c.options() : List.of();
+        out.writeInt(options.size());
+        for (ComponentOption option : options) {
+            writeString(out, option.name());
+            writeString(out, option.type());
+            out.writeBoolean(option.required());
+            writeString(out, option.defaultValue());
+            writeString(out, option.description());
+        }
+        writeString(out, c.mainFunction());
+        writeString(out, c.mainClass());
+        writeString(out, c.mainObject());
+        writeString(out, c.usageExample());
+        writeString(out, c.templatePath());
+    }
+
+    private static PonchoComponent readComponent(ByteBuffer in) {
+        String id = readString(in);
+        String type = readString(in);
+        String name = readString(in);
+        String category = readString(in);
+        String description = readString(in);
+        List<String> keywords = readStrings(in);
+        ComponentDependencies dependencies = in.get() != 0
+            ? new ComponentDependencies(readStrings(in), readStrings(in))
+            : null;
+        int optionCount = readCount(in, 4 * Integer.BYTES + 1);
+        List<ComponentOption> options = new ArrayList<>(optionCount);
+        for (int i = 0; i < optionCount; i++) {
+            options.add(new ComponentOption(readString(in), readString(in), in.get() != 0,
+                readString(in), readString(in)));
+        }
+        return new PonchoComponent(id, type, name, category, description, keywords, dependencies, options,
+            readString(in), readString(in), readString(in), readString(in), readString(in));
+    }
+
+    /**
+     * El item guarda su metadata como strings y los campos analizados; nombre, categoría,
+     * descripción y keywords se comparten con el componente al reconstruir
+     */
+    private static void writeItem(DataOutputStream out, SearchableItem item) throws IOException {
+        writeString(out, item.id());
+        writeString(out, item.name());
+        writeString(out, item.category());
+        writeString(out, item.description());
+        writeStrings(out, item.keywords());
+        writeString(out, item.type());
+        out.writeInt(item.metadata().size());
+        for (Map.Entry<String, Object> entry : new TreeMap<>(item.metadata()).entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, String.valueOf(entry.getValue()));
+        }
+        writeString(out, item.content());
+        AnalyzedFields fields = item.analyzed();
+        writeString(out, fields.normalizedName());
+        writeStrings(out, Arrays.asList(fields.nameTokens()));
+        writeStrings(out, Arrays.asList(fields.descriptionTokens()));
+        writeString(out, fields.normalizedCategory());
+        writeStrings(out, Arrays.asList(fields.categoryTokens()));
+        writeStrings(out, new ArrayList<>(new TreeSet<>(fields.keywords())));
+        writeStrings(out, Arrays.asList(fields.contentTokens()));
+    }
+
+    private static SearchableItem readItem(ByteBuffer in) {
+        String id = readString(in);
+        String name = readString(in);
+        String category = readString(in);
+        String description = readString(in);
+        List<String> keywords = readStrings(in);
+        String type = readString(in);
+        int metadataSize = readCount(in, 2 * Integer.BYTES);
+        Map<String, Object> metadata = new HashMap<>();
+        for (int i = 0; i < metadataSize; i++) {
+            metadata.put(readString(in), readString(in));
+        }
+        String content = readString(in);
+        AnalyzedFields fields = new AnalyzedFields(
+            readString(in),
+            readArray(in),
+            readArray(in),
+            readString(in),
+            readArray(in),
+            new HashSet<>(readStrings(in)),
+            readArray(in)
+        );
+        return new SearchableItem(id, name, category, description, keywords, type, metadata, content, fields);
+    }
+
+    // Codificación compartida con los índices (ver SearchIndex#write)
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = readNullableCount(in, 1);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    static void writeArray(DataOutputStream out, String[] values) throws IOException {
+        writeStrings(out, values != null ? Arrays.asList(values) : null);
+    }
+
+    private static List<String> readStrings(ByteBuffer in) {
+        String[] values = readArray(in);
+        return values != null ? new ArrayList<>(Arrays.asList(values)) : null;
+    }
+
+    static String[] readArray(ByteBuffer in) {
+        int count = readNullableCount(in, Integer.BYTES);
+        if (count < 0) {
+            return null;
+        }
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = readString(in);
+        }
+        return values;
+    }
+
+    static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    static int[] readInts(ByteBuffer in) {
+        int[] values = new int[readCount(in, Integer.BYTES)];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + values.length * Integer.BYTES);
+        return values;
+    }
+
+    static void writeBytes(DataOutputStream out, byte[] values) throws IOException {
+        out.writeInt(values.length);
+        out.write(values);
+    }
+
+    static byte[] readBytes(ByteBuffer in) {
+        byte[] values = new byte[readCount(in, 1)];
+        in.get(values);
+        return values;
+    }
+
+    static void writeBits(DataOutputStream out, BitSet bits) throws IOException {
+        long[] words = bits.toLongArray();
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    static BitSet readBits(ByteBuffer in) {
+        long[] words = new long[readCount(in, Long.BYTES)];
+        in.asLongBuffer().get(words);
+        in.position(in.position() + words.length * Long.BYTES);
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Cantidad de elementos que siguen en el buffer, o -1 para {@code null}
+     */
+    private static int readNullableCount(ByteBuffer in, int minElementBytes) {
+        int count = in.getInt();
+        return count == -1 ? -1 : checkCount(in, count, minElementBytes);
+    }
+
+    static int readCount(ByteBuffer in, int minElementBytes) {
+        return checkCount(in, in.getInt(), minElementBytes);
+    }
+
+    /**
+     * El hash del encabezado cubre la fuente, no estos bytes: un largo leído del archivo se acota
+     * por lo que queda en el buffer antes de reservar memoria, así un archivo corrupto o
+     * manipulado falla como ilegible en lugar de agotar el heap
+     */
+    private static int checkCount(ByteBuffer in, int count, int minElementBytes) {
+        if (count < 0 || count > in.remaining() / minElementBytes) {
+            throw new IllegalStateException("largo inválido " + count + " con " + in.remaining() + " bytes restantes");
+        }
+        return count;
+    }
+}
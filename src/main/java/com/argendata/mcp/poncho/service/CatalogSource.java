@@ -0,0 +1,146 @@
+package com.argendata.mcp.poncho.service;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Origen de los archivos del catálogo: el classpath y, opcionalmente, un directorio
+ * externo ({@code poncho.catalog.dir}) con la misma estructura que se puede editar sin
+ * recompilar. En el directorio, {@code components.json} reemplaza al del jar y cada
+ * plantilla se busca por su ruta ({@code pages/formularios/login.html}) antes que en el jar.
+ */
+final class CatalogSource {
+
+    static final String CATALOG_FILE = "components.json";
+    static final String CATALOG_PATH = "docs/" + CATALOG_FILE;
+    static final String PAGES_DIR = "pages";
+
+    private final Path externalDir;
+
+    /**
+     * @param externalDir directorio externo; vacío o {@code null} usa solo el classpath
+     */
+    CatalogSource(String externalDir) {
+        this.externalDir = externalDir != null && !externalDir.isBlank()
+            ? Path.of(externalDir).toAbsolutePath().normalize()
+            : null;
+    }
+
+    /**
+     * Directorio externo, o {@code null}
+     */
+    Path externalDir() {
+        return externalDir;
+    }
+
+    byte[] catalogJson() throws IOException {
+        if (externalDir != null && Files.isRegularFile(externalDir.resolve(CATALOG_FILE))) {
+            return Files.readAllBytes(externalDir.resolve(CATALOG_FILE));
+        }
+        try (InputStream is = new ClassPathResource(CATALOG_PATH).getInputStream()) {
+            return is.readAllBytes();
+        }
+    }
+
+    /**
+     * Abre la plantilla (ruta relativa a {@code templates/}), primero en el directorio externo
+     *
+     * @throws FileNotFoundException si no existe en ninguno de los dos
+     */
+    InputStream openTemplate(String templatePath) throws IOException {
+        Path external = externalTemplate(templatePath);
+        if (external != null) {
+            return Files.newInputStream(external);
+        }
+        return new ClassPathResource(TemplateContentStore.TEMPLATES_BASE_PATH + templatePath).getInputStream();
+    }
+
+    boolean templateExists(String templatePath) {
+        return externalTemplate(templatePath) != null
+            || new ClassPathResource(TemplateContentStore.TEMPLATES_BASE_PATH + templatePath).exists();
+    }
+
+    /**
+     * Archivo de la plantilla en el directorio externo, o {@code null}. Las rutas que
+     * salen del directorio ({@code ../}) se ignoran.
+     */
+    Path externalTemplate(String templatePath) {
+        if (externalDir == null || templatePath == null) {
+            return null;
+        }
+        Path file = externalDir.resolve(templatePath).normalize();
+        return file.startsWith(externalDir) && Files.isRegularFile(file) ? file : null;
+    }
+
+    /**
+     * Contenido de todas las plantillas HTML por ruta, en orden; las del directorio
+     * externo reemplazan a las del jar con la misma ruta
+     */
+    SortedMap<String, byte[]> templates() throws IOException {
+        SortedMap<String, byte[]> templates = new TreeMap<>();
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        String rootUrl = new ClassPathResource(TemplateContentStore.TEMPLATES_BASE_PATH).getURL().toString();
+        for (Resource page : resolver.getResources(
+                "classpath*:" + TemplateContentStore.TEMPLATES_BASE_PATH + PAGES_DIR + "/**/*.html")) {
+            String url = page.getURL().toString();
+            try (InputStream is = page.getInputStream()) {
+                templates.put(url.startsWith(rootUrl) ? url.substring(rootUrl.length()) : url, is.readAllBytes());
+            }
+        }
+
+        Path pages = externalDir != null ? externalDir.resolve(PAGES_DIR) : null;
+        if (pages != null && Files.isDirectory(pages)) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(pages)) {
+                files = walk.filter(file -> file.toString().endsWith(".html") && Files.isRegularFile(file)).toList();
+            }
+            for (Path file : files) {
+                templates.put(relativePath(file), Files.readAllBytes(file));
+            }
+        }
+        return templates;
+    }
+
+    /**
+     * Si la ruta (relativa al directorio externo) es parte del catálogo: {@code components.json}
+     * o una plantilla {@code .html} bajo {@code pages/}
+     */
+    static boolean isCatalogFile(String relativePath) {
+        return relativePath.equals(CATALOG_FILE)
+            || (relativePath.startsWith(PAGES_DIR + "/") && relativePath.endsWith(".html"));
+    }
+
+    /**
+     * Ruta de un archivo del directorio externo relativa a él, con {@code /} como separador
+     */
+    String relativePath(Path file) {
+        return externalDir.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+
+    /**
+     * Todo el contenido fuente en orden estable, para calcular el hash del snapshot
+     */
+    List<byte[]> sources() throws IOException {
+        List<byte[]> sources = new ArrayList<>();
+        sources.add(catalogJson());
+        for (Map.Entry<String, byte[]> template : templates().entrySet()) {
+            sources.add(template.getKey().getBytes(StandardCharsets.UTF_8));
+            sources.add(template.getValue());
+        }
+        return sources;
+    }
+}
@@ -0,0 +1,99 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.model.PonchoComponent;
+import com.argendata.mcp.poncho.model.PonchoComponent.ComponentOption;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Validaciones del catálogo que se corren al generar el índice en el build
+ * (ver {@link CatalogIndexGenerator}): un error acá corta el build en lugar de
+ * llegar como un componente roto o una plantilla faltante en runtime.
+ */
+final class CatalogValidator {
+
+    private static final Set<String> TYPES = Set.of("component", "template");
+
+    private static final List<String> REQUIRED_FIELDS = List.of("id", "name", "category", "description");
+
+    private CatalogValidator() {}
+
+    /**
+     * Errores de estructura de la lista {@code components} de {@code components.json}, antes de
+     * convertir las entradas en {@link PonchoComponent}: entradas que no son objetos y campos
+     * obligatorios ausentes o que no son texto. Vacío si todas las entradas se pueden convertir.
+     */
+    static List<String> validateJson(JsonNode componentsNode) {
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < componentsNode.size(); i++) {
+            JsonNode node = componentsNode.get(i);
+            if (!node.isObject()) {
+                errors.add("#" + i + ": no es un objeto");
+                continue;
+            }
+            JsonNode id = node.get("id");
+            String label = id != null && id.isTextual() && !id.asText().isBlank() ? id.asText() : "#" + i;
+            for (String field : REQUIRED_FIELDS) {
+                JsonNode value = node.get(field);
+                if (value == null || value.isNull()) {
+                    errors.add(label + ": falta " + field);
+                } else if (!value.isTextual()) {
+                    errors.add(label + ": " + field + " no es texto");
+                }
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Errores encontrados, vacío si el catálogo es válido.
+     * Los campos obligatorios ya llegan presentes (ver {@link #validateJson}); acá se revisa que no estén vacíos.
+     *
+     * @param templateExists si existe la plantilla con la ruta relativa a {@code templates/}
+     */
+    static List<String> validate(List<PonchoComponent> components, Predicate<String> templateExists) {
+        List<String> errors = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < components.size(); i++) {
+            PonchoComponent c = components.get(i);
+            String label = !c.id().isBlank() ? c.id() : "#" + i;
+            if (c.id().isBlank()) {
+                errors.add(label + ": falta el id");
+            } else if (!ids.add(c.id())) {
+                errors.add(label + ": id duplicado");
+            }
+            if (!TYPES.contains(c.type())) {
+                errors.add(label + ": tipo no válido \"" + c.type() + "\" (component o template)");
+            }
+            requireText(errors, label, "name", c.name());
+            requireText(errors, label, "category", c.category());
+            requireText(errors, label, "description", c.description());
+            
+            if (c.isTemplate()) {
+                if (c.templatePath() == null || c.templatePath().isBlank()) {
+                    errors.add(label + ": template sin templatePath");
+                } else if (!templateExists.test(c.templatePath())) {
+                    errors.add(label + ": no existe la plantilla " + c.templatePath());
+                }
+            }
+            
+            Set<String> optionNames = new HashSet<>();
+            for (ComponentOption option : c.options() != null ? c.options() : List.<ComponentOption>of()) {
+                if (option.name() == null || option.name().isBlank()) {
+                    errors.add(label + ": opción sin nombre");
+                } else if (!optionNames.add(option.name())) {
+                    errors.add(label + ": opción duplicada " + option.name());
+                }
+            }
+        }
+        return errors;
+    }
+
+    private static void requireText(List<String> errors, String label, String field, String value) {
+        if (value.isBlank()) {
+            errors.add(label + ": falta " + field);
+        }
+    }
+}
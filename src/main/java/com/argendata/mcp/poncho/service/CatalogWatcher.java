@@ -0,0 +1,171 @@
+package com.argendata.mcp.poncho.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Vigila el directorio externo del catálogo ({@code poncho.catalog.dir}) con un
+ * {@link WatchService} y aplica los cambios en {@link DocumentationService} desde un hilo
+ * propio, fuera del camino de las requests. Los eventos se agrupan: el lote se aplica
+ * cuando pasa {@code poncho.catalog.watch.debounce} sin cambios nuevos, así que un editor
+ * que guarda varias veces seguidas produce una sola actualización. Un flujo continuo de
+ * escrituras no lo posterga más de {@value #MAX_BATCH_DEBOUNCES} veces el debounce, y solo
+ * cuentan {@code components.json} y las plantillas (no archivos temporales de editores).
+ * Sin directorio configurado no hace nada.
+ */
+@Service
+public class CatalogWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogWatcher.class);
+
+    // Se perdieron eventos (overflow): hay que recargar todo
+    private static final String FULL_RELOAD = "*";
+
+    // Demora máxima de un lote, en cantidad de debounces desde su primer evento
+    static final int MAX_BATCH_DEBOUNCES = 4;
+
+    private final DocumentationService documentationService;
+    private final CatalogSource source;
+    private final boolean enabled;
+    private final Duration debounce;
+
+    private WatchService watchService;
+    private Thread thread;
+
+    public CatalogWatcher(
+            DocumentationService documentationService,
+            @Value("${poncho.catalog.watch.enabled:true}") boolean enabled,
+            @Value("${poncho.catalog.watch.debounce:500ms}") Duration debounce) {
+        this.documentationService = documentationService;
+        this.source = documentationService.source();
+        this.enabled = enabled;
+        this.debounce = debounce;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Path dir = source.externalDir();
+        if (!enabled || dir == null) {
+            return;
+        }
+        if (!Files.isDirectory(dir)) {
+            log.warn("El directorio de catálogo {} no existe, no se vigilan cambios", dir);
+            return;
+        }
+
+        watchService = dir.getFileSystem().newWatchService();
+        registerAll(dir);
+        thread = Thread.ofVirtual().name("catalog-watcher").start(this::run);
+        log.info("Vigilando cambios del catálogo en {}", dir);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            thread.interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                // El lote empieza con el primer cambio que afecta al catálogo
+                Set<String> changed = new HashSet<>();
+                while (changed.isEmpty()) {
+                    collect(watchService.take(), changed);
+                }
+                long deadline = System.nanoTime() + debounce.toNanos() * MAX_BATCH_DEBOUNCES;
+                while (true) {
+                    long remaining = deadline - System.nanoTime();
+                    WatchKey key = remaining > 0
+                        ? watchService.poll(Math.min(debounce.toNanos(), remaining), TimeUnit.NANOSECONDS)
+                        : null;
+                    if (key == null) {
+                        break;
+                    }
+                    collect(key, changed);
+                }
+                apply(changed);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.debug("Vigilancia del catálogo detenida");
+        }
+    }
+
+    /**
+     * Aplica un lote de cambios; si falla se sigue sirviendo el catálogo anterior
+     */
+    private void apply(Set<String> changed) {
+        try {
+            if (changed.contains(FULL_RELOAD)) {
+                documentationService.reload();
+            } else if (!changed.isEmpty()) {
+                documentationService.applyChanges(changed);
+            }
+        } catch (RuntimeException e) {
+            log.error("Error recargando el catálogo, se mantiene el anterior: {}", e.getMessage());
+        }
+    }
+
+    private void collect(WatchKey key, Set<String> changed) {
+        Path base = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                changed.add(FULL_RELOAD);
+                continue;
+            }
+            Path path = base.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                // Los archivos creados antes de registrar el directorio no generan eventos
+                try {
+                    registerAll(path);
+                    for (Path file : files(path)) {
+                        addIfCatalogFile(changed, source.relativePath(file));
+                    }
+                } catch (IOException e) {
+                    log.warn("No se pudo vigilar {}: {}", path, e.getMessage());
+                }
+            }
+            addIfCatalogFile(changed, source.relativePath(path));
+        }
+        key.reset();
+    }
+
+    private static void addIfCatalogFile(Set<String> changed, String relativePath) {
+        if (CatalogSource.isCatalogFile(relativePath)) {
+            changed.add(relativePath);
+        }
+    }
+
+    private void registerAll(Path start) throws IOException {
+        List<Path> dirs;
+        try (Stream<Path> walk = Files.walk(start)) {
+            dirs = walk.filter(Files::isDirectory).toList();
+        }
+        for (Path dir : dirs) {
+            dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        }
+    }
+
+    private static List<Path> files(Path dir) throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            return walk.filter(Files::isRegularFile).toList();
+        }
+    }
+}
@@ -3,12 +3,14 @@ package com.argendata.mcp.poncho.service;
 import com.argendata.mcp.poncho.model.GeneratedCode;
 import com.github.mustachejava.DefaultMustacheFactory;
 import com.github.mustachejava.Mustache;
+import com.github.mustachejava.MustacheException;
 import com.github.mustachejava.MustacheFactory;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
@@ -22,35 +24,58 @@ public class CodeGeneratorService {
     
     private static final Logger log = LoggerFactory.getLogger(CodeGeneratorService.class);
     
+    private static final String[] TEMPLATE_NAMES = {
+        "setup.html.mustache",
+        "poncho-table.html.mustache",
+        "poncho-map.html.mustache",
+        "national-holidays.html.mustache",
+        "mapa-argentina-svg.html.mustache"
+    };
+    
     private final MustacheFactory mustacheFactory = new DefaultMustacheFactory();
-    private final Map<String, String> templates = new HashMap<>();
+    
+    /**
+     * Templates compilados una sola vez al iniciar. Un {@link Mustache} compilado es inmutable
+     * y puede ejecutarse concurrentemente desde varios threads (incluidos virtual threads).
+     */
+    private Map<String, Mustache> templates = Map.of();
     
     @PostConstruct
     public void init() {
         loadTemplates();
     }
     
+    /**
+     * Carga y compila los templates. Un template faltante o inválido impide el arranque
+     * en lugar de devolver un comentario HTML en cada llamada.
+     */
     private void loadTemplates() {
-        String[] templateNames = {
-            "setup.html.mustache",
-            "poncho-table.html.mustache",
-            "poncho-map.html.mustache",
-            "national-holidays.html.mustache",
-            "mapa-argentina-svg.html.mustache"
-        };
-        
-        for (String name : templateNames) {
-            try {
-                var resource = getClass().getClassLoader()
-                    .getResourceAsStream("templates/" + name);
-                if (resource != null) {
-                    String content = new String(resource.readAllBytes(), StandardCharsets.UTF_8);
-                    templates.put(name.replace(".mustache", ""), content);
-                    log.info("Template cargado: {}", name);
-                }
-            } catch (Exception e) {
-                log.error("Error cargando template {}: {}", name, e.getMessage());
+        Map<String, Mustache> compiled = new HashMap<>();
+        
+        for (String name : TEMPLATE_NAMES) {
+            String templateName = name.replace(".mustache", "");
+            compiled.put(templateName, compileTemplate(name, templateName));
+            log.info("Template compilado: {}", name);
+        }
+        
+        templates = Map.copyOf(compiled);
+    }
+    
+    private Mustache compileTemplate(String resourceName, String templateName) {
+        String content;
+        try (var resource = getClass().getClassLoader().getResourceAsStream("templates/" + resourceName)) {
+            if (resource == null) {
+                throw new IllegalStateException("Template no encontrado en el classpath: " + resourceName);
             }
+            content = new String(resource.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error leyendo template " + resourceName, e);
+        }
+        
+        try {
+            return mustacheFactory.compile(new StringReader(content), templateName);
+        } catch (MustacheException e) {
+            throw new IllegalStateException("Error compilando template " + resourceName + ": " + e.getMessage(), e);
         }
     }
     
@@ -392,13 +417,12 @@ public class CodeGeneratorService {
     }
     
     private String renderTemplate(String templateName, Map<String, Object> context) {
-        String templateContent = templates.get(templateName);
-        if (templateContent == null) {
+        Mustache mustache = templates.get(templateName);
+        if (mustache == null) {
             return "<!-- Template no encontrado: " + templateName + " -->";
         }
         
         try {
-            Mustache mustache = mustacheFactory.compile(new StringReader(templateContent), templateName);
             StringWriter writer = new StringWriter();
             mustache.execute(writer, context).flush();
             return writer.toString();
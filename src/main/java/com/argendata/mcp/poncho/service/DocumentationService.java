@@ -1,22 +1,39 @@
 package com.argendata.mcp.poncho.service;
 
 import com.argendata.mcp.poncho.model.ComponentSearchResult;
+import com.argendata.mcp.poncho.model.OptionSearchResult;
 import com.argendata.mcp.poncho.model.PonchoComponent;
 import com.argendata.mcp.poncho.model.PonchoComponent.ComponentDependencies;
 import com.argendata.mcp.poncho.model.PonchoComponent.ComponentOption;
+import com.argendata.mcp.poncho.model.SearchQuery;
 import com.argendata.mcp.poncho.service.KeywordSearchService.SearchableItem;
-import com.argendata.mcp.poncho.service.KeywordSearchService.SearchResult;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
@@ -24,52 +41,317 @@ import java.util.stream.Collectors;
  * Usa búsqueda por keywords en lugar de embeddings vectoriales.
  */
 @Service
+@ImportRuntimeHints(DocumentationService.CatalogRuntimeHints.class)
 public class DocumentationService {
     
     private static final Logger log = LoggerFactory.getLogger(DocumentationService.class);
     
     private final ObjectMapper objectMapper;
     private final KeywordSearchService keywordSearchService;
+    private final SearchResultCache searchResultCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path snapshotPath;
+    private final CatalogSource source;
     
-    private Map<String, PonchoComponent> componentsById = new HashMap<>();
-    private Map<String, List<PonchoComponent>> componentsByCategory = new HashMap<>();
-    private List<SearchableItem> searchableItems = new ArrayList<>();
+    // Todo el estado del catálogo; se reemplaza entero con una sola escritura (ver Catalog)
+    private volatile Catalog catalog = Catalog.EMPTY;
     
-    public DocumentationService(ObjectMapper objectMapper, KeywordSearchService keywordSearchService) {
+    /**
+     * Servicio con el catálogo del classpath únicamente
+     */
+    public DocumentationService(
+            ObjectMapper objectMapper,
+            KeywordSearchService keywordSearchService,
+            SearchResultCache searchResultCache,
+            ApplicationEventPublisher eventPublisher,
+            String snapshotPath) {
+        this(objectMapper, keywordSearchService, searchResultCache, eventPublisher, snapshotPath, null);
+    }
+    
+    /**
+     * @param snapshotPath archivo del snapshot del catálogo; vacío lo desactiva
+     * @param catalogDir   directorio externo que reemplaza a components.json y las plantillas
+     *                     del jar (ver {@link CatalogSource}); vacío usa solo el classpath
+     */
+    @Autowired
+    public DocumentationService(
+            ObjectMapper objectMapper,
+            KeywordSearchService keywordSearchService,
+            SearchResultCache searchResultCache,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${poncho.snapshot.path:}") String snapshotPath,
+            @Value("${poncho.catalog.dir:}") String catalogDir) {
         this.objectMapper = objectMapper;
         this.keywordSearchService = keywordSearchService;
+        this.searchResultCache = searchResultCache;
+        this.eventPublisher = eventPublisher;
+        this.snapshotPath = snapshotPath != null && !snapshotPath.isBlank() ? Path.of(snapshotPath) : null;
+        this.source = new CatalogSource(catalogDir);
     }
     
+    /**
+     * Carga el catálogo desde un snapshot binario cuyo hash coincida con el de
+     * {@code components.json} y las plantillas: primero el generado en el build e
+     * incluido en el jar (ver {@link CatalogIndexGenerator}), después el guardado en
+     * {@code poncho.snapshot.path} si está configurado. Si ninguno sirve lo construye desde la fuente y
+     * guarda un snapshot nuevo (ver {@link CatalogSnapshot}). Los índices se leen del snapshot
+     * si se generaron con la misma configuración de búsqueda
+     * ({@link KeywordSearchService#indexSettings()}); si no, se reconstruyen sobre los items
+     * guardados y el snapshot se reescribe. El catálogo y sus índices se arman aparte y se
+     * publican con un único reemplazo; si la carga falla queda el anterior.
+     */
     @PostConstruct
     public void init() {
-        loadComponents();
-        buildSearchIndex();
+        load();
     }
     
-    private void loadComponents() {
+    /**
+     * Carga descrita en {@link #init()}
+     *
+     * @return si se publicó un catálogo nuevo
+     */
+    private boolean load() {
+        CatalogSnapshot snapshot;
+        byte[] hash;
+        byte[] settingsHash;
         try {
-            ClassPathResource resource = new ClassPathResource("docs/components.json");
-            try (InputStream is = resource.getInputStream()) {
-                JsonNode root = objectMapper.readTree(is);
-                JsonNode componentsNode = root.get("components");
-                
-                for (JsonNode node : componentsNode) {
-                    PonchoComponent component = parseComponent(node);
-                    componentsById.put(component.id(), component);
-                    componentsByCategory
-                        .computeIfAbsent(component.category(), k -> new ArrayList<>())
-                        .add(component);
+            List<byte[]> sources = readSources();
+            hash = CatalogSnapshot.hash(sources);
+            settingsHash = CatalogSnapshot.hash(keywordSearchService.indexSettings());
+            Optional<CatalogSnapshot> stored = bundledSnapshot(hash, settingsHash);
+            if (stored.filter(CatalogSnapshot::hasIndexes).isEmpty() && snapshotPath != null) {
+                Optional<CatalogSnapshot> saved = CatalogSnapshot.read(snapshotPath, hash, settingsHash,
+                    keywordSearchService.synonyms());
+                saved.ifPresent(s -> log.info("Catálogo cargado desde el snapshot {}", snapshotPath));
+                if (saved.isPresent() && (stored.isEmpty() || saved.get().hasIndexes())) {
+                    stored = saved;
                 }
-                
-                long componentCount = componentsById.values().stream().filter(PonchoComponent::isComponent).count();
-                long templateCount = componentsById.values().stream().filter(PonchoComponent::isTemplate).count();
-                log.info("Cargados {} componentes y {} templates Poncho", componentCount, templateCount);
+            }
+            if (stored.isPresent()) {
+                snapshot = stored.get();
+            } else {
+                List<PonchoComponent> parsed = parseCatalog(sources.get(0));
+                requireValid(parsed);
+                snapshot = buildSnapshot(parsed);
             }
         } catch (IOException e) {
             log.error("Error cargando componentes: {}", e.getMessage());
+            return false;
+        }
+        
+        Catalog built = snapshot.toCatalog(keywordSearchService);
+        if (!snapshot.hasIndexes()) {
+            writeSnapshot(snapshot.withIndexes(built), hash, settingsHash);
+        }
+        catalog = built;
+        
+        long componentCount = built.componentsById().values().stream().filter(PonchoComponent::isComponent).count();
+        long templateCount = built.componentsById().values().stream().filter(PonchoComponent::isTemplate).count();
+        log.info("Cargados {} componentes y {} templates Poncho", componentCount, templateCount);
+        log.info("Índice de búsqueda {} con {} items, {} términos y {} particiones",
+            snapshot.hasIndexes() ? "leído del snapshot" : "construido",
+            built.partitions().all().size(), built.partitions().all().termCount(), built.partitions().partitionCount());
+        return true;
+    }
+    
+    /**
+     * Snapshot incluido en el jar, si existe y corresponde a la fuente actual. Desde un
+     * directorio de clases se mapea en memoria; dentro de un jar se lee entero.
+     */
+    private Optional<CatalogSnapshot> bundledSnapshot(byte[] hash, byte[] settingsHash) {
+        SynonymDictionary synonyms = keywordSearchService.synonyms();
+        ClassPathResource resource = new ClassPathResource(CatalogSnapshot.BUNDLED_PATH);
+        if (!resource.exists()) {
+            return Optional.empty();
+        }
+        Optional<CatalogSnapshot> snapshot;
+        try {
+            if (resource.isFile()) {
+                snapshot = CatalogSnapshot.read(resource.getFile().toPath(), hash, settingsHash, synonyms);
+            } else {
+                try (InputStream is = resource.getInputStream()) {
+                    snapshot = CatalogSnapshot.decode(ByteBuffer.wrap(is.readAllBytes()), hash, settingsHash, synonyms);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Snapshot del catálogo incluido ilegible, se ignora: {}", e.getMessage());
+            return Optional.empty();
+        }
+        if (snapshot.filter(CatalogSnapshot::hasIndexes).isPresent()) {
+            log.info("Catálogo cargado desde el índice generado en el build");
+        } else if (snapshot.isPresent()) {
+            log.info("El índice generado en el build usa otra configuración de búsqueda, se reconstruyen los índices");
+        } else {
+            log.info("El índice generado en el build no corresponde a la fuente actual, se ignora");
+        }
+        return snapshot;
+    }
+    
+    /**
+     * Contenido fuente del catálogo, en orden estable: {@code components.json} y cada
+     * plantilla HTML precedida por su ruta
+     */
+    List<byte[]> readSources() throws IOException {
+        return source.sources();
+    }
+    
+    CatalogSource source() {
+        return source;
+    }
+    
+    private void writeSnapshot(CatalogSnapshot snapshot, byte[] hash, byte[] settingsHash) {
+        if (snapshotPath == null) {
+            return;
+        }
+        try {
+            snapshot.write(snapshotPath, hash, settingsHash);
+            log.info("Snapshot del catálogo guardado en {}", snapshotPath);
+        } catch (IOException e) {
+            log.warn("No se pudo guardar el snapshot del catálogo en {}: {}", snapshotPath, e.getMessage());
         }
     }
     
+    /**
+     * Vuelve a cargar el catálogo y el índice, y notifica a las vistas derivadas
+     * (ver {@link CatalogReloadedEvent}) para que se invaliden. Si la carga falla se
+     * sigue sirviendo el catálogo anterior y no se notifica nada.
+     *
+     * @return si se cargó un catálogo nuevo
+     */
+    public synchronized boolean reload() {
+        if (!load()) {
+            return false;
+        }
+        eventPublisher.publishEvent(new CatalogReloadedEvent(catalog.componentsById().size()));
+        return true;
+    }
+    
+    /**
+     * Aplica un cambio puntual al catálogo: agrega o reemplaza {@code upserts} (por id) y quita
+     * {@code removedIds}. Solo se analizan los componentes recibidos; postings, estadísticas,
+     * listas por categoría y opciones se actualizan como delta (ver {@link Catalog#update}) y el
+     * índice se reconstruye completo solo si los huecos superan
+     * {@code poncho.search.index.max-fragmentation}. El catálogo nuevo se publica con un único
+     * reemplazo y se notifica a las vistas derivadas (ver {@link CatalogReloadedEvent}).
+     *
+     * @return si el catálogo cambió
+     */
+    public synchronized boolean applyDelta(List<PonchoComponent> upserts, Collection<String> removedIds) {
+        Catalog current = catalog;
+        Map<String, PonchoComponent> unique = new LinkedHashMap<>();
+        for (PonchoComponent component : upserts) {
+            unique.put(component.id(), component);
+        }
+        List<String> removed = removedIds.stream()
+            .filter(id -> current.componentsById().containsKey(id) && !unique.containsKey(id))
+            .toList();
+        if (unique.isEmpty() && removed.isEmpty()) {
+            return false;
+        }
+        
+        List<PonchoComponent> components = List.copyOf(unique.values());
+        List<SearchableItem> items = components.stream()
+            .map(this::componentToSearchableItem)
+            .collect(Collectors.toList());
+        catalog = Catalog.update(current, components, items, removed, keywordSearchService);
+        log.info("Catálogo actualizado: {} componentes agregados o reemplazados, {} quitados (fragmentación {}%)",
+            components.size(), removed.size(), Math.round(catalog.partitions().all().fragmentation() * 100));
+        eventPublisher.publishEvent(new CatalogReloadedEvent(catalog.componentsById().size()));
+        return true;
+    }
+    
+    /**
+     * Aplica cambios de archivos del directorio externo (rutas relativas a él) sin recargar
+     * todo. Si cambió {@code components.json} se vuelve a parsear y se compara por id con el
+     * catálogo actual; los componentes nuevos o distintos y los que tienen la plantilla
+     * modificada se aplican con {@link #applyDelta}. Si el parseo o la validación del catálogo
+     * resultante ({@link CatalogValidator#validate}) fallan se sigue sirviendo el anterior.
+     *
+     * @return si el catálogo cambió
+     */
+    synchronized boolean applyChanges(Set<String> changedPaths) {
+        Catalog current = catalog;
+        List<PonchoComponent> upserts = new ArrayList<>();
+        Set<String> removedIds = new HashSet<>();
+        try {
+            Collection<PonchoComponent> components;
+            if (changedPaths.contains(CatalogSource.CATALOG_FILE)) {
+                List<PonchoComponent> parsed = parseCatalog(source.catalogJson());
+                requireValid(parsed);
+                Set<String> parsedIds = parsed.stream().map(PonchoComponent::id).collect(Collectors.toSet());
+                removedIds.addAll(current.componentsById().keySet());
+                removedIds.removeAll(parsedIds);
+                components = parsed;
+            } else {
+                components = current.searchableItems().stream()
+                    .map(item -> current.componentsById().get(item.id()))
+                    .toList();
+                // Una plantilla borrada deja al catálogo actual apuntando a un archivo que no existe
+                requireValid(List.copyOf(components));
+            }
+            
+            for (PonchoComponent component : components) {
+                boolean templateChanged = component.templatePath() != null
+                    && changedPaths.contains(component.templatePath());
+                if (templateChanged || !component.equals(current.componentsById().get(component.id()))) {
+                    upserts.add(component);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Error aplicando cambios del catálogo externo, se mantiene el anterior: {}", e.getMessage());
+            return false;
+        }
+        return applyDelta(upserts, removedIds);
+    }
+    
+    /**
+     * Falla si el catálogo no pasa {@link CatalogValidator#validate}: ids duplicados, tipos no
+     * válidos, campos vacíos o plantillas que no existen ni en el directorio externo ni en el jar
+     */
+    private void requireValid(List<PonchoComponent> components) throws IOException {
+        List<String> errors = CatalogValidator.validate(components, source::templateExists);
+        if (!errors.isEmpty()) {
+            throw new IOException("Catálogo inválido:\n  " + String.join("\n  ", errors));
+        }
+    }
+    
+    /**
+     * Componentes de {@code components.json} en el orden del archivo, sin deduplicar.
+     * Falla con los errores de {@link CatalogValidator#validateJson} si alguna entrada está incompleta.
+     */
+    List<PonchoComponent> parseCatalog(byte[] catalogJson) throws IOException {
+        JsonNode root = objectMapper.readTree(catalogJson);
+        JsonNode componentsNode = root != null ? root.get("components") : null;
+        if (componentsNode == null || !componentsNode.isArray()) {
+            throw new IOException("components.json no tiene la lista \"components\"");
+        }
+        List<String> errors = CatalogValidator.validateJson(componentsNode);
+        if (!errors.isEmpty()) {
+            throw new IOException("components.json inválido:\n  " + String.join("\n  ", errors));
+        }
+        List<PonchoComponent> components = new ArrayList<>();
+        for (JsonNode node : componentsNode) {
+            components.add(parseComponent(node));
+        }
+        return components;
+    }
+    
+    /**
+     * Catálogo construido desde la fuente: un item de búsqueda analizado por componente
+     * (con el texto de su plantilla), en el orden de iteración del mapa por id
+     */
+    CatalogSnapshot buildSnapshot(List<PonchoComponent> parsed) {
+        Map<String, PonchoComponent> byId = new HashMap<>();
+        for (PonchoComponent component : parsed) {
+            byId.put(component.id(), component);
+        }
+        List<PonchoComponent> components = new ArrayList<>(byId.values());
+        List<SearchableItem> items = components.stream()
+            .map(this::componentToSearchableItem)
+            .collect(Collectors.toList());
+        return new CatalogSnapshot(components, items);
+    }
+    
     private PonchoComponent parseComponent(JsonNode node) {
         String id = node.get("id").asText();
         String type = node.has("type") ? node.get("type").asText() : "component";
@@ -119,17 +401,6 @@ public class DocumentationService {
             mainFunction, mainClass, mainObject, usageExample, templatePath);
     }
     
-    /**
-     * Construye el índice de búsqueda con todos los componentes y templates
-     */
-    private void buildSearchIndex() {
-        searchableItems = componentsById.values().stream()
-            .map(this::componentToSearchableItem)
-            .collect(Collectors.toList());
-        
-        log.info("Índice de búsqueda construido con {} items", searchableItems.size());
-    }
-    
     private SearchableItem componentToSearchableItem(PonchoComponent component) {
         Map<String, Object> metadata = new HashMap<>();
         metadata.put("type", component.type());
@@ -137,86 +408,171 @@ public class DocumentationService {
             metadata.put("templatePath", component.templatePath());
         }
         
-        return new SearchableItem(
+        return keywordSearchService.analyze(new SearchableItem(
             component.id(),
             component.name(),
             component.category(),
             component.description(),
             component.keywords(),
             component.type(),
-            metadata
-        );
+            metadata,
+            templateText(component.templatePath())
+        ));
+    }
+    
+    /**
+     * Texto visible del HTML del template, indexado como campo de contenido con peso bajo
+     */
+    private String templateText(String templatePath) {
+        if (templatePath == null) {
+            return null;
+        }
+        try (Reader reader = new BufferedReader(new InputStreamReader(source.openTemplate(templatePath),
+                StandardCharsets.UTF_8))) {
+            return HtmlTextExtractor.extract(reader);
+        } catch (IOException e) {
+            log.warn("No se pudo indexar el contenido de {}: {}", templatePath, e.getMessage());
+            return null;
+        }
     }
     
     /**
      * Busca componentes y templates usando búsqueda por keywords
      */
     public List<ComponentSearchResult> searchComponents(String query, int maxResults) {
-        List<SearchResult> results = keywordSearchService.search(query, searchableItems, maxResults);
-        
-        return results.stream()
-            .map(result -> {
-                PonchoComponent component = componentsById.get(result.item().id());
-                return ComponentSearchResult.from(component, result.score());
-            })
-            .collect(Collectors.toList());
+        return searchComponents(query, null, maxResults);
+    }
+    
+    /**
+     * Busca componentes y templates de una categoría ({@code null} para todas)
+     */
+    public List<ComponentSearchResult> searchComponents(String query, String category, int maxResults) {
+        return search(query, null, category, maxResults);
     }
     
     /**
      * Busca solo componentes (no templates)
      */
     public List<ComponentSearchResult> searchOnlyComponents(String query, int maxResults) {
-        List<SearchableItem> onlyComponents = searchableItems.stream()
-            .filter(item -> "component".equals(item.type()))
-            .collect(Collectors.toList());
-        
-        List<SearchResult> results = keywordSearchService.search(query, onlyComponents, maxResults);
-        
-        return results.stream()
-            .map(result -> {
-                PonchoComponent component = componentsById.get(result.item().id());
-                return ComponentSearchResult.from(component, result.score());
-            })
-            .collect(Collectors.toList());
+        return searchOnlyComponents(query, null, maxResults);
+    }
+    
+    /**
+     * Busca solo componentes de una categoría ({@code null} para todas)
+     */
+    public List<ComponentSearchResult> searchOnlyComponents(String query, String category, int maxResults) {
+        return search(query, "component", category, maxResults);
     }
     
     /**
      * Busca solo templates (no componentes)
      */
     public List<ComponentSearchResult> searchOnlyTemplates(String query, int maxResults) {
-        List<SearchableItem> onlyTemplates = searchableItems.stream()
-            .filter(item -> "template".equals(item.type()))
+        return searchOnlyTemplates(query, null, maxResults);
+    }
+    
+    /**
+     * Busca solo templates de una categoría ({@code null} para todas)
+     */
+    public List<ComponentSearchResult> searchOnlyTemplates(String query, String category, int maxResults) {
+        return search(query, "template", category, maxResults);
+    }
+    
+    /**
+     * Busca opciones de configuración de componentes por nombre o descripción
+     * ("ordenar por columna", "parámetros en la URL"), sin tener que leer la
+     * documentación completa de cada componente
+     */
+    public List<OptionSearchResult> searchOptions(String query, int maxResults) {
+        if (query == null || query.isBlank()) {
+            return Collections.emptyList();
+        }
+        Catalog current = catalog;
+        return keywordSearchService.search(query, current.optionIndex(), maxResults).stream()
+            .map(result -> {
+                PonchoComponent component = current.componentsById()
+                    .get((String) result.item().metadata().get("componentId"));
+                return OptionSearchResult.from(component, current.optionsById().get(result.item().id()),
+                    result.score());
+            })
             .collect(Collectors.toList());
+    }
+    
+    /**
+     * Ejecuta varias búsquedas a la vez, una por hilo virtual, con la misma normalización
+     * y cache de resultados que las búsquedas individuales. Devuelve los resultados en el
+     * orden de las queries.
+     */
+    public List<List<ComponentSearchResult>> searchBatch(List<SearchQuery> queries) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<List<ComponentSearchResult>>> futures = queries.stream()
+                .map(q -> executor.submit(() -> search(q.query(), q.type(), q.category(), q.maxResults())))
+                .toList();
+            
+            List<List<ComponentSearchResult>> results = new ArrayList<>(futures.size());
+            for (Future<List<ComponentSearchResult>> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Búsqueda en lote interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Error en búsqueda en lote", e.getCause());
+        }
+    }
+    
+    /**
+     * Búsqueda sobre el índice acotada a la partición del tipo y la categoría, con cache
+     * de resultados. Las queries en blanco no se cachean porque normalizan igual que queries
+     * de solo símbolos pero no devuelven resultados.
+     */
+    private List<ComponentSearchResult> search(String query, String type, String category, int maxResults) {
+        if (query == null || query.isBlank()) {
+            return Collections.emptyList();
+        }
         
-        List<SearchResult> results = keywordSearchService.search(query, onlyTemplates, maxResults);
+        String scope = (type != null ? type : "all") + "|" + (category != null ? category : "");
+        SearchResultCache.Key key = new SearchResultCache.Key(
+            keywordSearchService.normalize(query), scope, maxResults);
+        // La generación se lee antes que el catálogo: si se publica otro en el medio, el resultado no se guarda
+        long generation = searchResultCache.generation();
+        Catalog current = catalog;
+        SearchIndex index = current.partitions().all();
+        BitSet partition = current.partitions().scope(type, category);
         
-        return results.stream()
+        return searchResultCache.get(key, generation, () -> keywordSearchService
+            .search(query, index, partition, maxResults)
+            .stream()
             .map(result -> {
-                PonchoComponent component = componentsById.get(result.item().id());
+                PonchoComponent component = current.componentsById().get(result.item().id());
                 return ComponentSearchResult.from(component, result.score());
             })
-            .collect(Collectors.toList());
+            .collect(Collectors.toList()));
     }
     
     /**
      * Obtiene un componente o template por su ID
      */
     public Optional<PonchoComponent> getComponent(String id) {
-        return Optional.ofNullable(componentsById.get(id));
+        return Optional.ofNullable(catalog.componentsById().get(id));
     }
     
     /**
      * Lista todos los componentes y templates
      */
     public List<PonchoComponent> getAllComponents() {
-        return new ArrayList<>(componentsById.values());
+        return new ArrayList<>(catalog.componentsById().values());
     }
     
     /**
      * Lista solo componentes (sin templates)
      */
     public List<PonchoComponent> getOnlyComponents() {
-        return componentsById.values().stream()
+        return catalog.componentsById().values().stream()
             .filter(PonchoComponent::isComponent)
             .collect(Collectors.toList());
     }
@@ -225,7 +581,7 @@ public class DocumentationService {
      * Lista solo templates (sin componentes)
      */
     public List<PonchoComponent> getOnlyTemplates() {
-        return componentsById.values().stream()
+        return catalog.componentsById().values().stream()
             .filter(PonchoComponent::isTemplate)
             .collect(Collectors.toList());
     }
@@ -234,14 +590,14 @@ public class DocumentationService {
      * Lista componentes/templates por categoría
      */
     public List<PonchoComponent> getComponentsByCategory(String category) {
-        return componentsByCategory.getOrDefault(category, Collections.emptyList());
+        return catalog.componentsByCategory().getOrDefault(category, Collections.emptyList());
     }
     
     /**
      * Lista templates por categoría
      */
     public List<PonchoComponent> getTemplatesByCategory(String category) {
-        return componentsByCategory.getOrDefault(category, Collections.emptyList())
+        return catalog.componentsByCategory().getOrDefault(category, Collections.emptyList())
             .stream()
             .filter(PonchoComponent::isTemplate)
             .collect(Collectors.toList());
@@ -251,14 +607,14 @@ public class DocumentationService {
      * Obtiene todas las categorías disponibles
      */
     public Set<String> getCategories() {
-        return componentsByCategory.keySet();
+        return catalog.componentsByCategory().keySet();
     }
     
     /**
      * Obtiene categorías de solo componentes
      */
     public Set<String> getComponentCategories() {
-        return componentsById.values().stream()
+        return catalog.componentsById().values().stream()
             .filter(PonchoComponent::isComponent)
             .map(PonchoComponent::category)
             .collect(Collectors.toSet());
@@ -268,7 +624,7 @@ public class DocumentationService {
      * Obtiene categorías de solo templates
      */
     public Set<String> getTemplateCategories() {
-        return componentsById.values().stream()
+        return catalog.componentsById().values().stream()
             .filter(PonchoComponent::isTemplate)
             .map(PonchoComponent::category)
             .collect(Collectors.toSet());
@@ -340,4 +696,18 @@ public class DocumentationService {
         
         return sb.toString();
     }
+    
+    /**
+     * Recursos del catálogo que la imagen nativa debe incluir: components.json, el índice
+     * generado en el build, los sinónimos y las plantillas
+     */
+    static class CatalogRuntimeHints implements RuntimeHintsRegistrar {
+        
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.resources()
+                .registerPattern("docs/*")
+                .registerPattern(TemplateContentStore.TEMPLATES_BASE_PATH + "**");
+        }
+    }
 }
@@ -0,0 +1,260 @@
+package com.argendata.mcp.poncho.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Tokenizador HTML en streaming: recorre el documento una vez, carácter a carácter, y
+ * devuelve el texto visible (párrafos, labels, títulos, celdas) más los atributos que
+ * también ve el usuario (placeholder, aria-label, alt, title). Ignora comentarios y el
+ * contenido de {@code <script>} y {@code <style>}. No arma un árbol: solo se usa para indexar.
+ */
+final class HtmlTextExtractor {
+
+    private static final Set<String> TEXT_ATTRIBUTES = Set.of("placeholder", "aria-label", "alt", "title", "label");
+    private static final Set<String> RAW_TEXT_ELEMENTS = Set.of("script", "style");
+
+    private final Reader reader;
+    private final StringBuilder out = new StringBuilder();
+    private int lookahead = -2;
+
+    private HtmlTextExtractor(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Texto visible del documento, separado por espacios
+     */
+    static String extract(Reader reader) throws IOException {
+        HtmlTextExtractor extractor = new HtmlTextExtractor(reader);
+        extractor.run();
+        return extractor.out.toString().strip();
+    }
+
+    private void run() throws IOException {
+        int c;
+        while ((c = next()) != -1) {
+            if (c == '<') {
+                tag();
+            } else if (c == '&') {
+                entity();
+            } else {
+                out.append((char) c);
+            }
+        }
+    }
+
+    private void tag() throws IOException {
+        int c = peek();
+        if (c == '!') {
+            next();
+            if (peek() == '-') {
+                skipPast("-->");
+            } else {
+                skipPast(">");
+            }
+            return;
+        }
+        if (c == '/' || c == '?') {
+            skipPast(">");
+            separate();
+            return;
+        }
+        if (!Character.isLetter(c)) {
+            // "<" suelto en el texto
+            out.append('<');
+            return;
+        }
+
+        String name = readName();
+        separate();
+        while (true) {
+            skipWhitespace();
+            c = peek();
+            if (c == -1) {
+                return;
+            }
+            if (c == '>') {
+                next();
+                break;
+            }
+            if (c == '/') {
+                next();
+                continue;
+            }
+            String attribute = readName();
+            if (attribute.isEmpty()) {
+                next();
+                continue;
+            }
+            skipWhitespace();
+            if (peek() == '=') {
+                next();
+                skipWhitespace();
+                String value = readAttributeValue();
+                if (TEXT_ATTRIBUTES.contains(attribute)) {
+                    appendDecoded(value);
+                    separate();
+                }
+            }
+        }
+
+        if (RAW_TEXT_ELEMENTS.contains(name)) {
+            skipPast("</" + name);
+            skipPast(">");
+        }
+    }
+
+    private String readName() throws IOException {
+        StringBuilder name = new StringBuilder();
+        int c;
+        while ((c = peek()) != -1 && !Character.isWhitespace(c) && c != '>' && c != '/' && c != '=') {
+            name.append((char) next());
+        }
+        return name.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private String readAttributeValue() throws IOException {
+        StringBuilder value = new StringBuilder();
+        int quote = peek();
+        if (quote == '"' || quote == '\'') {
+            next();
+            int c;
+            while ((c = next()) != -1 && c != quote) {
+                value.append((char) c);
+            }
+        } else {
+            int c;
+            while ((c = peek()) != -1 && !Character.isWhitespace(c) && c != '>') {
+                value.append((char) next());
+            }
+        }
+        return value.toString();
+    }
+
+    /**
+     * Entidad HTML: las letras acentuadas se reducen a la letra base (el normalizador
+     * de búsqueda quita los acentos igual) y el resto se reemplaza por un espacio
+     */
+    private void entity() throws IOException {
+        StringBuilder name = new StringBuilder();
+        int c;
+        while (name.length() < 10 && (c = peek()) != -1 && (Character.isLetterOrDigit(c) || c == '#')) {
+            name.append((char) next());
+        }
+        if (peek() == ';') {
+            next();
+        }
+        out.append(decodeEntity(name.toString()));
+    }
+
+    private void appendDecoded(String text) {
+        int amp;
+        int from = 0;
+        while ((amp = text.indexOf('&', from)) >= 0) {
+            int semicolon = text.indexOf(';', amp);
+            if (semicolon < 0 || semicolon - amp > 11) {
+                break;
+            }
+            out.append(text, from, amp).append(decodeEntity(text.substring(amp + 1, semicolon)));
+            from = semicolon + 1;
+        }
+        out.append(text, from, text.length());
+    }
+
+    static String decodeEntity(String name) {
+        if (name.startsWith("#")) {
+            try {
+                int code = name.length() > 1 && (name.charAt(1) == 'x' || name.charAt(1) == 'X')
+                    ? Integer.parseInt(name.substring(2), 16)
+                    : Integer.parseInt(name.substring(1));
+                return Character.isValidCodePoint(code) ? new String(Character.toChars(code)) : " ";
+            } catch (NumberFormatException e) {
+                return " ";
+            }
+        }
+        if (name.endsWith("acute") || name.endsWith("tilde") || name.endsWith("uml")
+                || name.endsWith("grave") || name.endsWith("circ")) {
+            return name.substring(0, 1);
+        }
+        return switch (name) {
+            case "amp" -> "&";
+            case "lt" -> "<";
+            case "gt" -> ">";
+            case "quot" -> "\"";
+            case "apos" -> "'";
+            default -> " ";
+        };
+    }
+
+    /**
+     * Los elementos separan palabras ("<td>CUIL</td><td>DNI</td>")
+     */
+    private void separate() {
+        if (!out.isEmpty() && out.charAt(out.length() - 1) != ' ') {
+            out.append(' ');
+        }
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (peek() != -1 && Character.isWhitespace(peek())) {
+            next();
+        }
+    }
+
+    /**
+     * Avanza hasta después de la secuencia (sin distinguir mayúsculas), o hasta el final.
+     * Ante un carácter que no sigue la coincidencia retrocede con la tabla de KMP en lugar de
+     * empezar de cero, así {@code --->} cierra el comentario y {@code </scr</script>} el script.
+     */
+    private void skipPast(String sequence) throws IOException {
+        int[] fallback = fallback(sequence);
+        int matched = 0;
+        int c;
+        while ((c = next()) != -1) {
+            char lower = (char) Character.toLowerCase(c);
+            while (matched > 0 && lower != sequence.charAt(matched)) {
+                matched = fallback[matched - 1];
+            }
+            if (lower == sequence.charAt(matched)) {
+                matched++;
+                if (matched == sequence.length()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Para cada prefijo de la secuencia, el largo del prefijo más largo que también es su sufijo
+     */
+    private static int[] fallback(String sequence) {
+        int[] table = new int[sequence.length()];
+        int border = 0;
+        for (int i = 1; i < sequence.length(); i++) {
+            while (border > 0 && sequence.charAt(i) != sequence.charAt(border)) {
+                border = table[border - 1];
+            }
+            if (sequence.charAt(i) == sequence.charAt(border)) {
+                border++;
+            }
+            table[i] = border;
+        }
+        return table;
+    }
+
+    private int peek() throws IOException {
+        if (lookahead == -2) {
+            lookahead = reader.read();
+        }
+        return lookahead;
+    }
+
+    private int next() throws IOException {
+        int c = peek();
+        lookahead = -2;
+        return c;
+    }
+}
@@ -1,11 +1,14 @@
 package com.argendata.mcp.poncho.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.text.Normalizer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
 
 /**
  * Servicio de búsqueda por keywords sin dependencias de ML/ONNX.
@@ -14,17 +17,87 @@ import java.util.stream.Collectors;
 @Service
 public class KeywordSearchService {
 
-    private static final Pattern DIACRITICS_PATTERN = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
-    
     // Pesos para el algoritmo de scoring
     private static final double WEIGHT_EXACT_KEYWORD = 3.0;
     private static final double WEIGHT_PARTIAL_KEYWORD = 2.0;
     private static final double WEIGHT_NAME_MATCH = 2.5;
     private static final double WEIGHT_DESCRIPTION_MATCH = 1.0;
     private static final double WEIGHT_CATEGORY_MATCH = 1.5;
+    private static final double WEIGHT_CONTENT_MATCH = 0.5;
+    
+    // Ranking BM25: peso de cada campo sobre la suma de pesos BM25 de los tokens
+    private static final double BM25_KEYWORD_BOOST = 1.5;
+    private static final double BM25_DESCRIPTION_BOOST = 0.5;
+    
+    // Scoring en paralelo: cantidad mínima de candidatos y tamaño de cada shard
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 20_000;
+    private static final int MIN_SHARD_SIZE = 2_048;
+    
+    // Proporción de ordinales dados de baja a partir de la cual update reconstruye el índice
+    private static final double DEFAULT_MAX_FRAGMENTATION = 0.25;
+    
+    /**
+     * Modo de ranking: pesos fijos por campo (original) o BM25 sobre keywords y descripción
+     */
+    public enum RankingMode { WEIGHTED, BM25 }
+    
+    private final RankingMode rankingMode;
+    private final boolean stemmingEnabled;
+    private final SynonymDictionary synonyms;
+    private final boolean parallelEnabled;
+    private final int parallelThreshold;
+    private final double maxFragmentation;
+    
+    public KeywordSearchService() {
+        this(RankingMode.WEIGHTED, true, SynonymDictionary.bundled(), true, DEFAULT_PARALLEL_THRESHOLD);
+    }
     
     /**
-     * Representa un item buscable con sus metadatos
+     * @param synonymsPath archivo de sinónimos externo; vacío para usar el incluido en el jar
+     */
+    @Autowired
+    public KeywordSearchService(
+            @Value("${poncho.search.ranking:weighted}") RankingMode rankingMode,
+            @Value("${poncho.search.stemming.enabled:true}") boolean stemmingEnabled,
+            @Value("${poncho.search.synonyms.path:}") String synonymsPath,
+            @Value("${poncho.search.parallel.enabled:true}") boolean parallelEnabled,
+            @Value("${poncho.search.parallel.threshold:20000}") int parallelThreshold,
+            @Value("${poncho.search.index.max-fragmentation:0.25}") double maxFragmentation) {
+        this(rankingMode, stemmingEnabled, SynonymDictionary.load(synonymsPath), parallelEnabled, parallelThreshold,
+            maxFragmentation);
+    }
+    
+    /**
+     * @param rankingMode       algoritmo de scoring
+     * @param stemmingEnabled   hace coincidir las variantes de plural y género ({@link SpanishStemmer})
+     * @param synonyms          grupos de sinónimos que se expanden en el índice
+     * @param parallelEnabled   permite repartir el scoring en el pool ForkJoin común
+     * @param parallelThreshold cantidad de candidatos a partir de la cual se puntúa en paralelo
+     */
+    public KeywordSearchService(RankingMode rankingMode, boolean stemmingEnabled, SynonymDictionary synonyms,
+                                boolean parallelEnabled, int parallelThreshold) {
+        this(rankingMode, stemmingEnabled, synonyms, parallelEnabled, parallelThreshold, DEFAULT_MAX_FRAGMENTATION);
+    }
+    
+    /**
+     * @param maxFragmentation proporción de items dados de baja que tolera {@link #update} antes de
+     *                         reconstruir el índice completo
+     */
+    public KeywordSearchService(RankingMode rankingMode, boolean stemmingEnabled, SynonymDictionary synonyms,
+                                boolean parallelEnabled, int parallelThreshold, double maxFragmentation) {
+        this.rankingMode = rankingMode;
+        this.stemmingEnabled = stemmingEnabled;
+        this.synonyms = synonyms;
+        this.parallelEnabled = parallelEnabled;
+        this.parallelThreshold = Math.max(parallelThreshold, 1);
+        this.maxFragmentation = maxFragmentation;
+    }
+    
+    /**
+     * Representa un item buscable con sus metadatos.
+     * {@code content} es texto libre opcional (p. ej. el texto visible del HTML de una plantilla)
+     * que se indexa con menor peso; {@code analyzed} contiene los campos ya normalizados y
+     * tokenizados (ver {@link #analyze}).
      */
     public record SearchableItem(
         String id,
@@ -33,7 +106,55 @@ public class KeywordSearchService {
         String description,
         List<String> keywords,
         String type,
-        Map<String, Object> metadata
+        Map<String, Object> metadata,
+        String content,
+        AnalyzedFields analyzed
+    ) {
+        
+        /**
+         * Constructor sin contenido ni campos analizados; se analizan al construir el índice
+         */
+        public SearchableItem(
+            String id,
+            String name,
+            String category,
+            String description,
+            List<String> keywords,
+            String type,
+            Map<String, Object> metadata
+        ) {
+            this(id, name, category, description, keywords, type, metadata, null, null);
+        }
+        
+        /**
+         * Constructor con contenido, sin campos analizados
+         */
+        public SearchableItem(
+            String id,
+            String name,
+            String category,
+            String description,
+            List<String> keywords,
+            String type,
+            Map<String, Object> metadata,
+            String content
+        ) {
+            this(id, name, category, description, keywords, type, metadata, content, null);
+        }
+    }
+    
+    /**
+     * Forma analizada de un item: texto del catálogo normalizado y tokenizado una sola vez.
+     * Los campos nulos o en blanco del item quedan como {@code null} / arrays vacíos.
+     */
+    public record AnalyzedFields(
+        String normalizedName,
+        String[] nameTokens,
+        String[] descriptionTokens,
+        String normalizedCategory,
+        String[] categoryTokens,
+        Set<String> keywords,
+        String[] contentTokens
     ) {}
     
     /**
@@ -50,192 +171,418 @@ public class KeywordSearchService {
     }
     
     /**
-     * Busca items que coincidan con la query
+     * Devuelve el item con sus campos analizados.
+     * Se invoca una vez por item al armar el catálogo para que las queries no procesen texto del catálogo.
      */
-    public List<SearchResult> search(String query, List<SearchableItem> items, int maxResults) {
-        if (query == null || query.isBlank()) {
-            return Collections.emptyList();
+    public SearchableItem analyze(SearchableItem item) {
+        if (item.analyzed() != null) {
+            return item;
         }
+        return new SearchableItem(item.id(), item.name(), item.category(), item.description(),
+            item.keywords(), item.type(), item.metadata(), item.content(), analyzeFields(item));
+    }
+    
+    private AnalyzedFields analyzeFields(SearchableItem item) {
+        boolean hasName = item.name() != null && !item.name().isBlank();
+        boolean hasCategory = item.category() != null && !item.category().isBlank();
         
-        Set<String> queryTokens = tokenize(query);
+        Set<String> keywords = new HashSet<>();
+        if (item.keywords() != null) {
+            for (String keyword : item.keywords()) {
+                keywords.add(normalize(keyword));
+            }
+        }
         
-        return items.stream()
-            .map(item -> new SearchResult(item, calculateScore(queryTokens, query, item)))
-            .filter(result -> result.score() > 0)
-            .sorted()
-            .limit(maxResults)
-            .collect(Collectors.toList());
+        return new AnalyzedFields(
+            hasName ? normalize(item.name()) : null,
+            tokenize(item.name()).toArray(new String[0]),
+            tokenize(item.description()).toArray(new String[0]),
+            hasCategory ? normalize(item.category()) : null,
+            tokenize(item.category()).toArray(new String[0]),
+            keywords,
+            tokenize(item.content()).toArray(new String[0])
+        );
     }
     
     /**
-     * Calcula el score de relevancia para un item
+     * Configuración de la que dependen los índices construidos: modo de ranking, stemming y
+     * grupos de sinónimos. El snapshot del catálogo guarda su hash ({@link CatalogSnapshot})
+     * y reconstruye los índices si no coincide con la actual.
      */
-    private double calculateScore(Set<String> queryTokens, String originalQuery, SearchableItem item) {
-        double score = 0.0;
-        
-        // 1. Match en keywords (peso alto)
-        score += calculateKeywordScore(queryTokens, item.keywords());
-        
-        // 2. Match en nombre
-        score += calculateNameScore(queryTokens, originalQuery, item.name());
-        
-        // 3. Match en descripción
-        score += calculateDescriptionScore(queryTokens, item.description());
+    List<byte[]> indexSettings() {
+        return List.of(
+            rankingMode.name().getBytes(StandardCharsets.UTF_8),
+            new byte[] {(byte) (stemmingEnabled ? 1 : 0)},
+            synonyms.canonicalForm().getBytes(StandardCharsets.UTF_8)
+        );
+    }
+    
+    SynonymDictionary synonyms() {
+        return synonyms;
+    }
+    
+    /**
+     * Construye el índice invertido para un conjunto de items.
+     * El ordinal de cada item es su posición en la lista. Los items sin analizar se analizan aquí.
+     */
+    public SearchIndex buildIndex(List<SearchableItem> items) {
+        SearchIndex.Postings postings = new SearchIndex.Postings();
+        AnalyzedFields[] analyzed = new AnalyzedFields[items.size()];
+        List<List<String>> descriptionTokenLists = new ArrayList<>(items.size());
+        Map<String, Integer> vocabulary = new HashMap<>();
         
-        // 4. Match en categoría
-        score += calculateCategoryScore(queryTokens, item.category());
+        for (int ordinal = 0; ordinal < items.size(); ordinal++) {
+            SearchableItem item = items.get(ordinal);
+            AnalyzedFields fields = item.analyzed() != null ? item.analyzed() : analyzeFields(item);
+            analyzed[ordinal] = fields;
+            descriptionTokenLists.add(tokenList(item.description()));
+            postings.add(fields, ordinal);
+            addToVocabulary(vocabulary, fields, 1);
+        }
         
-        return score;
+        return new SearchIndex(items, analyzed, postings,
+            Bm25Statistics.build(analyzed, descriptionTokenLists),
+            SpellingCorrector.build(vocabulary),
+            synonyms);
     }
     
     /**
-     * Score por coincidencia en keywords
+     * Aplica un cambio puntual al índice: quita los items con id en {@code removedIds} y agrega
+     * {@code upserts} al final (un upsert con un id ya indexado reemplaza a ese item). Solo se
+     * actualizan los postings, estadísticas y vocabulario de los items tocados
+     * (ver {@link SearchIndex#withChanges}). Si los ordinales dados de baja superarían
+     * {@code poncho.search.index.max-fragmentation} del total, el índice se reconstruye
+     * completo sobre los items vivos, en el mismo orden.
      */
-    private double calculateKeywordScore(Set<String> queryTokens, List<String> keywords) {
-        if (keywords == null || keywords.isEmpty()) {
-            return 0.0;
+    public SearchIndex update(SearchIndex index, Collection<String> removedIds, List<SearchableItem> upserts) {
+        BitSet removed = new BitSet();
+        for (String id : removedIds) {
+            int ordinal = index.ordinalOf(id);
+            if (ordinal >= 0) {
+                removed.set(ordinal);
+            }
         }
-        
-        double score = 0.0;
-        Set<String> normalizedKeywords = keywords.stream()
-            .map(this::normalize)
-            .collect(Collectors.toSet());
-        
-        for (String queryToken : queryTokens) {
-            // Match exacto
-            if (normalizedKeywords.contains(queryToken)) {
-                score += WEIGHT_EXACT_KEYWORD;
-                continue;
+        for (SearchableItem item : upserts) {
+            int ordinal = index.ordinalOf(item.id());
+            if (ordinal >= 0) {
+                removed.set(ordinal);
             }
-            
-            // Match parcial (el keyword contiene el token o viceversa)
-            for (String keyword : normalizedKeywords) {
-                if (keyword.contains(queryToken) || queryToken.contains(keyword)) {
-                    score += WEIGHT_PARTIAL_KEYWORD;
-                    break;
+        }
+        if (removed.isEmpty() && upserts.isEmpty()) {
+            return index;
+        }
+        
+        double fragmentation = (double) (index.ordinalCount() - index.size() + removed.cardinality())
+            / (index.ordinalCount() + upserts.size());
+        if (fragmentation > maxFragmentation) {
+            List<SearchableItem> live = new ArrayList<>(index.size() - removed.cardinality() + upserts.size());
+            for (SearchableItem item : index.items()) {
+                if (!removed.get(index.ordinalOf(item.id()))) {
+                    live.add(item);
                 }
             }
+            live.addAll(upserts);
+            return buildIndex(live);
         }
         
-        return score;
+        AnalyzedFields[] addedFields = new AnalyzedFields[upserts.size()];
+        List<List<String>> addedDescriptionTokens = new ArrayList<>(upserts.size());
+        Map<String, Integer> vocabularyDelta = new HashMap<>();
+        for (int ordinal = removed.nextSetBit(0); ordinal >= 0; ordinal = removed.nextSetBit(ordinal + 1)) {
+            addToVocabulary(vocabularyDelta, index.analyzed(ordinal), -1);
+        }
+        for (int i = 0; i < upserts.size(); i++) {
+            SearchableItem item = upserts.get(i);
+            addedFields[i] = item.analyzed() != null ? item.analyzed() : analyzeFields(item);
+            addedDescriptionTokens.add(tokenList(item.description()));
+            addToVocabulary(vocabularyDelta, addedFields[i], 1);
+        }
+        return index.withChanges(removed, upserts, addedFields, addedDescriptionTokens, vocabularyDelta);
     }
     
     /**
-     * Score por coincidencia en nombre
+     * Suma {@code delta} al vocabulario del corrector por cada palabra del item (una vez por item)
      */
-    private double calculateNameScore(Set<String> queryTokens, String originalQuery, String name) {
-        if (name == null || name.isBlank()) {
-            return 0.0;
+    private void addToVocabulary(Map<String, Integer> vocabulary, AnalyzedFields fields, int delta) {
+        Set<String> words = new HashSet<>();
+        for (String keyword : fields.keywords()) {
+            words.addAll(tokenize(keyword));
         }
-        
-        String normalizedName = normalize(name);
-        String normalizedQuery = normalize(originalQuery);
-        
-        // Match exacto del nombre completo
-        if (normalizedName.equals(normalizedQuery)) {
-            return WEIGHT_NAME_MATCH * 2;
-        }
-        
-        // El nombre contiene la query completa
-        if (normalizedName.contains(normalizedQuery)) {
-            return WEIGHT_NAME_MATCH * 1.5;
+        words.addAll(Arrays.asList(fields.nameTokens()));
+        words.addAll(Arrays.asList(fields.descriptionTokens()));
+        words.addAll(Arrays.asList(fields.categoryTokens()));
+        words.addAll(Arrays.asList(fields.contentTokens()));
+        for (String word : words) {
+            vocabulary.merge(word, delta, Integer::sum);
         }
-        
-        // Match de tokens individuales
-        Set<String> nameTokens = tokenize(name);
-        long matches = queryTokens.stream()
-            .filter(qt -> nameTokens.stream().anyMatch(nt -> nt.contains(qt) || qt.contains(nt)))
-            .count();
-        
-        return matches > 0 ? WEIGHT_NAME_MATCH * ((double) matches / queryTokens.size()) : 0.0;
     }
     
     /**
-     * Score por coincidencia en descripción (TF-IDF simplificado)
+     * Busca items que coincidan con la query.
+     * Construye un índice temporal; para búsquedas repetidas usar {@link #search(String, SearchIndex, int)}.
      */
-    private double calculateDescriptionScore(Set<String> queryTokens, String description) {
-        if (description == null || description.isBlank()) {
-            return 0.0;
+    public List<SearchResult> search(String query, List<SearchableItem> items, int maxResults) {
+        if (query == null || query.isBlank()) {
+            return Collections.emptyList();
         }
-        
-        Set<String> descTokens = tokenize(description);
-        
-        long matches = queryTokens.stream()
-            .filter(qt -> descTokens.stream().anyMatch(dt -> dt.contains(qt) || qt.contains(dt)))
-            .count();
-        
-        return matches > 0 ? WEIGHT_DESCRIPTION_MATCH * ((double) matches / queryTokens.size()) : 0.0;
+        return search(query, buildIndex(items), maxResults);
     }
     
     /**
-     * Score por coincidencia en categoría
+     * Busca items que coincidan con la query usando un índice precomputado
      */
-    private double calculateCategoryScore(Set<String> queryTokens, String category) {
-        if (category == null || category.isBlank()) {
-            return 0.0;
+    public List<SearchResult> search(String query, SearchIndex index, int maxResults) {
+        return search(query, index, maxResults, item -> true);
+    }
+    
+    /**
+     * Busca items que coincidan con la query, restringido a los items que cumplen el filtro.
+     * Solo se calcula el score de los candidatos que devuelve el índice.
+     */
+    public List<SearchResult> search(String query, SearchIndex index, int maxResults, Predicate<SearchableItem> filter) {
+        return search(query, index, null, maxResults, filter);
+    }
+    
+    /**
+     * Busca items que coincidan con la query, restringido a los ordinales de {@code scope}
+     * (una partición de {@link SearchPartitions}). Los candidatos se filtran al acumular, así que
+     * el IDF, las correcciones y los sinónimos son los del índice completo.
+     */
+    List<SearchResult> search(String query, SearchIndex index, BitSet scope, int maxResults) {
+        return search(query, index, scope, maxResults, item -> true);
+    }
+    
+    private List<SearchResult> search(String query, SearchIndex index, BitSet scope, int maxResults,
+                                      Predicate<SearchableItem> filter) {
+        if (query == null || query.isBlank() || (scope != null && scope.isEmpty())) {
+            return Collections.emptyList();
         }
         
-        String normalizedCategory = normalize(category);
-        Set<String> categoryTokens = tokenize(category);
+        Set<String> queryTokens = tokenize(query);
+        String normalizedQuery = normalize(query);
         
-        for (String queryToken : queryTokens) {
-            if (normalizedCategory.contains(queryToken) || 
-                categoryTokens.stream().anyMatch(ct -> ct.contains(queryToken))) {
-                return WEIGHT_CATEGORY_MATCH;
-            }
+        // Los tokens sin ninguna coincidencia se reemplazan por su corrección antes de puntuar
+        Map<String, String> corrections = index.spellingCorrections(queryTokens);
+        if (!corrections.isEmpty()) {
+            queryTokens = applyCorrections(queryTokens, corrections);
+            normalizedQuery = applyCorrections(normalizedQuery, corrections);
         }
         
-        return 0.0;
+        String[] tokens = queryTokens.toArray(new String[0]);
+        String[] stems = stemmingEnabled ? stem(tokens) : null;
+        AnalyzedQuery analyzedQuery = new AnalyzedQuery(tokens, stems, index.synonymGroups(tokens, stems),
+            normalizedQuery, rankingMode == RankingMode.BM25);
+        ScoreAccumulator accumulator = index.acquireAccumulator();
+        try {
+            index.accumulate(analyzedQuery, scope, accumulator);
+            
+            // Top-K con heap acotado; los empates se resuelven por ordinal (orden de catálogo)
+            int candidateCount = accumulator.touchedCount();
+            int capacity = Math.min(maxResults, candidateCount);
+            TopKCollector topK;
+            if (parallelEnabled && candidateCount >= parallelThreshold) {
+                topK = ForkJoinPool.commonPool().invoke(new ScoringTask(
+                    analyzedQuery, index, accumulator, filter, 0, candidateCount, capacity));
+            } else {
+                topK = new TopKCollector(capacity);
+                int[] touched = accumulator.touched();
+                for (int i = 0; i < candidateCount; i++) {
+                    scoreInto(topK, analyzedQuery, index, accumulator, filter, touched[i]);
+                }
+            }
+            
+            // Recién aquí se crean objetos: solo para los K resultados finales
+            double[] scores = new double[topK.size()];
+            int[] ordinals = topK.drainSorted(scores);
+            List<SearchResult> results = new ArrayList<>(ordinals.length);
+            for (int i = 0; i < ordinals.length; i++) {
+                results.add(new SearchResult(index.item(ordinals[i]), scores[i]));
+            }
+            return results;
+        } finally {
+            index.releaseAccumulator(accumulator);
+        }
+    }
+    
+    private static String[] stem(String[] tokens) {
+        String[] stems = new String[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            stems[i] = SpanishStemmer.stem(tokens[i]);
+        }
+        return stems;
+    }
+    
+    private Set<String> applyCorrections(Set<String> queryTokens, Map<String, String> corrections) {
+        Set<String> corrected = new HashSet<>();
+        for (String token : queryTokens) {
+            corrected.add(corrections.getOrDefault(token, token));
+        }
+        return corrected;
     }
     
     /**
-     * Tokeniza un texto en palabras normalizadas
+     * Query normalizada con las palabras corregidas, separadas por un espacio. Recorre los
+     * caracteres una vez, como {@link TextNormalizer}, sin regex ni streams.
      */
-    private Set<String> tokenize(String text) {
-        if (text == null || text.isBlank()) {
-            return Collections.emptySet();
+    private static String applyCorrections(String normalizedQuery, Map<String, String> corrections) {
+        int length = normalizedQuery.length();
+        StringBuilder corrected = new StringBuilder(length + 16);
+        int i = 0;
+        while (i < length) {
+            while (i < length && normalizedQuery.charAt(i) <= ' ') {
+                i++;
+            }
+            int start = i;
+            while (i < length && normalizedQuery.charAt(i) > ' ') {
+                i++;
+            }
+            if (i > start) {
+                if (!corrected.isEmpty()) {
+                    corrected.append(' ');
+                }
+                String word = normalizedQuery.substring(start, i);
+                corrected.append(corrections.getOrDefault(word, word));
+            }
+        }
+        return corrected.toString();
+    }
+    
+    private void scoreInto(TopKCollector topK, AnalyzedQuery query, SearchIndex index, ScoreAccumulator accumulator,
+                           Predicate<SearchableItem> filter, int ordinal) {
+        if (!filter.test(index.item(ordinal))) {
+            return;
+        }
+        double score = rankingMode == RankingMode.BM25
+            ? calculateBm25Score(query, index, accumulator, ordinal)
+            : accumulatedScore(accumulator, ordinal, query.tokenCount(), query.normalized(), index.analyzed(ordinal));
+        if (score > 0) {
+            topK.offer(ordinal, score);
         }
-        
-        return Arrays.stream(normalize(text).split("\\s+"))
-            .filter(token -> token.length() > 1) // Ignorar tokens de 1 caracter
-            .filter(token -> !isStopWord(token))
-            .collect(Collectors.toSet());
     }
     
     /**
-     * Normaliza texto: minúsculas, sin acentos, sin caracteres especiales
+     * Score ponderado a partir de los acumuladores de la query; sin stemming ni sinónimos da el
+     * mismo resultado que el scorer original sobre el texto crudo (mismos términos, sumados en el
+     * mismo orden), como verifica el test contra LegacyKeywordScorer
      */
-    private String normalize(String text) {
-        if (text == null) {
-            return "";
-        }
+    private double accumulatedScore(ScoreAccumulator accumulator, int ordinal, int queryTokenCount,
+                                    String normalizedQuery, AnalyzedFields item) {
+        double score = 0.0;
+        
+        score += WEIGHT_EXACT_KEYWORD * accumulator.exactKeywordMatches(ordinal)
+            + WEIGHT_PARTIAL_KEYWORD * accumulator.partialKeywordMatches(ordinal);
+        score += WEIGHT_EXACT_KEYWORD * accumulator.synonymKeywordWeight(ordinal);
+        
+        score += accumulatedNameScore(accumulator, ordinal, queryTokenCount, normalizedQuery, item);
+        
+        int descriptionMatches = accumulator.descriptionMatches(ordinal);
+        score += descriptionMatches > 0 ? WEIGHT_DESCRIPTION_MATCH * ((double) descriptionMatches / queryTokenCount) : 0.0;
+        
+        score += accumulator.categoryMatch(ordinal) ? WEIGHT_CATEGORY_MATCH : 0.0;
         
-        // Convertir a minúsculas
-        String result = text.toLowerCase();
+        score += accumulatedContentScore(accumulator, ordinal, queryTokenCount);
         
-        // Remover acentos/diacríticos
-        result = Normalizer.normalize(result, Normalizer.Form.NFD);
-        result = DIACRITICS_PATTERN.matcher(result).replaceAll("");
+        return score;
+    }
+    
+    private double accumulatedContentScore(ScoreAccumulator accumulator, int ordinal, int queryTokenCount) {
+        int matches = accumulator.contentMatches(ordinal);
+        return matches > 0 ? WEIGHT_CONTENT_MATCH * ((double) matches / queryTokenCount) : 0.0;
+    }
+    
+    private double accumulatedNameScore(ScoreAccumulator accumulator, int ordinal, int queryTokenCount,
+                                        String normalizedQuery, AnalyzedFields item) {
+        if (accumulator.nameContainsQuery(ordinal)) {
+            return item.normalizedName().equals(normalizedQuery) ? WEIGHT_NAME_MATCH * 2 : WEIGHT_NAME_MATCH * 1.5;
+        }
+        int matches = accumulator.nameMatches(ordinal);
+        return matches > 0 ? WEIGHT_NAME_MATCH * ((double) matches / queryTokenCount) : 0.0;
+    }
+    
+    /**
+     * Puntúa un rango de candidatos dividiéndolo en shards; cada shard arma su propio
+     * top-K y los resultados se combinan al volver. El ranking es idéntico al secuencial
+     * porque el desempate por ordinal no depende del orden de llegada.
+     */
+    private final class ScoringTask extends RecursiveTask<TopKCollector> {
         
-        // Reemplazar guiones y underscores por espacios
-        result = result.replaceAll("[-_]", " ");
+        private final AnalyzedQuery query;
+        private final SearchIndex index;
+        private final ScoreAccumulator accumulator;
+        private final Predicate<SearchableItem> filter;
+        private final int from;
+        private final int to;
+        private final int capacity;
         
-        // Remover caracteres especiales excepto espacios
-        result = result.replaceAll("[^a-z0-9\\s]", "");
+        ScoringTask(AnalyzedQuery query, SearchIndex index, ScoreAccumulator accumulator,
+                    Predicate<SearchableItem> filter, int from, int to, int capacity) {
+            this.query = query;
+            this.index = index;
+            this.accumulator = accumulator;
+            this.filter = filter;
+            this.from = from;
+            this.to = to;
+            this.capacity = capacity;
+        }
         
-        return result.trim();
+        @Override
+        protected TopKCollector compute() {
+            if (to - from <= MIN_SHARD_SIZE) {
+                TopKCollector topK = new TopKCollector(capacity);
+                int[] touched = accumulator.touched();
+                for (int i = from; i < to; i++) {
+                    scoreInto(topK, query, index, accumulator, filter, touched[i]);
+                }
+                return topK;
+            }
+            
+            int middle = (from + to) >>> 1;
+            ScoringTask left = new ScoringTask(query, index, accumulator, filter, from, middle, capacity);
+            ScoringTask right = new ScoringTask(query, index, accumulator, filter, middle, to, capacity);
+            left.fork();
+            TopKCollector merged = right.compute();
+            merged.addAll(left.join());
+            return merged;
+        }
+    }
+    
+    /**
+     * Score BM25: nombre, categoría y contenido igual que el modo ponderado; keywords y descripción
+     * suman, por token de la query, el peso BM25 del mejor término que coincide en el campo (una
+     * coincidencia parcial o solo por stem vale {@link Bm25Statistics#PARTIAL_FACTOR} del peso).
+     * En keywords, un token sin coincidencia directa toma el peso de la keyword de su grupo de
+     * sinónimos, multiplicado por el peso del grupo. Todo sale del acumulador: los pesos se
+     * calculan desde los postings en {@link SearchIndex#accumulate}.
+     */
+    private double calculateBm25Score(AnalyzedQuery query, SearchIndex index, ScoreAccumulator accumulator, int ordinal) {
+        double score = 0.0;
+        score += BM25_KEYWORD_BOOST * accumulator.keywordWeight(ordinal);
+        score += accumulatedNameScore(accumulator, ordinal, query.tokenCount(), query.normalized(),
+            index.analyzed(ordinal));
+        score += BM25_DESCRIPTION_BOOST * accumulator.descriptionWeight(ordinal);
+        score += accumulator.categoryMatch(ordinal) ? WEIGHT_CATEGORY_MATCH : 0.0;
+        score += accumulatedContentScore(accumulator, ordinal, query.tokenCount());
+        return score;
     }
     
     /**
-     * Verifica si es una stop word (palabras muy comunes sin valor semántico)
+     * Tokeniza un texto en palabras normalizadas
      */
-    private static final Set<String> STOP_WORDS = Set.of(
-        "de", "la", "el", "en", "y", "los", "las", "del", "un", "una",
-        "con", "para", "por", "es", "al", "se", "que", "su", "o", "como",
-        "the", "an", "and", "or", "of", "to", "in", "for", "on", "with"
-    );
+    Set<String> tokenize(String text) {
+        return TextNormalizer.tokenize(text);
+    }
     
-    private boolean isStopWord(String word) {
-        return STOP_WORDS.contains(word);
+    /**
+     * Tokeniza conservando el orden y las repeticiones (para frecuencias de términos)
+     */
+    List<String> tokenList(String text) {
+        return TextNormalizer.tokenList(text);
+    }
+    
+    /**
+     * Normaliza texto: minúsculas, sin acentos, sin caracteres especiales
+     */
+    String normalize(String text) {
+        return TextNormalizer.normalize(text);
     }
 }
@@ -0,0 +1,280 @@
+package com.argendata.mcp.poncho.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Acumuladores primitivos por ordinal para el scoring término a término.
+ * Se reutilizan entre queries (ver {@link SearchIndex#acquireAccumulator()}): en lugar de
+ * limpiar los arrays, cada query y cada token usan un sello nuevo y un ordinal solo se
+ * reinicia la primera vez que se toca en la query. Con un alcance ({@link #reset(BitSet)})
+ * los ordinales fuera de él se ignoran, así una partición filtra candidatos del índice completo.
+ */
+final class ScoreAccumulator {
+
+    private final int[] touchedStamp;
+    private final int[] touched;
+    private int touchedCount;
+
+    private final int[] exactKeywordMatches;
+    private final int[] partialKeywordMatches;
+    private final double[] synonymKeywordWeights;
+    private final int[] nameMatches;
+    private final int[] descriptionMatches;
+    private final int[] contentMatches;
+    private final boolean[] categoryMatch;
+    private final boolean[] nameContainsQuery;
+
+    // Pesos BM25 de keywords y descripción: suma de los tokens anteriores y mejor del token actual
+    private final double[] keywordWeights;
+    private final double[] keywordBestWeights;
+    private final double[] descriptionWeights;
+    private final double[] descriptionBestWeights;
+
+    // Último token que sumó en cada campo, para contar cada token una sola vez por item
+    private final int[] keywordStamp;
+    private final int[] nameStamp;
+    private final int[] descriptionStamp;
+    private final int[] contentStamp;
+    private final int[] keywordWeightStamp;
+    private final int[] descriptionWeightStamp;
+
+    /** Buffer para decodificar postings */
+    final int[] postingsBuffer;
+
+    private int stamp;
+    private int generation;
+    private BitSet scope;
+
+    ScoreAccumulator(int size) {
+        touchedStamp = new int[size];
+        touched = new int[size];
+        exactKeywordMatches = new int[size];
+        partialKeywordMatches = new int[size];
+        synonymKeywordWeights = new double[size];
+        nameMatches = new int[size];
+        descriptionMatches = new int[size];
+        contentMatches = new int[size];
+        categoryMatch = new boolean[size];
+        nameContainsQuery = new boolean[size];
+        keywordWeights = new double[size];
+        keywordBestWeights = new double[size];
+        descriptionWeights = new double[size];
+        descriptionBestWeights = new double[size];
+        keywordStamp = new int[size];
+        nameStamp = new int[size];
+        descriptionStamp = new int[size];
+        contentStamp = new int[size];
+        keywordWeightStamp = new int[size];
+        descriptionWeightStamp = new int[size];
+        postingsBuffer = new int[size];
+    }
+
+    /**
+     * Empieza una query nueva sobre los ordinales de {@code scope}; {@code null} es todo el índice
+     */
+    void reset(BitSet scope) {
+        if (stamp > Integer.MAX_VALUE - 1_000_000) {
+            Arrays.fill(touchedStamp, 0);
+            Arrays.fill(keywordStamp, 0);
+            Arrays.fill(nameStamp, 0);
+            Arrays.fill(descriptionStamp, 0);
+            Arrays.fill(contentStamp, 0);
+            Arrays.fill(keywordWeightStamp, 0);
+            Arrays.fill(descriptionWeightStamp, 0);
+            stamp = 0;
+        }
+        generation = ++stamp;
+        touchedCount = 0;
+        this.scope = scope;
+    }
+
+    /**
+     * Sello para un token de la query; distinto de todos los anteriores
+     */
+    int nextTokenStamp() {
+        return ++stamp;
+    }
+
+    /**
+     * Registra el ordinal en la query; {@code false} si está fuera del alcance
+     */
+    private boolean touch(int ordinal) {
+        if (touchedStamp[ordinal] != generation) {
+            if (scope != null && !scope.get(ordinal)) {
+                return false;
+            }
+            touchedStamp[ordinal] = generation;
+            touched[touchedCount++] = ordinal;
+            exactKeywordMatches[ordinal] = 0;
+            partialKeywordMatches[ordinal] = 0;
+            synonymKeywordWeights[ordinal] = 0.0;
+            nameMatches[ordinal] = 0;
+            descriptionMatches[ordinal] = 0;
+            contentMatches[ordinal] = 0;
+            categoryMatch[ordinal] = false;
+            nameContainsQuery[ordinal] = false;
+            keywordWeights[ordinal] = 0.0;
+            keywordBestWeights[ordinal] = 0.0;
+            descriptionWeights[ordinal] = 0.0;
+            descriptionBestWeights[ordinal] = 0.0;
+        }
+        return true;
+    }
+
+    void addExactKeyword(int ordinal, int tokenStamp) {
+        if (touch(ordinal) && keywordStamp[ordinal] != tokenStamp) {
+            keywordStamp[ordinal] = tokenStamp;
+            exactKeywordMatches[ordinal]++;
+        }
+    }
+
+    void addPartialKeyword(int ordinal, int tokenStamp) {
+        if (touch(ordinal) && keywordStamp[ordinal] != tokenStamp) {
+            keywordStamp[ordinal] = tokenStamp;
+            partialKeywordMatches[ordinal]++;
+        }
+    }
+
+    /**
+     * Coincidencia por sinónimo; solo cuenta si el token no coincidió ya con las keywords del item
+     */
+    void addSynonymKeyword(int ordinal, int tokenStamp, double weight) {
+        if (touch(ordinal) && keywordStamp[ordinal] != tokenStamp) {
+            keywordStamp[ordinal] = tokenStamp;
+            synonymKeywordWeights[ordinal] += weight;
+        }
+    }
+
+    void addNameMatch(int ordinal, int tokenStamp) {
+        if (touch(ordinal) && nameStamp[ordinal] != tokenStamp) {
+            nameStamp[ordinal] = tokenStamp;
+            nameMatches[ordinal]++;
+        }
+    }
+
+    void addDescriptionMatch(int ordinal, int tokenStamp) {
+        if (touch(ordinal) && descriptionStamp[ordinal] != tokenStamp) {
+            descriptionStamp[ordinal] = tokenStamp;
+            descriptionMatches[ordinal]++;
+        }
+    }
+
+    void addContentMatch(int ordinal, int tokenStamp) {
+        if (touch(ordinal) && contentStamp[ordinal] != tokenStamp) {
+            contentStamp[ordinal] = tokenStamp;
+            contentMatches[ordinal]++;
+        }
+    }
+
+    void markCategoryMatch(int ordinal) {
+        if (touch(ordinal)) {
+            categoryMatch[ordinal] = true;
+        }
+    }
+
+    void markNameContainsQuery(int ordinal) {
+        if (touch(ordinal)) {
+            nameContainsQuery[ordinal] = true;
+        }
+    }
+
+    /**
+     * Peso BM25 de un término de keywords que coincide con el token; por token cuenta el mayor
+     */
+    void offerKeywordWeight(int ordinal, int tokenStamp, double weight) {
+        if (!touch(ordinal)) {
+            return;
+        }
+        if (keywordWeightStamp[ordinal] != tokenStamp) {
+            keywordWeightStamp[ordinal] = tokenStamp;
+            keywordWeights[ordinal] += keywordBestWeights[ordinal];
+            keywordBestWeights[ordinal] = weight;
+        } else if (weight > keywordBestWeights[ordinal]) {
+            keywordBestWeights[ordinal] = weight;
+        }
+    }
+
+    /**
+     * Si algún término de keywords del item ya coincidió con el token
+     */
+    boolean hasKeywordWeight(int ordinal, int tokenStamp) {
+        return touchedStamp[ordinal] == generation && keywordWeightStamp[ordinal] == tokenStamp;
+    }
+
+    /**
+     * Peso BM25 de un término de la descripción que coincide con el token; por token cuenta el mayor
+     */
+    void offerDescriptionWeight(int ordinal, int tokenStamp, double weight) {
+        if (!touch(ordinal)) {
+            return;
+        }
+        if (descriptionWeightStamp[ordinal] != tokenStamp) {
+            descriptionWeightStamp[ordinal] = tokenStamp;
+            descriptionWeights[ordinal] += descriptionBestWeights[ordinal];
+            descriptionBestWeights[ordinal] = weight;
+        } else if (weight > descriptionBestWeights[ordinal]) {
+            descriptionBestWeights[ordinal] = weight;
+        }
+    }
+
+    /**
+     * Ordinales tocados por la query, en orden de aparición (no ordenados)
+     */
+    int[] touched() {
+        return touched;
+    }
+
+    int touchedCount() {
+        return touchedCount;
+    }
+
+    int exactKeywordMatches(int ordinal) {
+        return exactKeywordMatches[ordinal];
+    }
+
+    int partialKeywordMatches(int ordinal) {
+        return partialKeywordMatches[ordinal];
+    }
+
+    /**
+     * Suma de los pesos de grupo de los tokens que coincidieron solo por sinónimo
+     */
+    double synonymKeywordWeight(int ordinal) {
+        return synonymKeywordWeights[ordinal];
+    }
+
+    int nameMatches(int ordinal) {
+        return nameMatches[ordinal];
+    }
+
+    int descriptionMatches(int ordinal) {
+        return descriptionMatches[ordinal];
+    }
+
+    int contentMatches(int ordinal) {
+        return contentMatches[ordinal];
+    }
+
+    boolean categoryMatch(int ordinal) {
+        return categoryMatch[ordinal];
+    }
+
+    boolean nameContainsQuery(int ordinal) {
+        return nameContainsQuery[ordinal];
+    }
+
+    /**
+     * Suma, por token, del mayor peso BM25 entre las keywords del item
+     */
+    double keywordWeight(int ordinal) {
+        return keywordWeights[ordinal] + keywordBestWeights[ordinal];
+    }
+
+    /**
+     * Suma, por token, del mayor peso BM25 entre los términos de la descripción del item
+     */
+    double descriptionWeight(int ordinal) {
+        return descriptionWeights[ordinal] + descriptionBestWeights[ordinal];
+    }
+}
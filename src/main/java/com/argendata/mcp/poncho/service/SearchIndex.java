@@ -0,0 +1,1158 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.service.KeywordSearchService.AnalyzedFields;
+import com.argendata.mcp.poncho.service.KeywordSearchService.SearchableItem;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Índice invertido inmutable sobre un conjunto de {@link SearchableItem}.
+ * Mapea cada término normalizado a los ordinales de los items que lo contienen,
+ * separado por campo (keywords, nombre, descripción, categoría y contenido libre).
+ * Se construye una sola vez con {@link KeywordSearchService#buildIndex(List)} y
+ * permite que cada query evalúe solo los items candidatos en lugar del catálogo completo.
+ * Cada campo tiene además un diccionario de stems ({@link SpanishStemmer}) precomputado,
+ * para que las variantes de plural y género ("tablas", "interactiva") coincidan por término exacto,
+ * y postings por grupo de sinónimos ({@link SynonymDictionary}) expandidos desde las keywords.
+ * Un cambio puntual no lo modifica: {@link #withChanges} devuelve un índice nuevo que
+ * comparte con este todo lo que no tocó.
+ */
+public final class SearchIndex {
+
+    static final SearchIndex EMPTY = new SearchIndex(List.of(), new AnalyzedFields[0], new Postings(),
+        Bm25Statistics.EMPTY, SpellingCorrector.EMPTY, SynonymDictionary.EMPTY);
+
+    // Listas de postings por campo, incluidas las de stems (ver fields())
+    private static final int FIELD_COUNT = 11;
+
+    private final List<SearchableItem> items;
+    private final AnalyzedFields[] analyzed;
+    private final FieldPostings keywords;
+    private final FieldPostings names;
+    private final FieldPostings descriptions;
+    private final FieldPostings categories;
+    private final FieldPostings contents;
+    private final FieldPostings fullNames;
+    private final FieldPostings keywordStems;
+    private final FieldPostings nameStems;
+    private final FieldPostings descriptionStems;
+    private final FieldPostings categoryStems;
+    private final FieldPostings contentStems;
+    private final Bm25Statistics bm25;
+    private final SpellingCorrector spelling;
+    private final SynonymDictionary synonyms;
+    // Ordinales (ordenados) de los items con alguna keyword de cada grupo de sinónimos
+    private final int[][] synonymPostings;
+    // Ordinales dados de baja por withChanges; ninguna lista de postings los contiene
+    private final BitSet deleted;
+    private final Map<String, Integer> ordinalsById;
+
+    // Acumuladores reutilizables; se conservan a lo sumo MAX_POOLED_ACCUMULATORS
+    private static final int MAX_POOLED_ACCUMULATORS = 2 * Runtime.getRuntime().availableProcessors();
+    private final ConcurrentLinkedQueue<ScoreAccumulator> accumulators = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledAccumulators = new AtomicInteger();
+
+    SearchIndex(
+        List<SearchableItem> items,
+        AnalyzedFields[] analyzed,
+        Postings postings,
+        Bm25Statistics bm25,
+        SpellingCorrector spelling,
+        SynonymDictionary synonyms
+    ) {
+        this.items = List.copyOf(items);
+        this.analyzed = analyzed;
+        this.keywords = postings.keywords.build();
+        this.names = postings.names.build();
+        this.descriptions = postings.descriptions.build();
+        this.categories = postings.categories.build();
+        this.contents = postings.contents.build();
+        // Nombre normalizado completo, para la coincidencia de la query entera como substring
+        this.fullNames = postings.fullNames.build();
+        this.bm25 = bm25;
+        this.spelling = spelling;
+        this.synonyms = synonyms;
+
+        this.keywordStems = keywords.stemmed();
+        this.nameStems = names.stemmed();
+        this.descriptionStems = descriptions.stemmed();
+        this.categoryStems = categories.stemmed();
+        this.contentStems = contents.stemmed();
+        this.synonymPostings = keywords.expandSynonyms(synonyms);
+
+        this.deleted = new BitSet();
+        this.ordinalsById = ordinalsById(items);
+    }
+
+    /**
+     * Índice leído de un snapshot (ver {@link #read}), con los campos en el orden de {@link #fields()}
+     */
+    private SearchIndex(
+        List<SearchableItem> items,
+        AnalyzedFields[] analyzed,
+        FieldPostings[] fields,
+        Bm25Statistics bm25,
+        SpellingCorrector spelling,
+        SynonymDictionary synonyms,
+        int[][] synonymPostings
+    ) {
+        this.items = List.copyOf(items);
+        this.analyzed = analyzed;
+        this.keywords = fields[0];
+        this.names = fields[1];
+        this.descriptions = fields[2];
+        this.categories = fields[3];
+        this.contents = fields[4];
+        this.fullNames = fields[5];
+        this.keywordStems = fields[6];
+        this.nameStems = fields[7];
+        this.descriptionStems = fields[8];
+        this.categoryStems = fields[9];
+        this.contentStems = fields[10];
+        this.bm25 = bm25;
+        this.spelling = spelling;
+        this.synonyms = synonyms;
+        this.synonymPostings = synonymPostings;
+        this.deleted = new BitSet();
+        this.ordinalsById = ordinalsById(items);
+    }
+
+    private static Map<String, Integer> ordinalsById(List<SearchableItem> items) {
+        Map<String, Integer> ordinalsById = new HashMap<>(items.size() * 4 / 3 + 1);
+        for (int ordinal = 0; ordinal < items.size(); ordinal++) {
+            ordinalsById.put(items.get(ordinal).id(), ordinal);
+        }
+        return ordinalsById;
+    }
+
+    /**
+     * Índice derivado de {@code previous} por {@link #withChanges}
+     */
+    private SearchIndex(
+        SearchIndex previous,
+        List<SearchableItem> items,
+        AnalyzedFields[] analyzed,
+        Postings removed,
+        Postings added,
+        Bm25Statistics bm25,
+        SpellingCorrector spelling,
+        BitSet deleted,
+        Map<String, Integer> ordinalsById
+    ) {
+        this.items = items;
+        this.analyzed = analyzed;
+        this.keywords = previous.keywords.apply(removed.keywords, added.keywords);
+        this.names = previous.names.apply(removed.names, added.names);
+        this.descriptions = previous.descriptions.apply(removed.descriptions, added.descriptions);
+        this.categories = previous.categories.apply(removed.categories, added.categories);
+        this.contents = previous.contents.apply(removed.contents, added.contents);
+        this.fullNames = previous.fullNames.apply(removed.fullNames, added.fullNames);
+        this.bm25 = bm25;
+        this.spelling = spelling;
+        this.synonyms = previous.synonyms;
+
+        this.keywordStems = previous.keywordStems.apply(removed.keywords.stemmed(), added.keywords.stemmed());
+        this.nameStems = previous.nameStems.apply(removed.names.stemmed(), added.names.stemmed());
+        this.descriptionStems = previous.descriptionStems.apply(removed.descriptions.stemmed(),
+            added.descriptions.stemmed());
+        this.categoryStems = previous.categoryStems.apply(removed.categories.stemmed(), added.categories.stemmed());
+        this.contentStems = previous.contentStems.apply(removed.contents.stemmed(), added.contents.stemmed());
+        this.synonymPostings = FieldPostings.applySynonyms(previous.synonymPostings, synonyms,
+            removed.keywords, added.keywords);
+
+        this.deleted = deleted;
+        this.ordinalsById = ordinalsById;
+    }
+
+    /**
+     * Índice con los ordinales {@code removed} dados de baja y {@code added} agregados al final,
+     * sin reconstruir lo que no cambió: cada campo actualiza solo las listas de los términos de
+     * esos items (ver {@link FieldPostings#apply}). Los ordinales dados de baja quedan como
+     * huecos que ninguna query alcanza; {@link #fragmentation()} indica cuándo conviene
+     * reconstruir. Se construye con {@link KeywordSearchService#update}.
+     *
+     * @param addedFields            campos analizados de {@code added}, en el mismo orden
+     * @param addedDescriptionTokens tokens de la descripción de cada item agregado, con repeticiones
+     * @param vocabularyDelta        cambio en la cantidad de items de cada palabra del corrector
+     */
+    SearchIndex withChanges(BitSet removed, List<SearchableItem> added, AnalyzedFields[] addedFields,
+                            List<List<String>> addedDescriptionTokens, Map<String, Integer> vocabularyDelta) {
+        int firstAdded = items.size();
+        Postings removedPostings = new Postings();
+        Map<String, Integer> nextOrdinals = new HashMap<>(ordinalsById);
+        for (int ordinal = removed.nextSetBit(0); ordinal >= 0; ordinal = removed.nextSetBit(ordinal + 1)) {
+            removedPostings.add(analyzed[ordinal], ordinal);
+            nextOrdinals.remove(items.get(ordinal).id(), ordinal);
+        }
+
+        Postings addedPostings = new Postings();
+        List<SearchableItem> nextItems = new ArrayList<>(firstAdded + added.size());
+        nextItems.addAll(items);
+        AnalyzedFields[] nextAnalyzed = Arrays.copyOf(analyzed, firstAdded + added.size());
+        for (int i = 0; i < added.size(); i++) {
+            int ordinal = firstAdded + i;
+            nextItems.add(added.get(i));
+            nextAnalyzed[ordinal] = addedFields[i];
+            addedPostings.add(addedFields[i], ordinal);
+            nextOrdinals.put(added.get(i).id(), ordinal);
+        }
+
+        BitSet nextDeleted = (BitSet) deleted.clone();
+        nextDeleted.or(removed);
+        return new SearchIndex(this, Collections.unmodifiableList(nextItems), nextAnalyzed,
+            removedPostings, addedPostings,
+            bm25.withChanges(removed, nextAnalyzed, firstAdded, addedDescriptionTokens),
+            spelling.withChanges(vocabularyDelta),
+            nextDeleted, nextOrdinals);
+    }
+
+    /**
+     * Escribe las estructuras del índice para el snapshot del catálogo (ver {@link CatalogSnapshot}).
+     * Los items no: el snapshot los guarda aparte y los pasa a {@link #read}. Solo admite un
+     * índice sin bajas, donde el ordinal de cada item es su posición.
+     */
+    void write(DataOutputStream out) throws IOException {
+        if (!deleted.isEmpty()) {
+            throw new IllegalStateException("Solo se guarda un índice sin ordinales dados de baja");
+        }
+        for (FieldPostings field : fields()) {
+            field.write(out);
+        }
+        bm25.write(out);
+        spelling.write(out);
+        out.writeInt(synonymPostings.length);
+        for (int[] ordinals : synonymPostings) {
+            CatalogSnapshot.writeInts(out, ordinals);
+        }
+    }
+
+    /**
+     * Índice guardado con {@link #write} sobre {@code items}, en el mismo orden. Los grupos de
+     * sinónimos tienen que ser los de {@code synonyms}, el diccionario con el que se construyó.
+     */
+    static SearchIndex read(ByteBuffer in, List<SearchableItem> items, SynonymDictionary synonyms) {
+        FieldPostings[] fields = new FieldPostings[FIELD_COUNT];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = FieldPostings.read(in);
+        }
+        Bm25Statistics bm25 = Bm25Statistics.read(in);
+        SpellingCorrector spelling = SpellingCorrector.read(in);
+        int groupCount = CatalogSnapshot.readCount(in, Integer.BYTES);
+        if (groupCount != synonyms.groupCount()) {
+            throw new IllegalStateException("el índice guardado tiene " + groupCount + " grupos de sinónimos");
+        }
+        int[][] synonymPostings = new int[groupCount][];
+        for (int group = 0; group < groupCount; group++) {
+            synonymPostings[group] = CatalogSnapshot.readInts(in);
+        }
+        AnalyzedFields[] analyzed = new AnalyzedFields[items.size()];
+        for (int ordinal = 0; ordinal < analyzed.length; ordinal++) {
+            analyzed[ordinal] = items.get(ordinal).analyzed();
+        }
+        return new SearchIndex(items, analyzed, fields, bm25, spelling, synonyms, synonymPostings);
+    }
+
+    private FieldPostings[] fields() {
+        return new FieldPostings[] {keywords, names, descriptions, categories, contents, fullNames,
+            keywordStems, nameStems, descriptionStems, categoryStems, contentStems};
+    }
+
+    /**
+     * Cantidad de items indexados
+     */
+    public int size() {
+        return items.size() - deleted.cardinality();
+    }
+
+    /**
+     * Items indexados, en orden de ordinal
+     */
+    public List<SearchableItem> items() {
+        if (deleted.isEmpty()) {
+            return items;
+        }
+        List<SearchableItem> live = new ArrayList<>(size());
+        for (int ordinal = deleted.nextClearBit(0); ordinal < items.size(); ordinal = deleted.nextClearBit(ordinal + 1)) {
+            live.add(items.get(ordinal));
+        }
+        return live;
+    }
+
+    /**
+     * Cantidad de ordinales asignados, incluidos los dados de baja
+     */
+    int ordinalCount() {
+        return items.size();
+    }
+
+    /**
+     * Proporción de ordinales dados de baja sobre el total
+     */
+    public double fragmentation() {
+        return items.isEmpty() ? 0.0 : (double) deleted.cardinality() / items.size();
+    }
+
+    /**
+     * Ordinal del item con ese id, o -1
+     */
+    int ordinalOf(String id) {
+        Integer ordinal = ordinalsById.get(id);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * Cantidad total de términos distintos en todos los campos
+     */
+    public int termCount() {
+        return keywords.termCount() + names.termCount() + descriptions.termCount() + categories.termCount()
+            + contents.termCount();
+    }
+
+    SearchableItem item(int ordinal) {
+        return items.get(ordinal);
+    }
+
+    AnalyzedFields analyzed(int ordinal) {
+        return analyzed[ordinal];
+    }
+
+    Bm25Statistics bm25() {
+        return bm25;
+    }
+
+    SynonymDictionary synonyms() {
+        return synonyms;
+    }
+
+    /**
+     * Grupos de sinónimos de cada token (por stem si se pasan {@code stems}),
+     * o {@code null} si ningún token pertenece a un grupo
+     */
+    int[][] synonymGroups(String[] tokens, String[] stems) {
+        int[][] groups = null;
+        for (int q = 0; q < tokens.length; q++) {
+            int[] tokenGroups = stems != null ? synonyms.groupsOfStem(stems[q]) : synonyms.groupsOf(tokens[q]);
+            if (tokenGroups.length > 0) {
+                if (groups == null) {
+                    groups = new int[tokens.length][];
+                    Arrays.fill(groups, new int[0]);
+                }
+                groups[q] = tokenGroups;
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Correcciones para los tokens de la query que no son un término del índice ni parte
+     * de uno. Los tokens conocidos o que son prefijo/substring de un término (p. ej. "map")
+     * no se tocan; sí se corrigen los que solo contienen un término corto ("formulraio"
+     * contiene "form"). Tampoco se corrigen los que, por sí o por su stem, pertenecen a un
+     * grupo de sinónimos: aunque no estén en el catálogo, se expanden a los términos del grupo.
+     */
+    Map<String, String> spellingCorrections(Set<String> queryTokens) {
+        Map<String, String> corrections = new HashMap<>();
+        for (String token : queryTokens) {
+            if (spelling.isKnown(token) || isPartOfTerm(token) || isSynonym(token)) {
+                continue;
+            }
+            spelling.correct(token).ifPresent(correction -> corrections.put(token, correction));
+        }
+        return corrections;
+    }
+
+    private boolean isSynonym(String token) {
+        return synonyms.groupsOf(token).length > 0 || synonyms.groupsOfStem(SpanishStemmer.stem(token)).length > 0;
+    }
+
+    private boolean isPartOfTerm(String token) {
+        return keywords.anyContains(token) || names.anyContains(token)
+            || descriptions.anyContains(token) || categories.anyContains(token) || contents.anyContains(token);
+    }
+
+    /**
+     * Acumula, término a término, las coincidencias de la query en cada campo.
+     * Quedan tocados exactamente los items que pueden tener score positivo: coincidencia
+     * exacta o parcial de algún token en keywords, nombre o descripción, categoría o
+     * contenido que contiene un token, o nombre que contiene la query normalizada completa.
+     * Si la query trae stems, el stem de cada token también coincide con los términos de
+     * igual stem: en keywords cuenta como exacta. Los sinónimos solo suman en los items
+     * cuyas keywords no coincidieron con el token. Si la query es BM25 se acumulan también los
+     * pesos de keywords y descripción (ver {@link #offerWeights}). Con {@code scope} solo se
+     * tocan sus ordinales: una partición (ver {@link SearchPartitions}) recorre las mismas listas
+     * que el índice completo.
+     *
+     * @param scope ordinales que pueden ser candidatos, o {@code null} para todos
+     */
+    void accumulate(AnalyzedQuery query, BitSet scope, ScoreAccumulator accumulator) {
+        accumulator.reset(scope);
+        int[] buffer = accumulator.postingsBuffer;
+        BitSet terms = new BitSet();
+        String[] queryTokens = query.tokens();
+
+        for (int q = 0; q < queryTokens.length; q++) {
+            String token = queryTokens[q];
+            String stem = query.stems() != null ? query.stems()[q] : null;
+            int tokenStamp = accumulator.nextTokenStamp();
+
+            // Keywords: la coincidencia exacta tiene prioridad sobre la parcial
+            int exact = keywords.termId(token);
+            if (exact >= 0) {
+                int count = keywords.load(exact, buffer);
+                for (int i = 0; i < count; i++) {
+                    accumulator.addExactKeyword(buffer[i], tokenStamp);
+                }
+            }
+            if (stem != null) {
+                int stemmed = keywordStems.termId(stem);
+                if (stemmed >= 0) {
+                    int count = keywordStems.load(stemmed, buffer);
+                    for (int i = 0; i < count; i++) {
+                        accumulator.addExactKeyword(buffer[i], tokenStamp);
+                    }
+                }
+            }
+            terms.clear();
+            keywords.collectMatchingTerms(token, terms);
+            for (int t = terms.nextSetBit(0); t >= 0; t = terms.nextSetBit(t + 1)) {
+                int count = keywords.load(t, buffer);
+                for (int i = 0; i < count; i++) {
+                    accumulator.addPartialKeyword(buffer[i], tokenStamp);
+                }
+            }
+            if (query.bm25()) {
+                offerWeights(keywords, keywordStems, bm25.keywords(), token, stem, terms, true, tokenStamp,
+                    accumulator);
+            }
+            if (query.synonymGroups() != null) {
+                int[] tokenGroups = query.synonymGroups()[q];
+                for (int group : tokenGroups) {
+                    double weight = synonyms.weight(group);
+                    for (int ordinal : synonymPostings[group]) {
+                        // En BM25 el sinónimo toma el peso de la keyword del grupo, si el token no coincidió directo
+                        if (query.bm25() && !accumulator.hasKeywordWeight(ordinal, tokenStamp)) {
+                            accumulator.offerKeywordWeight(ordinal, tokenStamp,
+                                bm25.keywords().synonymWeight(ordinal, tokenGroups, synonyms));
+                        }
+                        accumulator.addSynonymKeyword(ordinal, tokenStamp, weight);
+                    }
+                }
+            }
+
+            terms.clear();
+            names.collectMatchingTerms(token, terms);
+            for (int t = terms.nextSetBit(0); t >= 0; t = terms.nextSetBit(t + 1)) {
+                int count = names.load(t, buffer);
+                for (int i = 0; i < count; i++) {
+                    accumulator.addNameMatch(buffer[i], tokenStamp);
+                }
+            }
+            if (stem != null) {
+                int stemmed = nameStems.termId(stem);
+                if (stemmed >= 0) {
+                    int count = nameStems.load(stemmed, buffer);
+                    for (int i = 0; i < count; i++) {
+                        accumulator.addNameMatch(buffer[i], tokenStamp);
+                    }
+                }
+            }
+
+            terms.clear();
+            descriptions.collectMatchingTerms(token, terms);
+            for (int t = terms.nextSetBit(0); t >= 0; t = terms.nextSetBit(t + 1)) {
+                int count = descriptions.load(t, buffer);
+                for (int i = 0; i < count; i++) {
+                    accumulator.addDescriptionMatch(buffer[i], tokenStamp);
+                }
+            }
+            if (stem != null) {
+                int stemmed = descriptionStems.termId(stem);
+                if (stemmed >= 0) {
+                    int count = descriptionStems.load(stemmed, buffer);
+                    for (int i = 0; i < count; i++) {
+                        accumulator.addDescriptionMatch(buffer[i], tokenStamp);
+                    }
+                }
+            }
+            if (query.bm25()) {
+                offerWeights(descriptions, descriptionStems, bm25.description(), token, stem, terms, false, tokenStamp,
+                    accumulator);
+            }
+
+            // El contenido es texto libre con vocabulario amplio: solo términos que contienen al token,
+            // para que palabras cortas del HTML no coincidan con cualquier query que las incluya
+            terms.clear();
+            contents.collectContainingTerms(token, terms);
+            for (int t = terms.nextSetBit(0); t >= 0; t = terms.nextSetBit(t + 1)) {
+                int count = contents.load(t, buffer);
+                for (int i = 0; i < count; i++) {
+                    accumulator.addContentMatch(buffer[i], tokenStamp);
+                }
+            }
+            if (stem != null) {
+                int stemmed = contentStems.termId(stem);
+                if (stemmed >= 0) {
+                    int count = contentStems.load(stemmed, buffer);
+                    for (int i = 0; i < count; i++) {
+                        accumulator.addContentMatch(buffer[i], tokenStamp);
+                    }
+                }
+            }
+
+            // La categoría solo puntúa si contiene al token
+            terms.clear();
+            categories.collectContainingTerms(token, terms);
+            for (int t = terms.nextSetBit(0); t >= 0; t = terms.nextSetBit(t + 1)) {
+                int count = categories.load(t, buffer);
+                for (int i = 0; i < count; i++) {
+                    accumulator.markCategoryMatch(buffer[i]);
+                }
+            }
+            if (stem != null) {
+                int stemmed = categoryStems.termId(stem);
+                if (stemmed >= 0) {
+                    int count = categoryStems.load(stemmed, buffer);
+                    for (int i = 0; i < count; i++) {
+                        accumulator.markCategoryMatch(buffer[i]);
+                    }
+                }
+            }
+        }
+
+        terms.clear();
+        fullNames.collectContainingTerms(query.normalized(), terms);
+        for (int t = terms.nextSetBit(0); t >= 0; t = terms.nextSetBit(t + 1)) {
+            int count = fullNames.load(t, buffer);
+            for (int i = 0; i < count; i++) {
+                accumulator.markNameContainsQuery(buffer[i]);
+            }
+        }
+    }
+
+    /**
+     * Ofrece al acumulador el peso BM25 de los términos del campo que coinciden con el token,
+     * desde sus postings: completo para el término igual al token y
+     * {@link Bm25Statistics#PARTIAL_FACTOR} para los que lo contienen o están contenidos en él
+     * ({@code matching}) y para los de igual stem. Por token cuenta el mayor de cada item.
+     */
+    private static void offerWeights(FieldPostings postings, FieldPostings stemPostings, Bm25Statistics.Field field,
+                                     String token, String stem, BitSet matching, boolean keywordField,
+                                     int tokenStamp, ScoreAccumulator accumulator) {
+        int[] buffer = accumulator.postingsBuffer;
+        for (int t = matching.nextSetBit(0); t >= 0; t = matching.nextSetBit(t + 1)) {
+            String term = postings.term(t);
+            int id = field.id(term);
+            if (id < 0) {
+                continue;
+            }
+            double factor = term.equals(token) ? 1.0 : Bm25Statistics.PARTIAL_FACTOR;
+            int count = postings.load(t, buffer);
+            for (int i = 0; i < count; i++) {
+                offerWeight(accumulator, keywordField, buffer[i], tokenStamp, factor * field.weight(buffer[i], id));
+            }
+        }
+        if (stem == null) {
+            return;
+        }
+        int stemmed = stemPostings.termId(stem);
+        if (stemmed < 0) {
+            return;
+        }
+        int[] ids = field.idsWithStem(stem);
+        int count = stemPostings.load(stemmed, buffer);
+        for (int i = 0; i < count; i++) {
+            double best = 0.0;
+            for (int id : ids) {
+                best = Math.max(best, field.weight(buffer[i], id));
+            }
+            offerWeight(accumulator, keywordField, buffer[i], tokenStamp, Bm25Statistics.PARTIAL_FACTOR * best);
+        }
+    }
+
+    private static void offerWeight(ScoreAccumulator accumulator, boolean keywordField, int ordinal, int tokenStamp,
+                                    double weight) {
+        if (keywordField) {
+            accumulator.offerKeywordWeight(ordinal, tokenStamp, weight);
+        } else {
+            accumulator.offerDescriptionWeight(ordinal, tokenStamp, weight);
+        }
+    }
+
+    ScoreAccumulator acquireAccumulator() {
+        ScoreAccumulator accumulator = accumulators.poll();
+        if (accumulator == null) {
+            return new ScoreAccumulator(items.size());
+        }
+        pooledAccumulators.decrementAndGet();
+        return accumulator;
+    }
+
+    void releaseAccumulator(ScoreAccumulator accumulator) {
+        if (pooledAccumulators.incrementAndGet() <= MAX_POOLED_ACCUMULATORS) {
+            accumulators.offer(accumulator);
+        } else {
+            pooledAccumulators.decrementAndGet();
+        }
+    }
+
+    /**
+     * Postings de todos los campos en construcción, a partir de los items analizados
+     */
+    static final class Postings {
+        final FieldPostings.Builder keywords = new FieldPostings.Builder();
+        final FieldPostings.Builder names = new FieldPostings.Builder();
+        final FieldPostings.Builder descriptions = new FieldPostings.Builder();
+        final FieldPostings.Builder categories = new FieldPostings.Builder();
+        final FieldPostings.Builder contents = new FieldPostings.Builder();
+        final FieldPostings.Builder fullNames = new FieldPostings.Builder();
+
+        void add(AnalyzedFields fields, int ordinal) {
+            for (String keyword : fields.keywords()) {
+                keywords.add(keyword, ordinal);
+            }
+            for (String token : fields.nameTokens()) {
+                names.add(token, ordinal);
+            }
+            for (String token : fields.descriptionTokens()) {
+                descriptions.add(token, ordinal);
+            }
+            for (String token : fields.contentTokens()) {
+                contents.add(token, ordinal);
+            }
+
+            // La categoría se compara por substring, así que se indexan todas sus partes sin filtrar
+            if (fields.normalizedCategory() != null) {
+                for (String part : fields.normalizedCategory().split("\\s+")) {
+                    categories.add(part, ordinal);
+                }
+            }
+            fullNames.add(fields.normalizedName(), ordinal);
+        }
+    }
+
+    /**
+     * Postings de un campo: términos distintos y los ordinales (ordenados) que los contienen.
+     * Las listas largas se guardan como deltas en varint para reducir memoria.
+     * Para la coincidencia parcial mantiene un índice de trigramas de caracteres
+     * (término contiene al token) y un mapa término → id (token contiene al término),
+     * en lugar de recorrer todo el vocabulario por token.
+     */
+    static final class FieldPostings {
+
+        static final FieldPostings EMPTY = new FieldPostings(new String[0], new int[0][], new byte[0][], true);
+
+        private static final int GRAM = 3;
+        // Listas con al menos esta cantidad de ordinales se comprimen
+        static final int PACK_THRESHOLD = 128;
+
+        private final String[] terms;
+        private final int[][] postings;
+        private final byte[][] packed;
+        private final Map<String, Integer> termIds;
+        private final Map<Long, int[]> trigrams;
+        private final boolean partialMatching;
+
+        private FieldPostings(String[] terms, int[][] postings, byte[][] packed, boolean partialMatching) {
+            this(terms, postings, packed, termIds(terms), partialMatching ? buildTrigrams(terms, 0) : Map.of(),
+                partialMatching);
+        }
+
+        private FieldPostings(String[] terms, int[][] postings, byte[][] packed, Map<String, Integer> termIds,
+                              Map<Long, int[]> trigrams, boolean partialMatching) {
+            this.terms = terms;
+            this.postings = postings;
+            this.packed = packed;
+            this.termIds = termIds;
+            this.trigrams = trigrams;
+            this.partialMatching = partialMatching;
+        }
+
+        /**
+         * Términos, listas (sin comprimir o comprimidas) y trigramas, en orden estable
+         */
+        void write(DataOutputStream out) throws IOException {
+            out.writeBoolean(partialMatching);
+            CatalogSnapshot.writeArray(out, terms);
+            for (int t = 0; t < terms.length; t++) {
+                out.writeBoolean(postings[t] == null);
+                if (postings[t] != null) {
+                    CatalogSnapshot.writeInts(out, postings[t]);
+                } else {
+                    CatalogSnapshot.writeBytes(out, packed[t]);
+                }
+            }
+            if (partialMatching) {
+                out.writeInt(trigrams.size());
+                for (Map.Entry<Long, int[]> entry : new TreeMap<>(trigrams).entrySet()) {
+                    out.writeLong(entry.getKey());
+                    CatalogSnapshot.writeInts(out, entry.getValue());
+                }
+            }
+        }
+
+        static FieldPostings read(ByteBuffer in) {
+            boolean partialMatching = in.get() != 0;
+            String[] terms = CatalogSnapshot.readArray(in);
+            if (terms == null) {
+                throw new IllegalStateException("campo sin términos");
+            }
+            int[][] postings = new int[terms.length][];
+            byte[][] packed = new byte[terms.length][];
+            for (int t = 0; t < terms.length; t++) {
+                if (in.get() != 0) {
+                    packed[t] = CatalogSnapshot.readBytes(in);
+                } else {
+                    postings[t] = CatalogSnapshot.readInts(in);
+                }
+            }
+            Map<Long, int[]> trigrams = Map.of();
+            if (partialMatching) {
+                int count = CatalogSnapshot.readCount(in, Long.BYTES + Integer.BYTES);
+                trigrams = new HashMap<>(count * 4 / 3 + 1);
+                for (int i = 0; i < count; i++) {
+                    trigrams.put(in.getLong(), CatalogSnapshot.readInts(in));
+                }
+            }
+            return new FieldPostings(terms, postings, packed, termIds(terms), trigrams, partialMatching);
+        }
+
+        private static Map<String, Integer> termIds(String[] terms) {
+            Map<String, Integer> termIds = new HashMap<>(terms.length * 4 / 3 + 1);
+            for (int t = 0; t < terms.length; t++) {
+                termIds.put(terms[t], t);
+            }
+            return termIds;
+        }
+
+        /**
+         * Postings con los ordinales de {@code removed} quitados y los de {@code added} agregados,
+         * término por término. Solo se copian las listas de los términos tocados; los términos
+         * nuevos van al final del vocabulario (con sus trigramas) y los que quedan sin ordinales
+         * se conservan vacíos hasta la próxima reconstrucción.
+         */
+        FieldPostings apply(Builder removed, Builder added) {
+            if (removed.postings.isEmpty() && added.postings.isEmpty()) {
+                return this;
+            }
+            List<String> newTerms = added.postings.keySet().stream()
+                .filter(term -> !termIds.containsKey(term))
+                .sorted()
+                .toList();
+            int size = terms.length + newTerms.size();
+            String[] nextTerms = Arrays.copyOf(terms, size);
+            int[][] nextPostings = Arrays.copyOf(postings, size);
+            byte[][] nextPacked = Arrays.copyOf(packed, size);
+            Map<String, Integer> nextTermIds = termIds;
+            Map<Long, int[]> nextTrigrams = trigrams;
+            if (!newTerms.isEmpty()) {
+                nextTermIds = new HashMap<>(termIds);
+                for (int i = 0; i < newTerms.size(); i++) {
+                    nextTerms[terms.length + i] = newTerms.get(i);
+                    nextPostings[terms.length + i] = new int[0];
+                    nextTermIds.put(newTerms.get(i), terms.length + i);
+                }
+                if (partialMatching) {
+                    // Los ids nuevos son mayores que los existentes: cada lista sigue ordenada
+                    Map<Long, int[]> merged = new HashMap<>(trigrams);
+                    buildTrigrams(nextTerms, terms.length).forEach((gram, ids) ->
+                        merged.merge(gram, ids, (current, appended) -> concat(current, appended)));
+                    nextTrigrams = merged;
+                }
+            }
+
+            Set<String> touched = new HashSet<>(removed.postings.keySet());
+            touched.addAll(added.postings.keySet());
+            for (String term : touched) {
+                Integer t = nextTermIds.get(term);
+                if (t == null) {
+                    continue;
+                }
+                int[] current = t < terms.length ? ordinals(t) : new int[0];
+                int[] next = merge(current, removed.postings.getOrDefault(term, List.of()),
+                    added.postings.getOrDefault(term, List.of()));
+                if (next.length >= PACK_THRESHOLD) {
+                    nextPostings[t] = null;
+                    nextPacked[t] = Builder.pack(next);
+                } else {
+                    nextPostings[t] = next;
+                    nextPacked[t] = null;
+                }
+            }
+            return new FieldPostings(nextTerms, nextPostings, nextPacked, nextTermIds, nextTrigrams, partialMatching);
+        }
+
+        /**
+         * Postings por stem de cada término (las keywords de varias palabras, palabra por palabra).
+         * Solo admite búsqueda exacta: no arma trigramas.
+         */
+        FieldPostings stemmed() {
+            Builder builder = new Builder();
+            for (int t = 0; t < terms.length; t++) {
+                String stem = SpanishStemmer.stemPhrase(terms[t]);
+                for (int ordinal : ordinals(t)) {
+                    builder.add(stem, ordinal);
+                }
+            }
+            return builder.build(false);
+        }
+
+        /**
+         * Postings de cada grupo de sinónimos actualizados con los ordinales de las keywords
+         * quitadas y agregadas (ver {@link #expandSynonyms})
+         */
+        static int[][] applySynonyms(int[][] previous, SynonymDictionary synonyms, Builder removed, Builder added) {
+            Map<Integer, List<Integer>> removedByGroup = byGroup(removed, synonyms);
+            Map<Integer, List<Integer>> addedByGroup = byGroup(added, synonyms);
+            if (removedByGroup.isEmpty() && addedByGroup.isEmpty()) {
+                return previous;
+            }
+            int[][] next = previous.clone();
+            Set<Integer> touched = new HashSet<>(removedByGroup.keySet());
+            touched.addAll(addedByGroup.keySet());
+            for (int group : touched) {
+                next[group] = merge(previous[group], removedByGroup.getOrDefault(group, List.of()),
+                    addedByGroup.getOrDefault(group, List.of()));
+            }
+            return next;
+        }
+
+        private static Map<Integer, List<Integer>> byGroup(Builder keywords, SynonymDictionary synonyms) {
+            Map<Integer, List<Integer>> byGroup = new HashMap<>();
+            keywords.postings.forEach((term, ordinals) -> {
+                for (int group : synonyms.groupsOfStem(SpanishStemmer.stemPhrase(term))) {
+                    byGroup.computeIfAbsent(group, k -> new ArrayList<>()).addAll(ordinals);
+                }
+            });
+            return byGroup;
+        }
+
+        /**
+         * La lista ordenada sin los ordinales quitados y con los agregados, ordenada y sin repetir
+         */
+        private static int[] merge(int[] current, List<Integer> removed, List<Integer> added) {
+            Set<Integer> gone = new HashSet<>(removed);
+            return IntStream.concat(
+                    Arrays.stream(current).filter(ordinal -> !gone.contains(ordinal)),
+                    added.stream().mapToInt(Integer::intValue))
+                .sorted()
+                .distinct()
+                .toArray();
+        }
+
+        private static int[] concat(int[] first, int[] second) {
+            int[] result = Arrays.copyOf(first, first.length + second.length);
+            System.arraycopy(second, 0, result, first.length, second.length);
+            return result;
+        }
+
+        /**
+         * Ordinales del término (copia si la lista está comprimida)
+         */
+        private int[] ordinals(int term) {
+            if (postings[term] != null) {
+                return postings[term];
+            }
+            int[] buffer = new int[packed[term].length];
+            return Arrays.copyOf(buffer, load(term, buffer));
+        }
+
+        /**
+         * Postings de cada grupo de sinónimos: los ordinales de todos los términos que
+         * pertenecen al grupo (comparando por stem)
+         */
+        int[][] expandSynonyms(SynonymDictionary synonyms) {
+            List<BitSet> groups = new ArrayList<>(synonyms.groupCount());
+            for (int g = 0; g < synonyms.groupCount(); g++) {
+                groups.add(new BitSet());
+            }
+            for (int t = 0; t < terms.length; t++) {
+                int[] termGroups = synonyms.groupsOfStem(SpanishStemmer.stemPhrase(terms[t]));
+                if (termGroups.length == 0) {
+                    continue;
+                }
+                for (int group : termGroups) {
+                    addPostings(t, groups.get(group));
+                }
+            }
+            return groups.stream().map(bits -> bits.stream().toArray()).toArray(int[][]::new);
+        }
+
+        /**
+         * Agrega los items cuyo término contiene al token o está contenido en él
+         */
+        void collectMatches(String token, BitSet out) {
+            BitSet matching = new BitSet(terms.length);
+            collectMatchingTerms(token, matching);
+            for (int t = matching.nextSetBit(0); t >= 0; t = matching.nextSetBit(t + 1)) {
+                addPostings(t, out);
+            }
+        }
+
+        /**
+         * Ids de los términos que contienen al token o están contenidos en él
+         */
+        void collectMatchingTerms(String token, BitSet out) {
+            collectContainingTerms(token, out);
+            collectContainedTerms(token, out);
+        }
+
+        /**
+         * Id del término exacto, o -1
+         */
+        int termId(String term) {
+            Integer id = termIds.get(term);
+            return id != null ? id : -1;
+        }
+
+        /**
+         * Copia los ordinales del término en el buffer y devuelve cuántos son
+         */
+        int load(int term, int[] buffer) {
+            int[] list = postings[term];
+            if (list != null) {
+                System.arraycopy(list, 0, buffer, 0, list.length);
+                return list.length;
+            }
+            byte[] bytes = packed[term];
+            int count = 0;
+            int previous = 0;
+            int position = 0;
+            while (position < bytes.length) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[position++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                previous += delta;
+                buffer[count++] = previous;
+            }
+            return count;
+        }
+
+        private void addPostings(int term, BitSet out) {
+            if (postings[term] != null) {
+                for (int ordinal : postings[term]) {
+                    out.set(ordinal);
+                }
+                return;
+            }
+            int[] buffer = new int[packed[term].length];
+            int count = load(term, buffer);
+            for (int i = 0; i < count; i++) {
+                out.set(buffer[i]);
+            }
+        }
+
+        /**
+         * Versión por recorrido completo del vocabulario; referencia para tests y benchmarks
+         */
+        void collectMatchesByScan(String token, BitSet out) {
+            for (int t = 0; t < terms.length; t++) {
+                String term = terms[t];
+                if (term.contains(token) || token.contains(term)) {
+                    addPostings(t, out);
+                }
+            }
+        }
+
+        /**
+         * Si algún término con items contiene al token
+         */
+        boolean anyContains(String token) {
+            if (token.length() < GRAM) {
+                for (int t = 0; t < terms.length; t++) {
+                    if (terms[t].contains(token) && !isEmpty(t)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            int[] candidates = rarestTrigramPostings(token);
+            if (candidates != null) {
+                for (int t : candidates) {
+                    if (terms[t].contains(token) && !isEmpty(t)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        int termCount() {
+            return terms.length;
+        }
+
+        String term(int t) {
+            return terms[t];
+        }
+
+        /**
+         * Si el término quedó sin items (sus ordinales se dieron de baja con {@link #apply})
+         */
+        private boolean isEmpty(int term) {
+            return postings[term] != null && postings[term].length == 0;
+        }
+
+        /**
+         * Términos que contienen al token: candidatos del trigrama menos frecuente, verificados.
+         * Los tokens más cortos que un trigrama recorren el vocabulario.
+         */
+        void collectContainingTerms(String token, BitSet out) {
+            if (token.length() < GRAM) {
+                for (int t = 0; t < terms.length; t++) {
+                    if (terms[t].contains(token)) {
+                        out.set(t);
+                    }
+                }
+                return;
+            }
+            int[] candidates = rarestTrigramPostings(token);
+            if (candidates == null) {
+                return;
+            }
+            for (int t : candidates) {
+                if (terms[t].contains(token)) {
+                    out.set(t);
+                }
+            }
+        }
+
+        /**
+         * Términos contenidos en el token: se buscan todos sus substrings en el mapa de términos
+         */
+        private void collectContainedTerms(String token, BitSet out) {
+            Integer empty = termIds.get("");
+            if (empty != null) {
+                out.set(empty);
+            }
+            for (int start = 0; start < token.length(); start++) {
+                for (int end = start + 1; end <= token.length(); end++) {
+                    Integer t = termIds.get(token.substring(start, end));
+                    if (t != null) {
+                        out.set(t);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Postings del trigrama del token con menos términos; {@code null} si algún trigrama
+         * no aparece en el vocabulario (ningún término puede contener al token)
+         */
+        private int[] rarestTrigramPostings(String token) {
+            int[] rarest = null;
+            for (int i = 0; i + GRAM <= token.length(); i++) {
+                int[] list = trigrams.get(trigram(token, i));
+                if (list == null) {
+                    return null;
+                }
+                if (rarest == null || list.length < rarest.length) {
+                    rarest = list;
+                }
+            }
+            return rarest;
+        }
+
+        /**
+         * Trigramas de los términos desde el id {@code from}
+         */
+        private static Map<Long, int[]> buildTrigrams(String[] terms, int from) {
+            Map<Long, List<Integer>> lists = new HashMap<>();
+            for (int t = from; t < terms.length; t++) {
+                String term = terms[t];
+                for (int i = 0; i + GRAM <= term.length(); i++) {
+                    List<Integer> list = lists.computeIfAbsent(trigram(term, i), k -> new ArrayList<>());
+                    if (list.isEmpty() || list.get(list.size() - 1) != t) {
+                        list.add(t);
+                    }
+                }
+            }
+            Map<Long, int[]> result = new HashMap<>(lists.size() * 4 / 3 + 1);
+            lists.forEach((gram, list) -> result.put(gram, list.stream().mapToInt(Integer::intValue).toArray()));
+            return result;
+        }
+
+        private static long trigram(String text, int offset) {
+            return ((long) text.charAt(offset) << 32) | ((long) text.charAt(offset + 1) << 16) | text.charAt(offset + 2);
+        }
+
+        /**
+         * Acumula términos por ordinal y congela el resultado en arrays
+         */
+        static final class Builder {
+            private final Map<String, List<Integer>> postings = new HashMap<>();
+
+            void add(String term, int ordinal) {
+                if (term == null) {
+                    return;
+                }
+                List<Integer> list = postings.computeIfAbsent(term, k -> new ArrayList<>());
+                if (list.isEmpty() || list.get(list.size() - 1) != ordinal) {
+                    list.add(ordinal);
+                }
+            }
+
+            FieldPostings build() {
+                return build(true);
+            }
+
+            /**
+             * Los mismos ordinales agrupados por el stem de cada término
+             */
+            Builder stemmed() {
+                Builder builder = new Builder();
+                postings.forEach((term, ordinals) -> {
+                    String stem = SpanishStemmer.stemPhrase(term);
+                    for (int ordinal : ordinals) {
+                        builder.add(stem, ordinal);
+                    }
+                });
+                return builder;
+            }
+
+            private FieldPostings build(boolean partialMatching) {
+                String[] terms = postings.keySet().toArray(new String[0]);
+                Arrays.sort(terms);
+                int[][] lists = new int[terms.length][];
+                byte[][] packed = new byte[terms.length][];
+                for (int t = 0; t < terms.length; t++) {
+                    int[] list = postings.get(terms[t]).stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+                    if (list.length >= PACK_THRESHOLD) {
+                        packed[t] = pack(list);
+                    } else {
+                        lists[t] = list;
+                    }
+                }
+                return new FieldPostings(terms, lists, packed, partialMatching);
+            }
+
+            /**
+             * Codifica la lista ordenada como deltas en varint (7 bits por byte)
+             */
+            private static byte[] pack(int[] ordinals) {
+                byte[] out = new byte[ordinals.length * 5];
+                int position = 0;
+                int previous = 0;
+                for (int ordinal : ordinals) {
+                    int delta = ordinal - previous;
+                    previous = ordinal;
+                    while ((delta & ~0x7F) != 0) {
+                        out[position++] = (byte) ((delta & 0x7F) | 0x80);
+                        delta >>>= 7;
+                    }
+                    out[position++] = (byte) delta;
+                }
+                return Arrays.copyOf(out, position);
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.service.KeywordSearchService.SearchableItem;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Índice de búsqueda completo con sus particiones por tipo y por categoría, actualizados
+ * juntos ({@link #update}). Cada partición es el conjunto de ordinales de sus items en el
+ * índice completo: una búsqueda acotada (solo templates, solo una categoría) recorre las mismas
+ * listas y filtra los candidatos al acumular (ver {@link SearchIndex#accumulate}), así que el
+ * IDF, las correcciones y los sinónimos no dependen del alcance. Los empates se resuelven por
+ * ordinal igual que en una búsqueda sin alcance.
+ */
+final class SearchPartitions {
+    
+    static final SearchPartitions EMPTY = new SearchPartitions(SearchIndex.EMPTY, Map.of(), Map.of(), Map.of());
+    
+    // Alcance de una combinación sin items; nunca se modifica
+    private static final BitSet NONE = new BitSet();
+    
+    private final SearchIndex all;
+    private final Map<String, BitSet> byType;
+    private final Map<String, BitSet> byCategory;
+    private final Map<String, Map<String, BitSet>> byTypeAndCategory;
+    
+    private SearchPartitions(
+        SearchIndex all,
+        Map<String, BitSet> byType,
+        Map<String, BitSet> byCategory,
+        Map<String, Map<String, BitSet>> byTypeAndCategory
+    ) {
+        this.all = all;
+        this.byType = byType;
+        this.byCategory = byCategory;
+        this.byTypeAndCategory = byTypeAndCategory;
+    }
+    
+    static SearchPartitions build(List<SearchableItem> items, KeywordSearchService searchService) {
+        return of(searchService.buildIndex(items));
+    }
+    
+    /**
+     * Particiones de los items vivos del índice, por su ordinal
+     */
+    private static SearchPartitions of(SearchIndex all) {
+        Changes byType = new Changes(Map.of());
+        Changes byCategory = new Changes(Map.of());
+        Map<String, Changes> byTypeAndCategory = new HashMap<>();
+        for (SearchableItem item : all.items()) {
+            int ordinal = all.ordinalOf(item.id());
+            byType.set(item.type(), ordinal, true);
+            byCategory.set(item.category(), ordinal, true);
+            if (item.type() != null) {
+                byTypeAndCategory.computeIfAbsent(item.type(), type -> new Changes(Map.of()))
+                    .set(item.category(), ordinal, true);
+            }
+        }
+        return new SearchPartitions(all, byType.result(), byCategory.result(),
+            apply(Map.of(), byTypeAndCategory));
+    }
+    
+    /**
+     * Particiones con los items {@code removed} (versión anterior de los quitados y reemplazados)
+     * dados de baja y {@code upserts} agregados. El índice completo se actualiza como delta (ver
+     * {@link KeywordSearchService#update}); en cada partición afectada se apaga el ordinal anterior
+     * y se enciende el nuevo, sin tocar las demás. Una partición que queda vacía se descarta.
+     */
+    SearchPartitions update(Collection<SearchableItem> removed, List<SearchableItem> upserts,
+                            KeywordSearchService searchService) {
+        SearchIndex updated = searchService.update(all, removed.stream().map(SearchableItem::id).toList(), upserts);
+        if (updated == all) {
+            return this;
+        }
+        // Con demasiada fragmentación update reconstruye el índice y los ordinales cambian; si no,
+        // los existentes se conservan y los agregados van al final
+        if (updated.ordinalCount() != all.ordinalCount() + upserts.size()) {
+            return of(updated);
+        }
+        
+        Changes nextByType = new Changes(byType);
+        Changes nextByCategory = new Changes(byCategory);
+        Map<String, Changes> nextByTypeAndCategory = new HashMap<>();
+        for (SearchableItem item : removed) {
+            mark(item, all.ordinalOf(item.id()), false, nextByType, nextByCategory, nextByTypeAndCategory);
+        }
+        for (SearchableItem item : upserts) {
+            mark(item, updated.ordinalOf(item.id()), true, nextByType, nextByCategory, nextByTypeAndCategory);
+        }
+        return new SearchPartitions(updated, nextByType.result(), nextByCategory.result(),
+            apply(byTypeAndCategory, nextByTypeAndCategory));
+    }
+    
+    private void mark(SearchableItem item, int ordinal, boolean value, Changes types, Changes categories,
+                      Map<String, Changes> typesAndCategories) {
+        types.set(item.type(), ordinal, value);
+        categories.set(item.category(), ordinal, value);
+        if (item.type() != null) {
+            typesAndCategories.computeIfAbsent(item.type(),
+                    type -> new Changes(byTypeAndCategory.getOrDefault(type, Map.of())))
+                .set(item.category(), ordinal, value);
+        }
+    }
+    
+    private static Map<String, Map<String, BitSet>> apply(Map<String, Map<String, BitSet>> previous,
+                                                         Map<String, Changes> changes) {
+        Map<String, Map<String, BitSet>> next = new HashMap<>(previous);
+        changes.forEach((type, categories) -> {
+            Map<String, BitSet> result = categories.result();
+            if (result.isEmpty()) {
+                next.remove(type);
+            } else {
+                next.put(type, result);
+            }
+        });
+        return Map.copyOf(next);
+    }
+    
+    /**
+     * Escribe el índice completo y los ordinales de cada partición para el snapshot del
+     * catálogo (ver {@link CatalogSnapshot}), con las claves en orden
+     */
+    void write(DataOutputStream out) throws IOException {
+        all.write(out);
+        writePartitions(out, byType);
+        writePartitions(out, byCategory);
+        out.writeInt(byTypeAndCategory.size());
+        for (String type : new TreeSet<>(byTypeAndCategory.keySet())) {
+            CatalogSnapshot.writeString(out, type);
+            writePartitions(out, byTypeAndCategory.get(type));
+        }
+    }
+    
+    /**
+     * Particiones guardadas con {@link #write} sobre {@code items}, en el mismo orden
+     */
+    static SearchPartitions read(ByteBuffer in, List<SearchableItem> items, SynonymDictionary synonyms) {
+        SearchIndex all = SearchIndex.read(in, items, synonyms);
+        Map<String, BitSet> byType = readPartitions(in);
+        Map<String, BitSet> byCategory = readPartitions(in);
+        int typeCount = CatalogSnapshot.readCount(in, 2 * Integer.BYTES);
+        Map<String, Map<String, BitSet>> byTypeAndCategory = new HashMap<>();
+        for (int i = 0; i < typeCount; i++) {
+            byTypeAndCategory.put(CatalogSnapshot.readString(in), readPartitions(in));
+        }
+        return new SearchPartitions(all, byType, byCategory, Map.copyOf(byTypeAndCategory));
+    }
+    
+    private static void writePartitions(DataOutputStream out, Map<String, BitSet> partitions) throws IOException {
+        out.writeInt(partitions.size());
+        for (String key : new TreeSet<>(partitions.keySet())) {
+            CatalogSnapshot.writeString(out, key);
+            CatalogSnapshot.writeBits(out, partitions.get(key));
+        }
+    }
+    
+    private static Map<String, BitSet> readPartitions(ByteBuffer in) {
+        int count = CatalogSnapshot.readCount(in, 2 * Integer.BYTES);
+        Map<String, BitSet> partitions = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            partitions.put(CatalogSnapshot.readString(in), CatalogSnapshot.readBits(in));
+        }
+        return Map.copyOf(partitions);
+    }
+    
+    /**
+     * Ordinales de la partición para el tipo y la categoría; {@code null} significa "cualquiera"
+     * y un alcance {@code null} es el índice completo. Una combinación inexistente devuelve un
+     * alcance vacío. El resultado es compartido: no se debe modificar.
+     */
+    BitSet scope(String type, String category) {
+        if (type == null && category == null) {
+            return null;
+        }
+        if (category == null) {
+            return byType.getOrDefault(type, NONE);
+        }
+        if (type == null) {
+            return byCategory.getOrDefault(category, NONE);
+        }
+        return byTypeAndCategory.getOrDefault(type, Map.of()).getOrDefault(category, NONE);
+    }
+    
+    SearchIndex all() {
+        return all;
+    }
+    
+    int partitionCount() {
+        return 1 + byType.size() + byCategory.size()
+            + byTypeAndCategory.values().stream().mapToInt(Map::size).sum();
+    }
+    
+    /**
+     * Mapa de particiones en modificación: cada conjunto se copia la primera vez que cambia,
+     * así la versión anterior (en uso por búsquedas en curso) queda intacta
+     */
+    private static final class Changes {
+        
+        private final Map<String, BitSet> previous;
+        private final Map<String, BitSet> next;
+        
+        Changes(Map<String, BitSet> previous) {
+            this.previous = previous;
+            this.next = new HashMap<>(previous);
+        }
+        
+        void set(String key, int ordinal, boolean value) {
+            if (key == null || ordinal < 0) {
+                return;
+            }
+            BitSet ordinals = next.get(key);
+            if (ordinals == null || ordinals == previous.get(key)) {
+                ordinals = ordinals == null ? new BitSet() : (BitSet) ordinals.clone();
+                next.put(key, ordinals);
+            }
+            ordinals.set(ordinal, value);
+        }
+        
+        Map<String, BitSet> result() {
+            next.values().removeIf(BitSet::isEmpty);
+            return Map.copyOf(next);
+        }
+    }
+}
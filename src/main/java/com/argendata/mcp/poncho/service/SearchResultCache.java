@@ -0,0 +1,153 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.model.CacheStats;
+import com.argendata.mcp.poncho.model.ComponentSearchResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Cache LRU acotado de resultados de búsqueda.
+ * La clave es (query normalizada, alcance, máximo de resultados), así que variantes de
+ * mayúsculas y acentos de la misma query comparten entrada. Las entradas vencen por TTL
+ * y se descartan al recargar el catálogo.
+ */
+@Service
+public class SearchResultCache {
+    
+    /**
+     * Clave del cache. {@code scope} identifica el subconjunto buscado (todo, componentes, templates).
+     */
+    record Key(String normalizedQuery, String scope, int maxResults) {}
+    
+    private record Entry(List<ComponentSearchResult> results, long createdAtNanos) {}
+    
+    private final int maxSize;
+    private final long ttlNanos;
+    
+    // ReentrantLock en lugar de synchronized para no fijar el carrier de los virtual threads
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Key, Entry> entries;
+    // Se incrementa en cada invalidación; un cálculo sobre un catálogo leído antes no se guarda
+    private long generation;
+    
+    private long hits;
+    private long misses;
+    private long evictions;
+    
+    public SearchResultCache(
+            @Value("${poncho.search.cache.max-size:500}") int maxSize,
+            @Value("${poncho.search.cache.ttl:10m}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.isZero() ? Long.MAX_VALUE : ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > SearchResultCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * Generación actual del cache; se lee antes de tomar el catálogo sobre el que se va a
+     * buscar y se pasa a {@link #get(Key, long, Supplier)}
+     */
+    public long generation() {
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Como {@link #get(Key, long, Supplier)} con la generación actual, para búsquedas que no
+     * dependen de un catálogo leído antes
+     */
+    public List<ComponentSearchResult> get(Key key, Supplier<List<ComponentSearchResult>> search) {
+        return get(key, generation(), search);
+    }
+    
+    /**
+     * Devuelve los resultados cacheados para la clave o los calcula con {@code search}.
+     * El cálculo se hace fuera del lock; si dos threads calculan la misma clave, gana el último.
+     * {@code generation} es la de {@link #generation()} leída antes que el catálogo que usa
+     * {@code search}: si hubo una invalidación desde entonces (recarga del catálogo), el
+     * resultado se devuelve pero no se guarda, porque puede venir del catálogo anterior.
+     */
+    public List<ComponentSearchResult> get(Key key, long generation,
+                                           Supplier<List<ComponentSearchResult>> search) {
+        if (maxSize <= 0) {
+            return search.get();
+        }
+        
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            // Con el catálogo anterior no sirve una entrada guardada con el nuevo
+            Entry entry = this.generation == generation ? entries.get(key) : null;
+            if (entry != null) {
+                if (now - entry.createdAtNanos() < ttlNanos) {
+                    hits++;
+                    return entry.results();
+                }
+                entries.remove(key);
+                evictions++;
+            }
+            misses++;
+        } finally {
+            lock.unlock();
+        }
+        
+        List<ComponentSearchResult> results = List.copyOf(search.get());
+        
+        lock.lock();
+        try {
+            if (this.generation == generation) {
+                entries.put(key, new Entry(results, System.nanoTime()));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return results;
+    }
+    
+    /**
+     * Descarta todas las entradas
+     */
+    public void invalidate() {
+        lock.lock();
+        try {
+            entries.clear();
+            generation++;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @EventListener
+    public void onCatalogReloaded(CatalogReloadedEvent event) {
+        invalidate();
+    }
+    
+    public CacheStats stats() {
+        lock.lock();
+        try {
+            return new CacheStats("search-results", hits, misses, evictions, entries.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
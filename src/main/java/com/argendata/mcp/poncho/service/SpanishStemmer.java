@@ -0,0 +1,59 @@
+package com.argendata.mcp.poncho.service;
+
+/**
+ * Stemmer liviano para español (reglas de J. Savoy, las mismas del SpanishLightStemmer
+ * de Lucene): solo unifica plural y género, sin derivaciones. "tablas" y "tabla" → "tabl",
+ * "interactiva" e "interactivo" → "interactiv". Trabaja sobre texto ya normalizado
+ * (minúsculas y sin acentos); las palabras de menos de 5 letras no se modifican.
+ */
+final class SpanishStemmer {
+
+    private static final int MIN_LENGTH = 5;
+
+    private SpanishStemmer() {}
+
+    static String stem(String word) {
+        int length = word.length();
+        if (length < MIN_LENGTH) {
+            return word;
+        }
+        char last = word.charAt(length - 1);
+        char previous = word.charAt(length - 2);
+        switch (last) {
+            case 'o', 'a', 'e':
+                return word.substring(0, length - 1);
+            case 's':
+                if (previous == 'e' && word.charAt(length - 3) == 's' && word.charAt(length - 4) == 'e') {
+                    // "meses" → "mes"
+                    return word.substring(0, length - 2);
+                }
+                if (previous == 'e' && word.charAt(length - 3) == 'c') {
+                    // "luces" → "luz"
+                    return word.substring(0, length - 3) + 'z';
+                }
+                if (previous == 'o' || previous == 'a' || previous == 'e') {
+                    return word.substring(0, length - 2);
+                }
+                return word;
+            default:
+                return word;
+        }
+    }
+
+    /**
+     * Aplica el stem a cada palabra de una frase (keywords de varias palabras)
+     */
+    static String stemPhrase(String phrase) {
+        if (phrase.indexOf(' ') < 0) {
+            return stem(phrase);
+        }
+        StringBuilder result = new StringBuilder(phrase.length());
+        for (String word : phrase.split(" ")) {
+            if (!result.isEmpty()) {
+                result.append(' ');
+            }
+            result.append(stem(word));
+        }
+        return result.toString();
+    }
+}
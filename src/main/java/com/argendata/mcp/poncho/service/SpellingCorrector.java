@@ -0,0 +1,244 @@
+package com.argendata.mcp.poncho.service;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Corrector ortográfico estilo SymSpell sobre el vocabulario normalizado del catálogo.
+ * Al construir se indexan los "deletes" (variantes con hasta {@value #MAX_EDIT_DISTANCE}
+ * caracteres borrados) de cada término; una palabra mal escrita se corrige generando sus
+ * propios deletes y verificando la distancia real solo contra los términos que comparten
+ * alguno. Los deletes se calculan sobre un prefijo de {@value #PREFIX_LENGTH} caracteres
+ * para acotar la memoria en vocabularios grandes.
+ */
+final class SpellingCorrector {
+
+    static final SpellingCorrector EMPTY = new SpellingCorrector(new String[0], new int[0], Map.of());
+
+    static final int MAX_EDIT_DISTANCE = 2;
+    static final int PREFIX_LENGTH = 7;
+    // Las palabras muy cortas tienen demasiados vecinos a distancia 2
+    private static final int MIN_WORD_LENGTH = 4;
+    private static final int SHORT_WORD_LENGTH = 5;
+
+    private final String[] terms;
+    private final int[] frequencies;
+    private final Map<String, Integer> termIds;
+    private final Map<String, int[]> deletes;
+
+    private SpellingCorrector(String[] terms, int[] frequencies, Map<String, int[]> deletes) {
+        this.terms = terms;
+        this.frequencies = frequencies;
+        this.deletes = deletes;
+        this.termIds = new HashMap<>();
+        for (int id = 0; id < terms.length; id++) {
+            termIds.put(terms[id], id);
+        }
+    }
+
+    /**
+     * Construye el diccionario a partir de la frecuencia de cada término en el catálogo
+     */
+    static SpellingCorrector build(Map<String, Integer> termFrequencies) {
+        String[] terms = termFrequencies.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        int[] frequencies = new int[terms.length];
+        Map<String, List<Integer>> deleteLists = new HashMap<>();
+
+        for (int id = 0; id < terms.length; id++) {
+            frequencies[id] = termFrequencies.get(terms[id]);
+            for (String delete : deletesOf(prefix(terms[id]))) {
+                deleteLists.computeIfAbsent(delete, k -> new ArrayList<>(1)).add(id);
+            }
+        }
+
+        Map<String, int[]> deletes = new HashMap<>(deleteLists.size() * 4 / 3 + 1);
+        deleteLists.forEach((delete, ids) -> deletes.put(delete, ids.stream().mapToInt(Integer::intValue).toArray()));
+        return new SpellingCorrector(terms, frequencies, deletes);
+    }
+
+    /**
+     * Corrector con la frecuencia de cada palabra ajustada en {@code frequencyDeltas}
+     * (cantidad de items agregados menos quitados). Las palabras nuevas se agregan al final
+     * del vocabulario con sus deletes; las que quedan en cero dejan de ser conocidas y de
+     * sugerirse, sin reconstruir el mapa de deletes.
+     */
+    SpellingCorrector withChanges(Map<String, Integer> frequencyDeltas) {
+        List<String> added = frequencyDeltas.keySet().stream()
+            .filter(term -> !termIds.containsKey(term))
+            .sorted()
+            .toList();
+        String[] nextTerms = Arrays.copyOf(terms, terms.length + added.size());
+        int[] nextFrequencies = Arrays.copyOf(frequencies, nextTerms.length);
+        Map<String, int[]> nextDeletes = deletes;
+        if (!added.isEmpty()) {
+            nextDeletes = new HashMap<>(deletes);
+            for (int i = 0; i < added.size(); i++) {
+                int id = terms.length + i;
+                nextTerms[id] = added.get(i);
+                for (String delete : deletesOf(prefix(nextTerms[id]))) {
+                    nextDeletes.merge(delete, new int[] {id}, (ids, single) -> {
+                        int[] merged = Arrays.copyOf(ids, ids.length + 1);
+                        merged[ids.length] = single[0];
+                        return merged;
+                    });
+                }
+            }
+        }
+        SpellingCorrector corrector = new SpellingCorrector(nextTerms, nextFrequencies, nextDeletes);
+        frequencyDeltas.forEach((term, delta) -> {
+            int id = corrector.termIds.get(term);
+            nextFrequencies[id] = Math.max(nextFrequencies[id] + delta, 0);
+        });
+        return corrector;
+    }
+
+    /**
+     * Escribe vocabulario, frecuencias y deletes para el snapshot del catálogo
+     * (ver {@link SearchIndex#write}), en orden estable
+     */
+    void write(DataOutputStream out) throws IOException {
+        CatalogSnapshot.writeArray(out, terms);
+        CatalogSnapshot.writeInts(out, frequencies);
+        out.writeInt(deletes.size());
+        for (Map.Entry<String, int[]> entry : new TreeMap<>(deletes).entrySet()) {
+            CatalogSnapshot.writeString(out, entry.getKey());
+            CatalogSnapshot.writeInts(out, entry.getValue());
+        }
+    }
+
+    static SpellingCorrector read(ByteBuffer in) {
+        String[] terms = CatalogSnapshot.readArray(in);
+        int[] frequencies = CatalogSnapshot.readInts(in);
+        if (terms == null || frequencies.length != terms.length) {
+            throw new IllegalStateException("vocabulario del corrector inconsistente");
+        }
+        int count = CatalogSnapshot.readCount(in, 2 * Integer.BYTES);
+        Map<String, int[]> deletes = new HashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            deletes.put(CatalogSnapshot.readString(in), CatalogSnapshot.readInts(in));
+        }
+        return new SpellingCorrector(terms, frequencies, deletes);
+    }
+
+    boolean isKnown(String word) {
+        Integer id = termIds.get(word);
+        return id != null && frequencies[id] > 0;
+    }
+
+    int termCount() {
+        return terms.length;
+    }
+
+    /**
+     * Término del vocabulario más cercano a la palabra: menor distancia de edición
+     * (con transposiciones), luego mayor frecuencia y luego orden alfabético.
+     * Devuelve vacío si la palabra es conocida, muy corta o no tiene vecinos.
+     */
+    Optional<String> correct(String word) {
+        if (word.length() < MIN_WORD_LENGTH || isKnown(word)) {
+            return Optional.empty();
+        }
+        int maxDistance = word.length() < SHORT_WORD_LENGTH ? 1 : MAX_EDIT_DISTANCE;
+
+        int bestId = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        Set<Integer> checked = new HashSet<>();
+        for (String delete : deletesOf(prefix(word))) {
+            int[] ids = deletes.get(delete);
+            if (ids == null) {
+                continue;
+            }
+            for (int id : ids) {
+                if (!checked.add(id)) {
+                    continue;
+                }
+                String term = terms[id];
+                if (frequencies[id] == 0 || Math.abs(term.length() - word.length()) > maxDistance) {
+                    continue;
+                }
+                int distance = distance(word, term, maxDistance);
+                if (distance <= maxDistance && isBetter(id, distance, bestId, bestDistance)) {
+                    bestId = id;
+                    bestDistance = distance;
+                }
+            }
+        }
+        return bestId >= 0 ? Optional.of(terms[bestId]) : Optional.empty();
+    }
+
+    private boolean isBetter(int id, int distance, int bestId, int bestDistance) {
+        if (bestId < 0 || distance != bestDistance) {
+            return distance < bestDistance;
+        }
+        if (frequencies[id] != frequencies[bestId]) {
+            return frequencies[id] > frequencies[bestId];
+        }
+        // Orden alfabético; los términos agregados con withChanges no respetan el orden de los ids
+        return terms[id].compareTo(terms[bestId]) < 0;
+    }
+
+    private static String prefix(String word) {
+        return word.length() > PREFIX_LENGTH ? word.substring(0, PREFIX_LENGTH) : word;
+    }
+
+    /**
+     * La palabra y todas sus variantes con hasta {@value #MAX_EDIT_DISTANCE} caracteres borrados
+     */
+    private static Set<String> deletesOf(String word) {
+        Set<String> result = new HashSet<>();
+        result.add(word);
+        List<String> current = List.of(word);
+        for (int distance = 1; distance <= MAX_EDIT_DISTANCE; distance++) {
+            List<String> next = new ArrayList<>();
+            for (String candidate : current) {
+                for (int i = 0; i < candidate.length(); i++) {
+                    String delete = candidate.substring(0, i) + candidate.substring(i + 1);
+                    if (result.add(delete)) {
+                        next.add(delete);
+                    }
+                }
+            }
+            current = next;
+        }
+        return result;
+    }
+
+    /**
+     * Distancia de Damerau-Levenshtein restringida (optimal string alignment).
+     * Corta en cuanto toda la fila supera {@code maxDistance}.
+     */
+    static int distance(String a, String b, int maxDistance) {
+        int n = a.length();
+        int m = b.length();
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[m];
+    }
+}
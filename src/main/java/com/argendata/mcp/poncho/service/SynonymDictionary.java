@@ -0,0 +1,165 @@
+package com.argendata.mcp.poncho.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Diccionario de sinónimos para keywords. Cada grupo reúne términos equivalentes
+ * ("tabla", "grilla", "datatable") y tiene un peso: la fracción del score de keyword
+ * exacta que recibe un item cuando la query nombra a otro miembro del grupo.
+ * Se expande en postings al construir el índice (ver {@link SearchIndex}), así que
+ * la query no recorre miembros: cada token resuelve directo a sus grupos.
+ *
+ * <p>Formato: un grupo por línea, términos separados por coma y peso opcional al
+ * inicio ({@code 0.6 | calendario, agenda}); las líneas vacías y con {@code #} se ignoran.
+ */
+public final class SynonymDictionary {
+
+    private static final Logger log = LoggerFactory.getLogger(SynonymDictionary.class);
+
+    public static final SynonymDictionary EMPTY = new SynonymDictionary(List.of(), List.of());
+
+    static final String BUNDLED_PATH = "docs/synonyms.txt";
+    static final double DEFAULT_WEIGHT = 0.8;
+
+    private static final int[] NO_GROUPS = new int[0];
+
+    private final String[][] groups;
+    private final double[] weights;
+    // Grupos de cada término y de su stem, ordenados por peso descendente
+    private final Map<String, int[]> groupsByTerm;
+    private final Map<String, int[]> groupsByStem;
+
+    private SynonymDictionary(List<String[]> groups, List<Double> weights) {
+        this.groups = groups.toArray(new String[0][]);
+        this.weights = weights.stream().mapToDouble(Double::doubleValue).toArray();
+        Map<String, List<Integer>> byTerm = new HashMap<>();
+        Map<String, List<Integer>> byStem = new HashMap<>();
+        for (int g = 0; g < this.groups.length; g++) {
+            for (String term : this.groups[g]) {
+                byTerm.computeIfAbsent(term, k -> new ArrayList<>()).add(g);
+                byStem.computeIfAbsent(SpanishStemmer.stemPhrase(term), k -> new ArrayList<>()).add(g);
+            }
+        }
+        this.groupsByTerm = freeze(byTerm);
+        this.groupsByStem = freeze(byStem);
+    }
+
+    private Map<String, int[]> freeze(Map<String, List<Integer>> lists) {
+        Map<String, int[]> result = new HashMap<>(lists.size() * 4 / 3 + 1);
+        lists.forEach((term, list) -> result.put(term, list.stream()
+            .distinct()
+            .sorted(Comparator.comparingDouble((Integer g) -> -weights[g]).thenComparing(g -> g))
+            .mapToInt(Integer::intValue)
+            .toArray()));
+        return result;
+    }
+
+    /**
+     * Diccionario incluido en el jar
+     */
+    public static SynonymDictionary bundled() {
+        try (InputStream is = new ClassPathResource(BUNDLED_PATH).getInputStream()) {
+            return parse(new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8)).lines().toList());
+        } catch (IOException e) {
+            log.error("Error cargando sinónimos {}: {}", BUNDLED_PATH, e.getMessage());
+            return EMPTY;
+        }
+    }
+
+    /**
+     * Diccionario del archivo externo, o el incluido en el jar si la ruta está vacía
+     * o no se puede leer
+     */
+    public static SynonymDictionary load(String externalPath) {
+        if (externalPath == null || externalPath.isBlank()) {
+            return bundled();
+        }
+        try {
+            SynonymDictionary dictionary = parse(Files.readAllLines(Path.of(externalPath), StandardCharsets.UTF_8));
+            log.info("Cargados {} grupos de sinónimos desde {}", dictionary.groupCount(), externalPath);
+            return dictionary;
+        } catch (IOException | RuntimeException e) {
+            log.error("Error cargando sinónimos {}, se usan los incluidos: {}", externalPath, e.getMessage());
+            return bundled();
+        }
+    }
+
+    /**
+     * Interpreta las líneas del formato del diccionario; los términos se normalizan
+     */
+    static SynonymDictionary parse(List<String> lines) {
+        List<String[]> groups = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        for (String line : lines) {
+            String content = line.strip();
+            if (content.isEmpty() || content.startsWith("#")) {
+                continue;
+            }
+            double weight = DEFAULT_WEIGHT;
+            int separator = content.indexOf('|');
+            if (separator >= 0) {
+                weight = Double.parseDouble(content.substring(0, separator).strip());
+                if (weight <= 0 || weight > 1) {
+                    throw new IllegalArgumentException("Peso de sinónimos fuera de (0, 1]: " + line);
+                }
+                content = content.substring(separator + 1);
+            }
+            Set<String> terms = new LinkedHashSet<>();
+            for (String term : content.split(",")) {
+                String normalized = TextNormalizer.normalize(term);
+                if (!normalized.isEmpty()) {
+                    terms.add(normalized);
+                }
+            }
+            if (terms.size() > 1) {
+                groups.add(terms.toArray(new String[0]));
+                weights.add(weight);
+            }
+        }
+        return new SynonymDictionary(groups, weights);
+    }
+
+    /**
+     * Grupos que contienen al término, ordenados por peso descendente
+     */
+    int[] groupsOf(String term) {
+        return groupsByTerm.getOrDefault(term, NO_GROUPS);
+    }
+
+    /**
+     * Grupos con algún término de igual stem (ver {@link SpanishStemmer#stemPhrase})
+     */
+    int[] groupsOfStem(String stem) {
+        return groupsByStem.getOrDefault(stem, NO_GROUPS);
+    }
+
+    double weight(int group) {
+        return weights[group];
+    }
+
+    /**
+     * Los grupos ya normalizados, uno por línea con su peso, en el formato del archivo
+     */
+    String canonicalForm() {
+        StringBuilder form = new StringBuilder();
+        for (int group = 0; group < groups.length; group++) {
+            form.append(weights[group]).append('|').append(String.join(",", groups[group])).append('\n');
+        }
+        return form.toString();
+    }
+
+    public int groupCount() {
+        return groups.length;
+    }
+}
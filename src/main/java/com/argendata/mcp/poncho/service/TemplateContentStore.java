@@ -0,0 +1,121 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.model.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contenido HTML de las plantillas en memoria.
+ * Cada archivo de {@code templates/} se lee del jar una sola vez y se comparte entre
+ * los tools de plantillas y los resources MCP. La carga puede ser perezosa (por defecto)
+ * o anticipada al iniciar con {@code poncho.templates.preload=true}. Con un directorio
+ * externo de catálogo ({@code poncho.catalog.dir}) sus plantillas reemplazan a las del jar
+ * y el contenido se descarta cuando el catálogo se recarga.
+ */
+@Service
+public class TemplateContentStore {
+    
+    private static final Logger log = LoggerFactory.getLogger(TemplateContentStore.class);
+    
+    static final String TEMPLATES_BASE_PATH = "templates/";
+    
+    private final boolean preload;
+    private final CatalogSource source;
+    private final Map<String, String> contents = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    public TemplateContentStore(boolean preload) {
+        this(preload, null);
+    }
+    
+    @Autowired
+    public TemplateContentStore(
+            @Value("${poncho.templates.preload:false}") boolean preload,
+            @Value("${poncho.catalog.dir:}") String catalogDir) {
+        this.preload = preload;
+        this.source = new CatalogSource(catalogDir);
+    }
+    
+    @PostConstruct
+    public void init() {
+        if (!preload) {
+            return;
+        }
+        
+        try {
+            source.templates().forEach((path, bytes) -> contents.put(path, new String(bytes, StandardCharsets.UTF_8)));
+            log.info("Precargadas {} plantillas HTML en memoria", contents.size());
+        } catch (IOException e) {
+            log.warn("No se pudieron precargar las plantillas, se cargarán bajo demanda: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Devuelve el contenido de una plantilla por su ruta relativa a {@code templates/}
+     * (ej: {@code pages/formularios/formulario_completo.html}).
+     *
+     * @return vacío si el archivo no existe
+     * @throws UncheckedIOException si el archivo existe pero no se puede leer
+     */
+    public Optional<String> getContent(String templatePath) {
+        String cached = contents.get(templatePath);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        
+        misses.increment();
+        if (!source.templateExists(templatePath)) {
+            return Optional.empty();
+        }
+        
+        try {
+            return Optional.of(contents.computeIfAbsent(templatePath, this::read));
+        } catch (UncheckedIOException e) {
+            log.error("Error leyendo plantilla {}: {}", templatePath, e.getMessage());
+            throw e;
+        }
+    }
+    
+    /**
+     * Aciertos y fallos del cache; un fallo implica una lectura del jar
+     */
+    public CacheStats stats() {
+        return new CacheStats("templates", hits.sum(), misses.sum(), 0, contents.size());
+    }
+    
+    /**
+     * Las plantillas del directorio externo pueden haber cambiado: se vuelven a leer
+     */
+    @EventListener
+    public void onCatalogReloaded(CatalogReloadedEvent event) {
+        if (source.externalDir() == null) {
+            return;
+        }
+        contents.clear();
+        init();
+    }
+    
+    private String read(String templatePath) {
+        try (InputStream is = source.openTemplate(templatePath)) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
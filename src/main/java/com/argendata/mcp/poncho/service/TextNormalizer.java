@@ -0,0 +1,158 @@
+package com.argendata.mcp.poncho.service;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * Normalizador y tokenizador de texto en español de una sola pasada.
+ * Cada carácter se resuelve con una tabla precalculada: minúsculas, sin acentos ni
+ * diacríticos, guiones y underscores como espacio, y descarte de cualquier otro símbolo.
+ * Produce exactamente el mismo resultado que la normalización original con
+ * {@code toLowerCase} + NFD + expresiones regulares, sin strings intermedios.
+ */
+final class TextNormalizer {
+
+    // Marca de "carácter descartado" en la tabla (U+FFFF no es un carácter válido)
+    private static final char DROP = '\uFFFF';
+
+    private static final char[] TABLE = buildTable();
+
+    /**
+     * Stop words: palabras muy comunes sin valor semántico
+     */
+    static final Set<String> STOP_WORDS = Set.of(
+        "de", "la", "el", "en", "y", "los", "las", "del", "un", "una",
+        "con", "para", "por", "es", "al", "se", "que", "su", "o", "como",
+        "the", "an", "and", "or", "of", "to", "in", "for", "on", "with"
+    );
+
+    private TextNormalizer() {}
+
+    /**
+     * Normaliza texto: minúsculas, sin acentos, sin caracteres especiales.
+     * Si el texto ya está normalizado devuelve la misma instancia.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length && text.charAt(i) != DROP && TABLE[text.charAt(i)] == text.charAt(i)) {
+            i++;
+        }
+        if (i == length) {
+            return text.trim();
+        }
+
+        char[] out = new char[length];
+        text.getChars(0, i, out, 0);
+        int size = i;
+        for (; i < length; i++) {
+            char mapped = TABLE[text.charAt(i)];
+            if (mapped != DROP) {
+                out[size++] = mapped;
+            }
+        }
+
+        int start = 0;
+        while (start < size && out[start] <= ' ') {
+            start++;
+        }
+        while (size > start && out[size - 1] <= ' ') {
+            size--;
+        }
+        return new String(out, start, size - start);
+    }
+
+    /**
+     * Tokens normalizados en orden y con repeticiones; ignora tokens de 1 carácter y stop words
+     */
+    static List<String> tokenList(String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        tokenize(text, tokens);
+        return tokens;
+    }
+
+    /**
+     * Conjunto de tokens normalizados distintos
+     */
+    static Set<String> tokenize(String text) {
+        if (text == null) {
+            return Collections.emptySet();
+        }
+        Set<String> tokens = new HashSet<>();
+        tokenize(text, tokens);
+        return tokens;
+    }
+
+    /**
+     * Recorre el texto una vez: los espacios cierran el token actual y los caracteres
+     * descartados no lo cortan (igual que quitarlos antes de separar por espacios)
+     */
+    private static void tokenize(String text, Collection<String> out) {
+        int length = text.length();
+        char[] buffer = new char[length];
+        int size = 0;
+        for (int i = 0; i <= length; i++) {
+            char mapped = i < length ? TABLE[text.charAt(i)] : ' ';
+            if (mapped == DROP) {
+                continue;
+            }
+            if (isWhitespace(mapped)) {
+                if (size > 1) {
+                    String token = new String(buffer, 0, size);
+                    if (!STOP_WORDS.contains(token)) {
+                        out.add(token);
+                    }
+                }
+                size = 0;
+            } else {
+                buffer[size++] = mapped;
+            }
+        }
+    }
+
+    /**
+     * Los mismos caracteres que {@code \s} en las expresiones regulares de Java
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Resuelve cada carácter del BMP con la misma secuencia que la normalización original
+     * (minúsculas, NFD, sin marcas combinantes) y se queda con el resultado si es a-z, 0-9
+     * o espacio; ningún carácter aislado se expande a más de un carácter conservado.
+     */
+    private static char[] buildTable() {
+        char[] table = new char[Character.MAX_VALUE + 1];
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            table[c] = resolve((char) c);
+        }
+        return table;
+    }
+
+    private static char resolve(char c) {
+        if (c == '-' || c == '_') {
+            return ' ';
+        }
+        if (isWhitespace(c) || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+            return c;
+        }
+        if (c < 0x80 && !(c >= 'A' && c <= 'Z')) {
+            return DROP;
+        }
+        String decomposed = Normalizer.normalize(String.valueOf(c).toLowerCase(), Normalizer.Form.NFD);
+        for (int i = 0; i < decomposed.length(); i++) {
+            char d = decomposed.charAt(i);
+            if ((d >= 'a' && d <= 'z') || (d >= '0' && d <= '9')) {
+                return d;
+            }
+        }
+        return DROP;
+    }
+}
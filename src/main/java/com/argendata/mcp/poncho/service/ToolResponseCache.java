@@ -0,0 +1,85 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.model.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Memoriza las respuestas de los tools que solo dependen del catálogo
+ * (listados, documentación formateada, temas). La clave es el nombre del tool
+ * más sus argumentos; las entradas viven hasta que el catálogo se recarga.
+ */
+@Service
+public class ToolResponseCache {
+    
+    private static final Logger log = LoggerFactory.getLogger(ToolResponseCache.class);
+    
+    private static final char KEY_SEPARATOR = '\u0001';
+    
+    private final int maxEntries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    /**
+     * Se reemplaza completo al invalidar: un render en curso escribe en el mapa viejo y se descarta
+     */
+    private volatile Map<String, String> responses = new ConcurrentHashMap<>();
+    
+    public ToolResponseCache(@Value("${poncho.tools.response-cache.max-entries:1000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+    
+    /**
+     * Devuelve la respuesta memorizada para el tool y sus argumentos, o la genera con {@code renderer}.
+     * Los argumentos nulos equivalen a vacíos. Si el cache está lleno la respuesta se genera sin guardarse.
+     */
+    public String get(String toolName, Supplier<String> renderer, String... args) {
+        String key = key(toolName, args);
+        Map<String, String> current = responses;
+        
+        String cached = current.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        
+        misses.increment();
+        if (current.size() >= maxEntries) {
+            return renderer.get();
+        }
+        return current.computeIfAbsent(key, k -> renderer.get());
+    }
+    
+    /**
+     * Descarta todas las respuestas memorizadas
+     */
+    public void invalidate() {
+        responses = new ConcurrentHashMap<>();
+    }
+    
+    @EventListener
+    public void onCatalogReloaded(CatalogReloadedEvent event) {
+        invalidate();
+        log.info("Respuestas memorizadas invalidadas por recarga del catálogo ({} items)", event.componentCount());
+    }
+    
+    public CacheStats stats() {
+        return new CacheStats("tool-responses", hits.sum(), misses.sum(), 0, responses.size());
+    }
+    
+    private static String key(String toolName, String... args) {
+        StringBuilder sb = new StringBuilder(toolName);
+        for (String arg : args) {
+            sb.append(KEY_SEPARATOR).append(arg != null ? arg : "");
+        }
+        return sb.toString();
+    }
+}
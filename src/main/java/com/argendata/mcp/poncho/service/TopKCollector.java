@@ -0,0 +1,119 @@
+package com.argendata.mcp.poncho.service;
+
+/**
+ * Selección de los K mejores resultados con un min-heap acotado sobre arrays primitivos.
+ * Evita ordenar todos los candidatos: cada oferta cuesta O(log K).
+ * El orden es por score descendente y, a igual score, por ordinal ascendente
+ * (el mismo orden que el sort estable sobre los items en orden de catálogo).
+ */
+final class TopKCollector {
+
+    private final int capacity;
+    private final int[] ordinals;
+    private final double[] scores;
+    private int size;
+
+    TopKCollector(int capacity) {
+        this.capacity = Math.max(capacity, 0);
+        this.ordinals = new int[this.capacity];
+        this.scores = new double[this.capacity];
+    }
+
+    /**
+     * Ofrece un candidato; se descarta si el heap está lleno y es peor que el peor retenido
+     */
+    void offer(int ordinal, double score) {
+        if (capacity == 0) {
+            return;
+        }
+        if (size < capacity) {
+            ordinals[size] = ordinal;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (isWorse(ordinals[0], scores[0], ordinal, score)) {
+            ordinals[0] = ordinal;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Incorpora los resultados retenidos por otro colector (merge de shards)
+     */
+    void addAll(TopKCollector other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.ordinals[i], other.scores[i]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Vacía el heap y devuelve los ordinales del mejor al peor; {@code scoresOut} recibe
+     * los scores en el mismo orden y debe tener al menos {@link #size()} posiciones.
+     */
+    int[] drainSorted(double[] scoresOut) {
+        int count = size;
+        int[] sorted = new int[count];
+        for (int i = count - 1; i >= 0; i--) {
+            sorted[i] = ordinals[0];
+            scoresOut[i] = scores[0];
+            size--;
+            if (size > 0) {
+                ordinals[0] = ordinals[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * {@code true} si (a) queda por detrás de (b) en el ranking
+     */
+    private static boolean isWorse(int ordinalA, double scoreA, int ordinalB, double scoreB) {
+        int cmp = Double.compare(scoreA, scoreB);
+        return cmp < 0 || (cmp == 0 && ordinalA > ordinalB);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isWorse(ordinals[index], scores[index], ordinals[parent], scores[parent])) {
+                break;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                break;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < size && isWorse(ordinals[right], scores[right], ordinals[left], scores[left])) {
+                worst = right;
+            }
+            if (!isWorse(ordinals[worst], scores[worst], ordinals[index], scores[index])) {
+                break;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int ordinal = ordinals[i];
+        ordinals[i] = ordinals[j];
+        ordinals[j] = ordinal;
+        double score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+}
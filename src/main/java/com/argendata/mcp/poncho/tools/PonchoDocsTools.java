@@ -1,13 +1,18 @@
 package com.argendata.mcp.poncho.tools;
 
 import com.argendata.mcp.poncho.model.ComponentSearchResult;
+import com.argendata.mcp.poncho.model.OptionSearchResult;
 import com.argendata.mcp.poncho.model.PonchoComponent;
+import com.argendata.mcp.poncho.model.SearchQuery;
 import com.argendata.mcp.poncho.service.DocumentationService;
+import com.argendata.mcp.poncho.service.ToolResponseCache;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -16,10 +21,30 @@ import java.util.stream.Collectors;
 @Component
 public class PonchoDocsTools {
     
+    // Cantidad máxima de consultas por llamada a buscar_varios
+    static final int MAX_BATCH_QUERIES = 20;
+    private static final Set<String> ALCANCES = Set.of("todos", "componentes", "componente", "plantillas", "plantilla");
+    
     private final DocumentationService documentationService;
+    private final ToolResponseCache responseCache;
+    
+    /**
+     * Una consulta de {@link #buscar_varios}
+     */
+    public record ConsultaBusqueda(
+        @ToolParam(description = "Texto de búsqueda")
+        String query,
+        @ToolParam(description = "Dónde buscar: componentes, plantillas o todos (por defecto todos)", required = false)
+        String alcance,
+        @ToolParam(description = "Filtrar por categoría (opcional)", required = false)
+        String categoria,
+        @ToolParam(description = "Número máximo de resultados (por defecto 5)", required = false)
+        Integer maxResultados
+    ) {}
     
-    public PonchoDocsTools(DocumentationService documentationService) {
+    public PonchoDocsTools(DocumentationService documentationService, ToolResponseCache responseCache) {
         this.documentationService = documentationService;
+        this.responseCache = responseCache;
     }
     
     @Tool(description = "Busca componentes de la librería Poncho por nombre, funcionalidad o descripción. " +
@@ -29,32 +54,171 @@ public class PonchoDocsTools {
             @ToolParam(description = "Texto de búsqueda: nombre del componente o descripción de la funcionalidad") 
             String query,
             @ToolParam(description = "Número máximo de resultados (por defecto 5)") 
-            Integer maxResultados
+            Integer maxResultados,
+            @ToolParam(description = "Filtrar por categoría (opcional): data, maps, calendar, design, i18n, content", required = false) 
+            String categoria
     ) {
         int max = maxResultados != null && maxResultados > 0 ? maxResultados : 5;
-        List<ComponentSearchResult> results = documentationService.searchComponents(query, max);
+        String category = categoria != null && !categoria.isBlank() ? categoria.toLowerCase() : null;
+        List<ComponentSearchResult> results = documentationService.searchComponents(query, category, max);
         
         if (results.isEmpty()) {
+            if (category != null && !documentationService.getCategories().contains(category)) {
+                return "Categoría no encontrada: " + categoria + "\n\n" +
+                       "Categorías disponibles: " + documentationService.getCategories();
+            }
             return "No se encontraron componentes para: " + query;
         }
         
         StringBuilder sb = new StringBuilder();
         sb.append("## Resultados de búsqueda para: \"").append(query).append("\"\n\n");
+        appendResults(sb, results);
+        
+        sb.append("---\n");
+        sb.append("Usa `obtener_documentacion` con el `id` del componente para ver la documentación completa.");
         
+        return sb.toString();
+    }
+    
+    @Tool(description = "Busca opciones de configuración de los componentes Poncho por nombre o descripción " +
+            "y devuelve cada opción con el componente que la define, su tipo y su valor por defecto. " +
+            "Usar cuando se busca cómo configurar algo puntual en lugar de leer la documentación de varios componentes. " +
+            "Ejemplos: 'ordenar por columna', 'parámetros en la URL', 'filtros dependientes'")
+    public String buscar_opcion(
+            @ToolParam(description = "Texto de búsqueda: nombre de la opción o lo que debe configurar")
+            String query,
+            @ToolParam(description = "Número máximo de resultados (por defecto 5)", required = false)
+            Integer maxResultados
+    ) {
+        int max = maxResultados != null && maxResultados > 0 ? maxResultados : 5;
+        List<OptionSearchResult> results = documentationService.searchOptions(query, max);
+        
+        if (results.isEmpty()) {
+            return "No se encontraron opciones para: " + query;
+        }
+        
+        StringBuilder sb = new StringBuilder();
+        sb.append("## Opciones para: \"").append(query).append("\"\n\n");
         for (int i = 0; i < results.size(); i++) {
-            ComponentSearchResult r = results.get(i);
-            sb.append(String.format("%d. **%s** (id: `%s`)\n", i + 1, r.name(), r.id()));
-            sb.append("   - Categoría: ").append(r.category()).append("\n");
+            OptionSearchResult r = results.get(i);
+            sb.append(String.format("%d. **%s** (%s%s) en %s (id: `%s`)\n", i + 1, r.optionName(), r.type(),
+                r.required() ? ", requerida" : "", r.componentName(), r.componentId()));
+            if (r.defaultValue() != null) {
+                sb.append("   - Por defecto: `").append(r.defaultValue()).append("`\n");
+            }
             sb.append("   - ").append(r.description()).append("\n");
             sb.append("   - Relevancia: ").append(String.format("%.2f", r.score())).append("\n\n");
         }
         
         sb.append("---\n");
-        sb.append("Usa `obtener_documentacion` con el `id` del componente para ver la documentación completa.");
+        sb.append("Usa `obtener_documentacion` con el `id` del componente para ver todas sus opciones y ejemplos.");
         
         return sb.toString();
     }
     
+    @Tool(description = "Ejecuta varias búsquedas de componentes y plantillas en una sola llamada. " +
+            "Usar cuando se necesitan varias piezas para armar una página (ej: header, formulario de contacto, " +
+            "tabla con filtros y footer) en lugar de llamar muchas veces a 'buscar_componente' o 'buscar_plantilla'. " +
+            "Cada consulta tiene su propio alcance, categoría y cantidad de resultados.")
+    public String buscar_varios(
+            @ToolParam(description = "Lista de consultas (máximo " + MAX_BATCH_QUERIES + ")")
+            List<ConsultaBusqueda> consultas
+    ) {
+        if (consultas == null || consultas.isEmpty()) {
+            return "Error: se requiere al menos una consulta.";
+        }
+        if (consultas.size() > MAX_BATCH_QUERIES) {
+            return "Error: se permiten hasta " + MAX_BATCH_QUERIES + " consultas por llamada (recibidas: " +
+                   consultas.size() + ").";
+        }
+        
+        // Las consultas inválidas se informan en su sección; el resto se busca en un solo lote
+        List<SearchQuery> queries = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for (ConsultaBusqueda consulta : consultas) {
+            String error = null;
+            if (consulta.query() == null || consulta.query().isBlank()) {
+                error = "Consulta vacía";
+            } else if (consulta.alcance() != null && !consulta.alcance().isBlank()
+                    && !ALCANCES.contains(consulta.alcance().trim().toLowerCase())) {
+                error = "Alcance no válido: " + consulta.alcance() + " (usar componentes, plantillas o todos)";
+            }
+            errors.add(error);
+            if (error == null) {
+                int max = consulta.maxResultados() != null && consulta.maxResultados() > 0 ? consulta.maxResultados() : 5;
+                String category = consulta.categoria() != null && !consulta.categoria().isBlank()
+                    ? consulta.categoria().toLowerCase() : null;
+                queries.add(new SearchQuery(consulta.query(), parseAlcance(consulta.alcance()), category, max));
+            }
+        }
+        List<List<ComponentSearchResult>> batch = documentationService.searchBatch(queries);
+        
+        StringBuilder sb = new StringBuilder();
+        sb.append("# Resultados de ").append(consultas.size()).append(" búsquedas\n\n");
+        int next = 0;
+        for (int i = 0; i < consultas.size(); i++) {
+            ConsultaBusqueda consulta = consultas.get(i);
+            sb.append("## ").append(i + 1).append(". \"").append(consulta.query()).append("\"");
+            sb.append(" (").append(describeAlcance(consulta)).append(")\n\n");
+            
+            if (errors.get(i) != null) {
+                sb.append("Error: ").append(errors.get(i)).append("\n\n");
+                continue;
+            }
+            SearchQuery query = queries.get(next);
+            List<ComponentSearchResult> results = batch.get(next++);
+            if (results.isEmpty()) {
+                if (query.category() != null && !documentationService.getCategories().contains(query.category())) {
+                    sb.append("Categoría no encontrada: ").append(consulta.categoria()).append("\n\n");
+                } else {
+                    sb.append("No se encontraron resultados.\n\n");
+                }
+                continue;
+            }
+            appendResults(sb, results);
+        }
+        
+        sb.append("---\n");
+        sb.append("Usa `obtener_documentacion` (componentes) u `obtener_plantilla` (plantillas) con el `id` para ver el detalle.");
+        
+        return sb.toString();
+    }
+    
+    /**
+     * Tipo de item para un alcance válido; {@code null} busca en ambos
+     */
+    private String parseAlcance(String alcance) {
+        if (alcance == null || alcance.isBlank()) {
+            return null;
+        }
+        return switch (alcance.trim().toLowerCase()) {
+            case "componentes", "componente" -> "component";
+            case "plantillas", "plantilla" -> "template";
+            default -> null;
+        };
+    }
+    
+    private String describeAlcance(ConsultaBusqueda consulta) {
+        String type = parseAlcance(consulta.alcance());
+        String scope = "component".equals(type) ? "componentes"
+            : "template".equals(type) ? "plantillas"
+            : "componentes y plantillas";
+        if (consulta.categoria() != null && !consulta.categoria().isBlank()) {
+            scope += ", categoría " + consulta.categoria();
+        }
+        return scope;
+    }
+    
+    private void appendResults(StringBuilder sb, List<ComponentSearchResult> results) {
+        for (int i = 0; i < results.size(); i++) {
+            ComponentSearchResult r = results.get(i);
+            sb.append(String.format("%d. **%s** (id: `%s`)\n", i + 1, r.name(), r.id()));
+            sb.append("   - Categoría: ").append(r.category()).append("\n");
+            sb.append("   - ").append(r.description()).append("\n");
+            sb.append("   - Relevancia: ").append(String.format("%.2f", r.score())).append("\n\n");
+        }
+    }
+    
     @Tool(description = "Obtiene la documentación completa de un componente Poncho específico. " +
             "Incluye descripción, opciones de configuración, dependencias y ejemplos de uso. " +
             "IDs disponibles: poncho-table, poncho-map, poncho-map-filter, poncho-map-search, " +
@@ -64,7 +228,11 @@ public class PonchoDocsTools {
             @ToolParam(description = "ID del componente (ej: poncho-table, poncho-map, national-holidays)") 
             String componentId
     ) {
-        return documentationService.getFormattedDocumentation(componentId);
+        if (documentationService.getComponent(componentId).isEmpty()) {
+            return documentationService.getFormattedDocumentation(componentId);
+        }
+        return responseCache.get("obtener_documentacion",
+            () -> documentationService.getFormattedDocumentation(componentId), componentId);
     }
     
     @Tool(description = "Lista todos los componentes disponibles en la librería Poncho, agrupados por categoría. " +
@@ -74,23 +242,26 @@ public class PonchoDocsTools {
             @ToolParam(description = "Filtrar por categoría (opcional): data, maps, calendar, design, i18n, content") 
             String categoria
     ) {
-        List<PonchoComponent> components;
-        
-        if (categoria != null && !categoria.isEmpty()) {
-            components = documentationService.getComponentsByCategory(categoria.toLowerCase());
-            if (components.isEmpty()) {
-                return "Categoría no encontrada: " + categoria + "\n\n" +
-                       "Categorías disponibles: " + documentationService.getCategories();
-            }
-        } else {
-            components = documentationService.getAllComponents();
+        // Clave normalizada: " Data " y "data" comparten la respuesta memorizada
+        String category = categoria != null && !categoria.isBlank() ? categoria.trim().toLowerCase() : null;
+        if (category != null && !documentationService.getCategories().contains(category)) {
+            return "Categoría no encontrada: " + categoria + "\n\n" +
+                   "Categorías disponibles: " + documentationService.getCategories();
         }
         
+        return responseCache.get("listar_componentes", () -> renderComponentes(category), category);
+    }
+    
+    private String renderComponentes(String category) {
+        List<PonchoComponent> components = category != null
+            ? documentationService.getComponentsByCategory(category)
+            : documentationService.getAllComponents();
+        
         StringBuilder sb = new StringBuilder();
         sb.append("# Componentes Poncho\n\n");
         
-        if (categoria != null && !categoria.isEmpty()) {
-            sb.append("**Categoría:** ").append(categoria).append("\n\n");
+        if (category != null) {
+            sb.append("**Categoría:** ").append(category).append("\n\n");
             formatComponentList(sb, components);
         } else {
             var grouped = components.stream()
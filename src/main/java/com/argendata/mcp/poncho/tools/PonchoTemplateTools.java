@@ -3,14 +3,13 @@ package com.argendata.mcp.poncho.tools;
 import com.argendata.mcp.poncho.model.ComponentSearchResult;
 import com.argendata.mcp.poncho.model.PonchoComponent;
 import com.argendata.mcp.poncho.service.DocumentationService;
+import com.argendata.mcp.poncho.service.TemplateContentStore;
+import com.argendata.mcp.poncho.service.ToolResponseCache;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -23,12 +22,17 @@ import static com.argendata.mcp.poncho.config.PonchoConstants.*;
 @Component
 public class PonchoTemplateTools {
 
-    private static final String TEMPLATES_BASE_PATH = "classpath:templates/";
-    private final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
     private final DocumentationService documentationService;
+    private final TemplateContentStore templateContentStore;
+    private final ToolResponseCache responseCache;
 
-    public PonchoTemplateTools(DocumentationService documentationService) {
+    public PonchoTemplateTools(
+            DocumentationService documentationService,
+            TemplateContentStore templateContentStore,
+            ToolResponseCache responseCache) {
         this.documentationService = documentationService;
+        this.templateContentStore = templateContentStore;
+        this.responseCache = responseCache;
     }
 
     @Tool(description = "USAR PRIMERO cuando el usuario quiera crear una página completa (home, landing, login, formulario, etc). " +
@@ -76,15 +80,13 @@ public class PonchoTemplateTools {
     }
     
     private String obtenerPlantillaConRecomendacion(PonchoComponent template, String casoDeUso, List<ComponentSearchResult> alternativas) {
-        String resourcePath = TEMPLATES_BASE_PATH + template.templatePath();
-        
         try {
-            Resource resource = resolver.getResource(resourcePath);
-            if (!resource.exists()) {
+            Optional<String> html = templateContentStore.getContent(template.templatePath());
+            if (html.isEmpty()) {
                 return "Error interno: plantilla no encontrada en " + template.templatePath();
             }
             
-            String content = new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            String content = html.get();
             
             StringBuilder sb = new StringBuilder();
             sb.append("# Plantilla recomendada: `").append(template.name()).append("`\n\n");
@@ -122,7 +124,7 @@ public class PonchoTemplateTools {
             
             return sb.toString();
             
-        } catch (IOException e) {
+        } catch (UncheckedIOException e) {
             return "Error al leer la plantilla: " + e.getMessage();
         }
     }
@@ -131,6 +133,10 @@ public class PonchoTemplateTools {
             "Cada categoría contiene plantillas HTML completas listas para usar. " +
             "IMPORTANTE: Usar 'recomendar_plantilla' primero si el usuario describe un caso de uso específico.")
     public String listar_categorias_plantillas() {
+        return responseCache.get("listar_categorias_plantillas", this::renderCategoriasPlantillas);
+    }
+    
+    private String renderCategoriasPlantillas() {
         StringBuilder sb = new StringBuilder();
         sb.append("# Categorías de Plantillas Poncho\n\n");
         sb.append("Plantillas HTML completas del sistema de diseño de argentina.gob.ar\n\n");
@@ -169,6 +175,10 @@ public class PonchoTemplateTools {
                    "Categorías válidas: " + String.join(", ", TEMPLATE_CATEGORIES.keySet());
         }
         
+        return responseCache.get("listar_plantillas_categoria", () -> renderPlantillasCategoria(categoria), categoria);
+    }
+    
+    private String renderPlantillasCategoria(String categoria) {
         List<PonchoComponent> templates = documentationService.getTemplatesByCategory(categoria);
         
         StringBuilder sb = new StringBuilder();
@@ -217,15 +227,13 @@ public class PonchoTemplateTools {
                        .collect(Collectors.joining(", "));
         }
         
-        String resourcePath = TEMPLATES_BASE_PATH + template.templatePath();
-        
         try {
-            Resource resource = resolver.getResource(resourcePath);
-            if (!resource.exists()) {
+            Optional<String> html = templateContentStore.getContent(template.templatePath());
+            if (html.isEmpty()) {
                 return "Error: Archivo de plantilla no encontrado: " + template.templatePath();
             }
             
-            String content = new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            String content = html.get();
             
             StringBuilder sb = new StringBuilder();
             sb.append("# Plantilla: ").append(template.name()).append("\n");
@@ -244,7 +252,7 @@ public class PonchoTemplateTools {
             
             return sb.toString();
             
-        } catch (IOException e) {
+        } catch (UncheckedIOException e) {
             return "Error al leer la plantilla: " + e.getMessage();
         }
     }
@@ -277,9 +285,17 @@ public class PonchoTemplateTools {
             "Usa búsqueda semántica para encontrar la plantilla más adecuada.")
     public String buscar_plantilla(
             @ToolParam(description = "Término de búsqueda (ej: 'login', 'tabla filtros', 'formulario contacto', 'panel')") 
-            String busqueda
+            String busqueda,
+            @ToolParam(description = "Filtrar por categoría (opcional, ej: 'formularios', 'tablas')", required = false) 
+            String categoria
     ) {
-        List<ComponentSearchResult> results = documentationService.searchOnlyTemplates(busqueda, 10);
+        String category = categoria != null && !categoria.isBlank() ? categoria : null;
+        if (category != null && !isValidCategory(category)) {
+            return "Error: Categoría '" + categoria + "' no encontrada. " +
+                   "Categorías válidas: " + String.join(", ", TEMPLATE_CATEGORIES.keySet());
+        }
+        
+        List<ComponentSearchResult> results = documentationService.searchOnlyTemplates(busqueda, category, 10);
         
         if (results.isEmpty()) {
             return "No se encontraron plantillas para: '" + busqueda + "'\n\n" +
@@ -1,5 +1,6 @@
 package com.argendata.mcp.poncho.tools;
 
+import com.argendata.mcp.poncho.service.ToolResponseCache;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Component;
@@ -122,6 +123,12 @@ public class PonchoUtilsTools {
         COLOR_PALETTE.put("morado", morado);
     }
     
+    private final ToolResponseCache responseCache;
+    
+    public PonchoUtilsTools(ToolResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+    
     @Tool(description = "Obtiene la paleta de colores del sistema Poncho. " +
             "Incluye grupos de colores (azul, amarillo, rojo, verde, naranja, morado) con intensidades del 50 al 900.")
     public String obtener_colores(
@@ -358,6 +365,10 @@ public class PonchoUtilsTools {
     @Tool(description = "Lista los temas visuales disponibles para PonchoMap. " +
             "Cada tema cambia los colores del mapa base de Leaflet.")
     public String listar_temas_mapa() {
+        return responseCache.get("listar_temas_mapa", this::renderTemasMapa);
+    }
+    
+    private String renderTemasMapa() {
         StringBuilder sb = new StringBuilder();
         sb.append("# Temas visuales de PonchoMap\n\n");
         
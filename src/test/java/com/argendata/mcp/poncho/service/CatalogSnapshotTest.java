@@ -0,0 +1,176 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.model.PonchoComponent;
+import com.argendata.mcp.poncho.model.PonchoComponent.ComponentDependencies;
+import com.argendata.mcp.poncho.model.PonchoComponent.ComponentOption;
+import com.argendata.mcp.poncho.service.KeywordSearchService.RankingMode;
+import com.argendata.mcp.poncho.service.KeywordSearchService.SearchResult;
+import com.argendata.mcp.poncho.service.KeywordSearchService.SearchableItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    private final KeywordSearchService searchService = new KeywordSearchService();
+    private final byte[] settings = CatalogSnapshot.hash(searchService.indexSettings());
+
+    @TempDir
+    Path dir;
+
+    private CatalogSnapshot sample() {
+        PonchoComponent table = new PonchoComponent("poncho-table", "component", "PonchoTable", "data",
+            "Tabla con filtros", List.of("tabla", "grilla"),
+            new ComponentDependencies(List.of("poncho.min.css"), List.of("poncho.min.js")),
+            List.of(new ComponentOption("ordenColumna", "integer", false, null, "Columna por la cual ordenar")),
+            "ponchoTable", null, null, "ponchoTable({})", null);
+        PonchoComponent login = new PonchoComponent("template-login", "template", "Login", "login-registro",
+            "Formulario de ingreso", List.of("login"), null, List.of(), null, null, null, null,
+            "pages/login-registro/login.html");
+        SearchableItem tableItem = searchService.analyze(new SearchableItem("poncho-table", "PonchoTable", "data",
+            "Tabla con filtros", List.of("tabla", "grilla"), "component", Map.of("type", "component")));
+        SearchableItem loginItem = searchService.analyze(new SearchableItem("template-login", "Login",
+            "login-registro", "Formulario de ingreso", List.of("login"), "template",
+            Map.of("type", "template", "templatePath", "pages/login-registro/login.html"), "Ingresá con tu CUIL"));
+        return new CatalogSnapshot(List.of(table, login), List.of(tableItem, loginItem));
+    }
+
+    @Test
+    void shouldRoundTripComponentsAndAnalyzedItems() throws IOException {
+        byte[] hash = CatalogSnapshot.hash(List.of("catalogo".getBytes(StandardCharsets.UTF_8)));
+        Path path = dir.resolve("catalog.snapshot");
+        CatalogSnapshot original = sample();
+        original.write(path, hash, settings);
+        
+        CatalogSnapshot loaded = CatalogSnapshot.read(path, hash, settings, searchService.synonyms()).orElseThrow();
+        
+        assertFalse(loaded.hasIndexes());
+        assertEquals(original.components(), loaded.components());
+        for (int i = 0; i < original.items().size(); i++) {
+            SearchableItem expected = original.items().get(i);
+            SearchableItem actual = loaded.items().get(i);
+            assertEquals(expected.id(), actual.id());
+            assertEquals(expected.metadata(), actual.metadata());
+            assertEquals(expected.content(), actual.content());
+            assertEquals(expected.analyzed().normalizedName(), actual.analyzed().normalizedName());
+            assertArrayEquals(expected.analyzed().nameTokens(), actual.analyzed().nameTokens());
+            assertArrayEquals(expected.analyzed().contentTokens(), actual.analyzed().contentTokens());
+            assertEquals(expected.analyzed().keywords(), actual.analyzed().keywords());
+        }
+        assertEquals(1, searchService.search("cuil", searchService.buildIndex(loaded.items()), 5).size());
+    }
+
+    @Test
+    void shouldRejectSnapshotWithDifferentHash() throws IOException {
+        Path path = dir.resolve("catalog.snapshot");
+        sample().write(path, CatalogSnapshot.hash(List.of(new byte[] {1})), settings);
+        
+        assertEquals(Optional.empty(), CatalogSnapshot.read(path, CatalogSnapshot.hash(List.of(new byte[] {2})),
+            settings, searchService.synonyms()));
+    }
+
+    @Test
+    void shouldRestoreIndexesThatSearchLikeFreshlyBuiltOnes() throws IOException {
+        for (RankingMode mode : RankingMode.values()) {
+            KeywordSearchService service = new KeywordSearchService(mode, true, SynonymDictionary.bundled(), false,
+                20_000);
+            byte[] modeSettings = CatalogSnapshot.hash(service.indexSettings());
+            DocumentationService documentationService = new DocumentationService(new ObjectMapper(), service,
+                new SearchResultCache(0, Duration.ZERO), event -> { }, null);
+            List<byte[]> sources = documentationService.readSources();
+            byte[] hash = CatalogSnapshot.hash(sources);
+            CatalogSnapshot snapshot = documentationService.buildSnapshot(
+                documentationService.parseCatalog(sources.get(0)));
+            Catalog built = Catalog.build(snapshot.components(), snapshot.items(), service);
+            Path path = dir.resolve(mode + ".snapshot");
+            snapshot.withIndexes(built).write(path, hash, modeSettings);
+            
+            CatalogSnapshot loaded = CatalogSnapshot.read(path, hash, modeSettings, service.synonyms()).orElseThrow();
+            assertTrue(loaded.hasIndexes());
+            Catalog restored = loaded.toCatalog(service);
+            
+            assertEquals(built.optionsById(), restored.optionsById());
+            assertEquals(built.partitions().partitionCount(), restored.partitions().partitionCount());
+            assertEquals(built.partitions().all().termCount(), restored.partitions().all().termCount());
+            // Exacto, por stem, por sinónimo, parcial y con errores de tipeo
+            for (String query : List.of("tabla", "botones", "grilla", "form", "mapa argentina", "tabal", "acordeon")) {
+                assertEquals(ids(service.search(query, built.partitions().all(), 10)),
+                    ids(service.search(query, restored.partitions().all(), 10)), mode + " " + query);
+                assertEquals(ids(service.search(query, built.partitions().all(),
+                        built.partitions().scope("component", null), 10)),
+                    ids(service.search(query, restored.partitions().all(),
+                        restored.partitions().scope("component", null), 10)), mode + " " + query);
+                assertEquals(ids(service.search(query, built.optionIndex(), 10)),
+                    ids(service.search(query, restored.optionIndex(), 10)), mode + " " + query);
+            }
+        }
+    }
+
+    @Test
+    void shouldDropIndexesBuiltWithOtherSearchSettings() throws IOException {
+        byte[] hash = CatalogSnapshot.hash(List.of(new byte[] {1}));
+        Path path = dir.resolve("catalog.snapshot");
+        CatalogSnapshot original = sample();
+        Catalog built = Catalog.build(original.components(), original.items(), searchService);
+        original.withIndexes(built).write(path, hash, settings);
+        
+        KeywordSearchService bm25 = new KeywordSearchService(RankingMode.BM25, true, SynonymDictionary.bundled(),
+            false, 20_000);
+        CatalogSnapshot loaded = CatalogSnapshot.read(path, hash, CatalogSnapshot.hash(bm25.indexSettings()),
+            bm25.synonyms()).orElseThrow();
+        
+        assertFalse(loaded.hasIndexes());
+        assertEquals(original.components(), loaded.components());
+        SearchIndex rebuilt = loaded.toCatalog(bm25).partitions().all();
+        assertEquals(ids(bm25.search("tabla", Catalog.build(original.components(), original.items(), bm25)
+            .partitions().all(), 5)), ids(bm25.search("tabla", rebuilt, 5)));
+    }
+
+    private static List<String> ids(List<SearchResult> results) {
+        return results.stream().map(r -> r.item().id() + "=" + r.score()).toList();
+    }
+
+    @Test
+    void shouldIgnoreMissingOrTruncatedSnapshot() throws IOException {
+        byte[] hash = CatalogSnapshot.hash(List.of(new byte[] {1}));
+        Path path = dir.resolve("catalog.snapshot");
+        assertTrue(CatalogSnapshot.read(path, hash, settings, searchService.synonyms()).isEmpty());
+        
+        CatalogSnapshot original = sample();
+        byte[] bytes = original.withIndexes(Catalog.build(original.components(), original.items(), searchService))
+            .encode(hash, settings);
+        Files.write(path, java.util.Arrays.copyOf(bytes, bytes.length - 10));
+        assertTrue(CatalogSnapshot.read(path, hash, settings, searchService.synonyms()).isEmpty());
+    }
+
+    @Test
+    void shouldIgnoreSnapshotWithCorruptedLengths() throws IOException {
+        byte[] hash = CatalogSnapshot.hash(List.of(new byte[] {1}));
+        Path path = dir.resolve("catalog.snapshot");
+        byte[] bytes = sample().encode(hash, settings);
+        int countOffset = 2 * Integer.BYTES + hash.length + settings.length;
+        
+        // Cantidad de componentes y largo del primer id reemplazados por valores enormes
+        for (int offset : new int[] {countOffset, countOffset + Integer.BYTES}) {
+            byte[] corrupted = bytes.clone();
+            ByteBuffer.wrap(corrupted).putInt(offset, Integer.MAX_VALUE - 8);
+            Files.write(path, corrupted);
+            
+            assertTrue(CatalogSnapshot.read(path, hash, settings, searchService.synonyms()).isEmpty());
+            assertThrows(IllegalStateException.class,
+                () -> CatalogSnapshot.decode(ByteBuffer.wrap(corrupted), hash, settings, searchService.synonyms()));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.model.PonchoComponent;
+import com.argendata.mcp.poncho.model.PonchoComponent.ComponentOption;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogValidatorTest {
+
+    private static PonchoComponent component(String id, String type, String name, List<ComponentOption> options,
+                                             String templatePath) {
+        return new PonchoComponent(id, type, name, "data", "Descripción", List.of(), null, options,
+            null, null, null, null, templatePath);
+    }
+
+    @Test
+    void shouldAcceptBundledCatalog() throws IOException {
+        DocumentationService service = new DocumentationService(new ObjectMapper(), new KeywordSearchService(),
+            new SearchResultCache(0, Duration.ZERO), event -> { }, null);
+        List<PonchoComponent> components = service.parseCatalog(service.readSources().get(0));
+        
+        List<String> errors = CatalogValidator.validate(components,
+            path -> new ClassPathResource(TemplateContentStore.TEMPLATES_BASE_PATH + path).exists());
+        
+        assertEquals(List.of(), errors);
+    }
+
+    @Test
+    void shouldReportEveryProblem() {
+        ComponentOption option = new ComponentOption("jsonUrl", "string", true, null, "URL");
+        List<PonchoComponent> components = List.of(
+            component("poncho-table", "component", "PonchoTable", List.of(option, option), null),
+            component("poncho-table", "widget", "Otra", List.of(), null),
+            component("template-x", "template", " ", List.of(), "pages/no-existe.html"),
+            component("template-y", "template", "Y", List.of(), null)
+        );
+        
+        List<String> errors = CatalogValidator.validate(components, path -> false);
+        
+        assertEquals(List.of(
+            "poncho-table: opción duplicada jsonUrl",
+            "poncho-table: id duplicado",
+            "poncho-table: tipo no válido \"widget\" (component o template)",
+            "template-x: falta name",
+            "template-x: no existe la plantilla pages/no-existe.html",
+            "template-y: template sin templatePath"
+        ), errors);
+    }
+
+    @Test
+    void shouldReportMissingJsonFieldsBeforeParsing() {
+        String json = """
+            {"components": [
+              {"id": "poncho-table", "name": "PonchoTable", "category": "data", "description": "Tabla"},
+              {"id": "poncho-map", "category": "maps", "description": 3},
+              {"name": "Sin id", "category": "data", "description": "Sin id"},
+              "poncho-alert"
+            ]}
+            """;
+        DocumentationService service = new DocumentationService(new ObjectMapper(), new KeywordSearchService(),
+            new SearchResultCache(0, Duration.ZERO), event -> { }, null);
+        
+        IOException error = assertThrows(IOException.class,
+            () -> service.parseCatalog(json.getBytes(StandardCharsets.UTF_8)));
+        
+        assertEquals("""
+            components.json inválido:
+              poncho-map: falta name
+              poncho-map: description no es texto
+              #2: falta id
+              #3: no es un objeto""", error.getMessage());
+    }
+}
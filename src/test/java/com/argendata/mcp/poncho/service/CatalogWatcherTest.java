@@ -0,0 +1,216 @@
+package com.argendata.mcp.poncho.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogWatcherTest {
+
+    private static final String TEMPLATE = "pages/paginas-argentina/home.html";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    private final List<Object> events = new ArrayList<>();
+
+    private DocumentationService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream is = new ClassPathResource(CatalogSource.CATALOG_PATH).getInputStream()) {
+            Files.write(dir.resolve(CatalogSource.CATALOG_FILE), is.readAllBytes());
+        }
+        service = new DocumentationService(objectMapper, new KeywordSearchService(),
+            new SearchResultCache(0, Duration.ZERO), events::add, null, dir.toString());
+        service.init();
+    }
+
+    private void addComponent(String id, String name) throws IOException {
+        Path json = dir.resolve(CatalogSource.CATALOG_FILE);
+        ObjectNode root = (ObjectNode) objectMapper.readTree(json.toFile());
+        ObjectNode component = ((ArrayNode) root.get("components")).addObject();
+        component.put("id", id);
+        component.put("name", name);
+        component.put("category", "data");
+        component.put("description", "Componente agregado en caliente");
+        Files.write(json, objectMapper.writeValueAsBytes(root));
+    }
+
+    @Test
+    void shouldApplyAddedComponentWithoutFullReload() throws IOException {
+        int before = service.getAllComponents().size();
+        addComponent("poncho-semaforo", "PonchoSemaforo");
+
+        assertTrue(service.applyChanges(Set.of(CatalogSource.CATALOG_FILE)));
+
+        assertEquals(before + 1, service.getAllComponents().size());
+        assertTrue(service.getComponent("poncho-semaforo").isPresent());
+        assertEquals("poncho-semaforo", service.searchOnlyComponents("semaforo", 5).get(0).id());
+    }
+
+    @Test
+    void shouldKeepPreviousCatalogWhenJsonIsInvalid() throws IOException {
+        int before = service.getAllComponents().size();
+        Files.writeString(dir.resolve(CatalogSource.CATALOG_FILE), "{\"components\": [", StandardCharsets.UTF_8);
+
+        assertFalse(service.applyChanges(Set.of(CatalogSource.CATALOG_FILE)));
+
+        assertEquals(before, service.getAllComponents().size());
+        assertFalse(service.searchOnlyComponents("tabla", 5).isEmpty());
+    }
+
+    @Test
+    void shouldKeepPreviousCatalogWhenEditedCatalogFailsValidation() throws IOException {
+        int before = service.getAllComponents().size();
+        addComponent("poncho-table", "OtraTabla");
+
+        assertFalse(service.applyChanges(Set.of(CatalogSource.CATALOG_FILE)));
+
+        assertEquals(before, service.getAllComponents().size());
+        assertEquals("PonchoTable", service.getComponent("poncho-table").orElseThrow().name());
+        assertEquals(List.of(), events);
+    }
+
+    @Test
+    void shouldKeepPreviousCatalogWhenTemplateFileIsDeleted() throws IOException {
+        String templatePath = "pages/extra/turnos.html";
+        Path template = dir.resolve(templatePath);
+        Files.createDirectories(template.getParent());
+        Files.writeString(template, "<html><body><h1>Turnos</h1></body></html>", StandardCharsets.UTF_8);
+        Path json = dir.resolve(CatalogSource.CATALOG_FILE);
+        ObjectNode root = (ObjectNode) objectMapper.readTree(json.toFile());
+        ((ArrayNode) root.get("components")).addObject()
+            .put("id", "template-turnos")
+            .put("type", "template")
+            .put("name", "Turnos")
+            .put("category", "formularios")
+            .put("description", "Reserva de turnos")
+            .put("templatePath", templatePath);
+        Files.write(json, objectMapper.writeValueAsBytes(root));
+        assertTrue(service.applyChanges(Set.of(CatalogSource.CATALOG_FILE, templatePath)));
+
+        Files.delete(template);
+
+        assertFalse(service.applyChanges(Set.of(templatePath)));
+        assertTrue(service.getComponent("template-turnos").isPresent());
+    }
+
+    @Test
+    void shouldNotNotifyReloadWhenCatalogCannotBeLoaded() throws IOException {
+        int before = service.getAllComponents().size();
+        Files.writeString(dir.resolve(CatalogSource.CATALOG_FILE), "{\"components\": [", StandardCharsets.UTF_8);
+
+        assertFalse(service.reload());
+
+        assertEquals(List.of(), events);
+        assertEquals(before, service.getAllComponents().size());
+    }
+
+    @Test
+    void shouldReindexTemplateContentFromExternalDir() throws IOException {
+        assertTrue(service.searchOnlyTemplates("ornitorrinco", 5).isEmpty());
+        Path template = dir.resolve(TEMPLATE);
+        Files.createDirectories(template.getParent());
+        Files.writeString(template, "<html><body><h1>Reserva del ornitorrinco</h1></body></html>",
+            StandardCharsets.UTF_8);
+
+        assertTrue(service.applyChanges(Set.of(TEMPLATE)));
+
+        assertEquals("template-home", service.searchOnlyTemplates("ornitorrinco", 5).get(0).id());
+    }
+
+    @Test
+    void shouldIgnoreUnrelatedFiles() {
+        assertFalse(service.applyChanges(Set.of("notas.txt")));
+    }
+
+    @Test
+    void shouldPickUpChangesFromWatchedDirectory() throws Exception {
+        CatalogWatcher watcher = new CatalogWatcher(service, true, Duration.ofMillis(100));
+        watcher.start();
+        try {
+            addComponent("poncho-semaforo", "PonchoSemaforo");
+
+            assertTrue(await(() -> service.getComponent("poncho-semaforo").isPresent()),
+                "El cambio en components.json debe aplicarse sin reiniciar");
+        } finally {
+            watcher.stop();
+        }
+    }
+
+    @Test
+    void shouldApplyBatchWhileWritesKeepArriving() throws Exception {
+        Duration debounce = Duration.ofMillis(200);
+        CatalogWatcher watcher = new CatalogWatcher(service, true, debounce);
+        watcher.start();
+        Path noise = dir.resolve("pages/ruido.html");
+        Files.createDirectories(noise.getParent());
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                for (int i = 0; writing.get(); i++) {
+                    Files.writeString(noise, "<p>" + i + "</p>", StandardCharsets.UTF_8);
+                    Thread.sleep(50);
+                }
+            } catch (IOException | InterruptedException e) {
+                // fin del test
+            }
+        });
+        try {
+            addComponent("poncho-semaforo", "PonchoSemaforo");
+
+            // Las escrituras cada 50 ms nunca dejan pasar un debounce entero sin eventos
+            assertTrue(await(() -> service.getComponent("poncho-semaforo").isPresent(),
+                debounce.multipliedBy(CatalogWatcher.MAX_BATCH_DEBOUNCES * 5L)),
+                "El lote debe aplicarse aunque sigan llegando cambios");
+        } finally {
+            writing.set(false);
+            writer.join();
+            watcher.stop();
+        }
+    }
+
+    @Test
+    void shouldOnlyWatchCatalogFiles() {
+        assertTrue(CatalogSource.isCatalogFile("components.json"));
+        assertTrue(CatalogSource.isCatalogFile("pages/formularios/login.html"));
+        assertFalse(CatalogSource.isCatalogFile(".components.json.swp"));
+        assertFalse(CatalogSource.isCatalogFile("pages/formularios/login.html~"));
+        assertFalse(CatalogSource.isCatalogFile("notas/login.html"));
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        return await(condition, Duration.ofSeconds(10));
+    }
+
+    private static boolean await(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,49 @@
+package com.argendata.mcp.poncho.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodeGeneratorServiceTest {
+
+    private CodeGeneratorService codeGeneratorService;
+
+    @BeforeEach
+    void setUp() {
+        codeGeneratorService = new CodeGeneratorService();
+        codeGeneratorService.init();
+    }
+
+    @Test
+    void shouldRenderCompiledTemplates() {
+        String html = codeGeneratorService.generateSetup("Mi página", true, false).html();
+        
+        assertTrue(html.contains("Mi página"));
+        assertFalse(html.contains("Template no encontrado"));
+        assertFalse(html.contains("Error renderizando"));
+    }
+
+    @Test
+    void shouldRenderSameTemplateConcurrentlyFromVirtualThreads() throws Exception {
+        String expected = codeGeneratorService.generateHolidaysCalendar(2025, "es", "cal", "tpl").html();
+        
+        List<Future<String>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(() ->
+                    codeGeneratorService.generateHolidaysCalendar(2025, "es", "cal", "tpl").html()));
+            }
+        }
+        
+        for (Future<String> future : futures) {
+            assertEquals(expected, future.get());
+        }
+    }
+}
@@ -1,14 +1,25 @@
 package com.argendata.mcp.poncho.service;
 
 import com.argendata.mcp.poncho.model.ComponentSearchResult;
+import com.argendata.mcp.poncho.model.OptionSearchResult;
 import com.argendata.mcp.poncho.model.PonchoComponent;
+import com.argendata.mcp.poncho.model.PonchoComponent.ComponentOption;
+import com.argendata.mcp.poncho.model.SearchQuery;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -229,4 +240,205 @@ class DocumentationServiceTest {
         assertNotNull(results);
         // Debería encontrar templates de formularios
     }
+
+    @Test
+    void shouldReloadCatalogWithSameContent() {
+        int before = documentationService.getAllComponents().size();
+        
+        documentationService.reload();
+        
+        assertEquals(before, documentationService.getAllComponents().size());
+        assertFalse(documentationService.searchComponents("tabla", 5).isEmpty());
+    }
+
+    @Test
+    void shouldFindTemplatesByTextInTheirHtml() {
+        // "nacimiento" solo aparece en el HTML de los templates, no en components.json
+        Set<String> ids = documentationService.searchOnlyTemplates("fecha de nacimiento", 5).stream()
+            .map(ComponentSearchResult::id)
+            .collect(java.util.stream.Collectors.toSet());
+        
+        assertTrue(ids.contains("template-datos-personales"));
+        assertTrue(ids.contains("template-constancia-cuil"));
+    }
+
+    @Test
+    void shouldFindOptionsByNameAndDescription() {
+        List<OptionSearchResult> byDescription = documentationService.searchOptions("parámetros en la URL", 3);
+        assertFalse(byDescription.isEmpty());
+        assertEquals("poncho-table", byDescription.get(0).componentId());
+        assertEquals("urlParams", byDescription.get(0).optionName());
+        
+        List<OptionSearchResult> byName = documentationService.searchOptions("pushState", 3);
+        assertEquals("pushState", byName.get(0).optionName());
+        assertEquals("boolean", byName.get(0).type());
+    }
+
+    @Test
+    void shouldServeCompleteCatalogWhileReloading() {
+        int expected = documentationService.getAllComponents().size();
+        AtomicBoolean done = new AtomicBoolean();
+        Set<String> failures = ConcurrentHashMap.newKeySet();
+        
+        try (ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int r = 0; r < 4; r++) {
+                readers.submit(() -> {
+                    while (!done.get()) {
+                        if (documentationService.getAllComponents().size() != expected) {
+                            failures.add("listado incompleto");
+                        }
+                        if (documentationService.getComponent("poncho-table").isEmpty()) {
+                            failures.add("componente faltante");
+                        }
+                        if (documentationService.searchOnlyComponents("tabla", 3).isEmpty()) {
+                            failures.add("búsqueda vacía");
+                        }
+                    }
+                });
+            }
+            for (int i = 0; i < 5; i++) {
+                documentationService.reload();
+            }
+            done.set(true);
+        }
+        
+        assertEquals(Set.of(), failures);
+    }
+
+    @Test
+    void shouldShareCacheEntryForAccentAndCaseVariants() {
+        List<ComponentSearchResult> plain = documentationService.searchOnlyTemplates("pagina inicio", 3);
+        List<ComponentSearchResult> accented = documentationService.searchOnlyTemplates("Página Inicio", 3);
+        
+        assertEquals(plain, accented);
+    }
+
+    @Test
+    void shouldSearchTemplatesWithinCategory() {
+        List<ComponentSearchResult> results = documentationService.searchOnlyTemplates("formulario", "formularios", 10);
+        
+        assertFalse(results.isEmpty());
+        for (ComponentSearchResult result : results) {
+            PonchoComponent comp = documentationService.getComponent(result.id()).orElseThrow();
+            assertTrue(comp.isTemplate());
+            assertEquals("formularios", comp.category());
+        }
+    }
+    
+    @Test
+    void shouldApplyDeltaToIndexesAndCategoryMaps() {
+        // Instancia propia: el delta no debe alterar el catálogo compartido por los demás tests
+        DocumentationService service = new DocumentationService(new ObjectMapper(), new KeywordSearchService(),
+            new SearchResultCache(0, Duration.ZERO), event -> { }, null);
+        service.init();
+        PonchoComponent table = service.getComponent("poncho-table").orElseThrow();
+        PonchoComponent edited = new PonchoComponent(table.id(), table.type(), table.name(), "formularios",
+            table.description(), List.of("grilla", "semaforo"), table.dependencies(),
+            List.of(new ComponentOption("colorSemaforo", "string", false, null, "Color del semáforo")),
+            table.mainFunction(), table.mainClass(), table.mainObject(), table.usageExample(), table.templatePath());
+        PonchoComponent added = new PonchoComponent("poncho-semaforo", "component", "PonchoSemaforo", "data",
+            "Indicador de estado", List.of("estado"), null, List.of(), null, null, null, null, null);
+        int before = service.getAllComponents().size();
+        
+        assertTrue(service.applyDelta(List.of(edited, added), List.of("poncho-map")));
+        
+        assertEquals(before, service.getAllComponents().size());
+        assertTrue(service.getComponent("poncho-map").isEmpty());
+        assertTrue(service.searchComponents("PonchoMap leaflet", 10).stream()
+            .noneMatch(result -> result.id().equals("poncho-map")));
+        assertTrue(service.getComponentsByCategory("formularios").contains(edited));
+        assertTrue(service.getComponentsByCategory("data").contains(added));
+        assertTrue(service.getComponentsByCategory("data").stream()
+            .noneMatch(component -> component.id().equals("poncho-table")));
+        assertEquals("poncho-table", service.searchOnlyComponents("semaforo", "formularios", 5).get(0).id());
+        assertTrue(service.searchOnlyComponents("tabla", "data", 10).stream()
+            .noneMatch(result -> result.id().equals("poncho-table")));
+        assertEquals("colorSemaforo", service.searchOptions("color semaforo", 5).get(0).optionName());
+        assertTrue(service.searchOptions("ordenColumna", 5).stream()
+            .noneMatch(result -> result.componentId().equals("poncho-table")));
+        assertFalse(service.applyDelta(List.of(), List.of("inexistente")));
+    }
+
+    @Test
+    void shouldNotCacheResultsFromCatalogReplacedBeforeCacheLookup() {
+        AtomicReference<DocumentationService> service = new AtomicReference<>();
+        AtomicBoolean swap = new AtomicBoolean(true);
+        // Publica un catálogo sin poncho-table entre la lectura del catálogo y la consulta al cache
+        SearchResultCache cache = new SearchResultCache(100, Duration.ZERO) {
+            @Override
+            public List<ComponentSearchResult> get(Key key, long generation,
+                                                   Supplier<List<ComponentSearchResult>> search) {
+                if (swap.getAndSet(false)) {
+                    service.get().applyDelta(List.of(), List.of("poncho-table"));
+                }
+                return super.get(key, generation, search);
+            }
+        };
+        service.set(new DocumentationService(new ObjectMapper(), new KeywordSearchService(), cache,
+            event -> cache.onCatalogReloaded((CatalogReloadedEvent) event), null));
+        service.get().init();
+        
+        service.get().searchOnlyComponents("tabla", 10);
+        
+        assertTrue(service.get().searchOnlyComponents("tabla", 10).stream()
+            .noneMatch(result -> result.id().equals("poncho-table")));
+    }
+
+    @Test
+    void shouldRankCategoryPartitionLikeFilteredFullSearch() {
+        List<ComponentSearchResult> filtered = documentationService.searchComponents("tabla datos filtros", 50).stream()
+            .filter(result -> "tablas".equals(result.category()))
+            .toList();
+        
+        assertEquals(filtered, documentationService.searchComponents("tabla datos filtros", "tablas", 50));
+    }
+    
+    @Test
+    void shouldScorePartitionsWithStatisticsOfFullIndex() {
+        // Con BM25 el IDF depende del corpus: una partición debe puntuar igual que el índice completo
+        DocumentationService service = new DocumentationService(new ObjectMapper(),
+            new KeywordSearchService(KeywordSearchService.RankingMode.BM25, true, SynonymDictionary.bundled(), true, 20_000),
+            new SearchResultCache(0, Duration.ZERO), event -> { }, null);
+        service.init();
+        PonchoComponent added = new PonchoComponent("poncho-tabla-resumen", "component", "PonchoTablaResumen", "tablas",
+            "Tabla de datos con filtros y totales", List.of("tabla", "resumen"), null, List.of(), null, null, null, null,
+            null);
+        
+        for (int round = 0; round < 2; round++) {
+            List<ComponentSearchResult> all = service.searchComponents("tabla datos filtros", 100);
+            List<ComponentSearchResult> byCategory = all.stream()
+                .filter(result -> "tablas".equals(result.category()))
+                .toList();
+            List<ComponentSearchResult> components = all.stream()
+                .filter(result -> service.getComponent(result.id()).orElseThrow().isComponent())
+                .toList();
+            
+            assertFalse(byCategory.isEmpty());
+            assertFalse(components.isEmpty());
+            assertEquals(byCategory, service.searchComponents("tabla datos filtros", "tablas", 100));
+            assertEquals(components, service.searchOnlyComponents("tabla datos filtros", 100));
+            assertTrue(service.applyDelta(List.of(added), List.of()));
+        }
+    }
+    
+    @Test
+    void shouldReturnEmptyForUnknownCategoryPartition() {
+        assertTrue(documentationService.searchComponents("tabla", "categoria-inexistente", 5).isEmpty());
+    }
+
+    @Test
+    void shouldRunBatchSearchLikeIndividualSearches() {
+        List<List<ComponentSearchResult>> batch = documentationService.searchBatch(List.of(
+            new SearchQuery("tabla", null, null, 5),
+            new SearchQuery("formulario", "template", "formularios", 3),
+            new SearchQuery("mapa", "component", null, 2),
+            new SearchQuery("", null, null, 5)
+        ));
+        
+        assertEquals(4, batch.size());
+        assertEquals(documentationService.searchComponents("tabla", 5), batch.get(0));
+        assertEquals(documentationService.searchOnlyTemplates("formulario", "formularios", 3), batch.get(1));
+        assertEquals(documentationService.searchOnlyComponents("mapa", 2), batch.get(2));
+        assertTrue(batch.get(3).isEmpty());
+    }
 }
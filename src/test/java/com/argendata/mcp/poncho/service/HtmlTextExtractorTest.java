@@ -0,0 +1,63 @@
+package com.argendata.mcp.poncho.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HtmlTextExtractorTest {
+
+    private static String extract(String html) throws IOException {
+        return HtmlTextExtractor.extract(new StringReader(html));
+    }
+
+    @Test
+    void shouldExtractVisibleTextSeparatedByElements() throws IOException {
+        String text = extract("<table><tr><td>CUIL</td><td>DNI</td></tr></table><p>Fecha de <b>nacimiento</b></p>");
+        
+        assertEquals("CUIL DNI Fecha de nacimiento", text.replaceAll("\\s+", " "));
+    }
+
+    @Test
+    void shouldIncludeUserVisibleAttributes() throws IOException {
+        String text = extract("<input type=\"text\" placeholder=\"Ingresá tu CUIL\" class=\"form-control\">"
+            + "<button aria-label='Cerrar'></button><img src=\"logo.png\" alt=Escudo>");
+        
+        assertTrue(text.contains("Ingresá tu CUIL"));
+        assertTrue(text.contains("Cerrar"));
+        assertTrue(text.contains("Escudo"));
+        assertFalse(text.contains("form-control"));
+        assertFalse(text.contains("logo.png"));
+    }
+
+    @Test
+    void shouldSkipScriptsStylesAndComments() throws IOException {
+        String text = extract("<style>.x { color: red; }</style><!-- nota interna -->"
+            + "<script>if (a < b) { alert('hola'); }</SCRIPT><p>Visible</p><!DOCTYPE html>");
+        
+        assertEquals("Visible", text.strip());
+    }
+
+    @Test
+    void shouldCloseCommentEndingWithExtraDash() throws IOException {
+        String text = extract("<p>Antes</p><!-- nota interna ---><p>Después</p>");
+        
+        assertEquals("Antes Después", text.replaceAll("\\s+", " "));
+    }
+
+    @Test
+    void shouldCloseScriptAfterPartialEndTag() throws IOException {
+        String text = extract("<script>var tag = '</scr</script><p>Visible</p>");
+        
+        assertEquals("Visible", text.strip());
+    }
+
+    @Test
+    void shouldDecodeEntities() throws IOException {
+        String text = extract("<p>Informaci&oacute;n &amp; tr&aacute;mites&nbsp;&#65;&#x42;</p>");
+        
+        assertEquals("Informacion & tramites AB", text.strip());
+    }
+}
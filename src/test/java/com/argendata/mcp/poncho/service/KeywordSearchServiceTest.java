@@ -5,19 +5,25 @@ import com.argendata.mcp.poncho.service.KeywordSearchService.SearchableItem;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class KeywordSearchServiceTest {
 
     private KeywordSearchService searchService;
+    // Sin stemming ni sinónimos el scoring es el original, comparable con LegacyKeywordScorer
+    private KeywordSearchService unstemmedService;
     private List<SearchableItem> testItems;
 
     @BeforeEach
     void setUp() {
         searchService = new KeywordSearchService();
+        unstemmedService = new KeywordSearchService(KeywordSearchService.RankingMode.WEIGHTED, false,
+            SynonymDictionary.EMPTY, true, 20_000);
         
         testItems = List.of(
             new SearchableItem(
@@ -191,4 +197,235 @@ class KeywordSearchServiceTest {
             .anyMatch(r -> r.item().id().equals("template-home"));
         assertTrue(foundHome);
     }
+
+    @Test
+    void shouldReuseIndexAcrossQueries() {
+        SearchIndex index = searchService.buildIndex(testItems);
+        
+        assertEquals(testItems.size(), index.size());
+        assertEquals("poncho-table", searchService.search("tabla", index, 5).get(0).item().id());
+        assertEquals("poncho-map", searchService.search("Leaflet", index, 5).get(0).item().id());
+    }
+
+    @Test
+    void shouldApplyFilterOnIndexedSearch() {
+        SearchIndex index = searchService.buildIndex(testItems);
+        
+        List<SearchResult> results = searchService.search("login tabla", index, 5,
+            item -> "template".equals(item.type()));
+        
+        assertFalse(results.isEmpty());
+        assertTrue(results.stream().allMatch(r -> "template".equals(r.item().type())));
+    }
+
+    @Test
+    void shouldRankIdenticallyToFullScanOverCatalog() {
+        List<SearchableItem> catalog = LegacyKeywordScorer.loadCatalog();
+        SearchIndex index = unstemmedService.buildIndex(catalog);
+        
+        for (String query : List.of("tabla", "tabla filtros", "login", "a", "mapa interactivo",
+                "página de inicio", "formulario contacto consulta", "grilla datos", "!!!", "data",
+                "login acceso", "recuperar contraseña", "destacados números", "ponchotable", "map")) {
+            List<SearchResult> expected = LegacyKeywordScorer.search(query, catalog, 50);
+            List<SearchResult> actual = unstemmedService.search(query, index, 50);
+            
+            assertEquals(expected, actual, "Resultados distintos para: " + query);
+        }
+    }
+
+    @Test
+    void shouldAnalyzeItemFieldsOnce() {
+        SearchableItem analyzed = searchService.analyze(testItems.get(2));
+        
+        assertNotNull(analyzed.analyzed());
+        assertEquals("login", analyzed.analyzed().normalizedName());
+        assertEquals("login registro", analyzed.analyzed().normalizedCategory());
+        assertTrue(analyzed.analyzed().keywords().contains("iniciar sesion"));
+        assertTrue(analyzed.analyzed().keywords().contains("contrasena"));
+        assertSame(analyzed, searchService.analyze(analyzed), "Un item ya analizado no se vuelve a procesar");
+    }
+
+    @Test
+    void shouldRankIdenticallyWhenScoringInParallel() {
+        // Catálogo replicado: muchos empates exactos repartidos entre shards
+        List<SearchableItem> catalog = new ArrayList<>();
+        List<SearchableItem> base = LegacyKeywordScorer.loadCatalog();
+        for (int copy = 0; copy < 200; copy++) {
+            for (SearchableItem item : base) {
+                catalog.add(new SearchableItem(item.id() + "-" + copy, item.name(), item.category(),
+                    item.description(), item.keywords(), item.type(), item.metadata()));
+            }
+        }
+        KeywordSearchService sequential = new KeywordSearchService(KeywordSearchService.RankingMode.WEIGHTED, true,
+            SynonymDictionary.bundled(), false, 1);
+        KeywordSearchService parallel = new KeywordSearchService(KeywordSearchService.RankingMode.WEIGHTED, true,
+            SynonymDictionary.bundled(), true, 1);
+        SearchIndex index = sequential.buildIndex(catalog);
+        
+        for (String query : List.of("tabla filtros", "login", "formulario contacto consulta", "mapa")) {
+            assertEquals(sequential.search(query, index, 50), parallel.search(query, index, 50),
+                "Resultados distintos para: " + query);
+        }
+    }
+
+    @Test
+    void shouldCorrectMisspelledQueryTokens() {
+        SearchIndex index = searchService.buildIndex(LegacyKeywordScorer.loadCatalog());
+        
+        assertEquals(searchService.search("formulario", index, 5), searchService.search("formulraio", index, 5));
+        assertEquals(searchService.search("tabla", index, 5), searchService.search("tabal", index, 5));
+        assertEquals(searchService.search("formulario completo", index, 5),
+            searchService.search("formulraio completo", index, 5));
+    }
+    
+    @Test
+    void shouldReturnEmptyWhenMisspellingHasNoCorrection() {
+        SearchIndex index = searchService.buildIndex(LegacyKeywordScorer.loadCatalog());
+        
+        assertTrue(searchService.search("xyzqwerty", index, 5).isEmpty());
+    }
+
+    @Test
+    void shouldNotCorrectTokensKnownOnlyToSynonymDictionary() {
+        // "aviso" no aparece en el catálogo (la corrección más cercana sería "iso"), pero está en
+        // el grupo de "alerta", que coincide por stem con la keyword "alertas" de showdown-extensions
+        SearchIndex index = searchService.buildIndex(LegacyKeywordScorer.loadCatalog());
+        
+        assertTrue(index.spellingCorrections(Set.of("aviso", "avisos")).isEmpty());
+        assertTrue(searchService.search("aviso", index, 5).stream()
+            .anyMatch(r -> r.item().id().equals("showdown-extensions")));
+    }
+
+    @Test
+    void shouldRankIdenticallyToFullScanWithLargePostings() {
+        // Con 100 copias del catálogo las listas de postings superan el umbral de compresión
+        List<SearchableItem> catalog = new ArrayList<>();
+        List<SearchableItem> base = LegacyKeywordScorer.loadCatalog();
+        for (int copy = 0; copy < 100; copy++) {
+            for (SearchableItem item : base) {
+                catalog.add(new SearchableItem(item.id() + "-" + copy, item.name(), item.category(),
+                    item.description(), item.keywords(), item.type(), item.metadata()));
+            }
+        }
+        SearchIndex index = unstemmedService.buildIndex(catalog);
+        
+        for (String query : List.of("tabla filtros", "login acceso", "Formulario", "mapa interactivo", "!!!")) {
+            assertEquals(LegacyKeywordScorer.search(query, catalog, 30), unstemmedService.search(query, index, 30),
+                "Resultados distintos para: " + query);
+        }
+    }
+
+    @Test
+    void shouldMatchPluralVariantAsExactKeyword() {
+        SearchIndex index = searchService.buildIndex(testItems);
+        
+        List<SearchResult> plural = searchService.search("tablas", index, 5);
+        
+        assertEquals("poncho-table", plural.get(0).item().id());
+        assertEquals(searchService.search("tabla", index, 5).get(0).score(), plural.get(0).score(),
+            "\"tablas\" debe puntuar como la keyword exacta \"tabla\"");
+    }
+
+    @Test
+    void shouldMatchGenderVariantsOnlyWithStemming() {
+        // "interactivo" no contiene ni está contenido en "interactiva" (descripción de PonchoTable)
+        assertTrue(unstemmedService.search("interactivo", testItems, 5).stream()
+            .noneMatch(r -> r.item().id().equals("poncho-table")));
+        assertTrue(searchService.search("interactivo", testItems, 5).stream()
+            .anyMatch(r -> r.item().id().equals("poncho-table")));
+    }
+
+    @Test
+    void shouldResolveSynonymGroupMembersToSamePostings() {
+        SynonymDictionary synonyms = SynonymDictionary.parse(List.of("0.5 | tabla, spreadsheet, hojas"));
+        KeywordSearchService service = new KeywordSearchService(KeywordSearchService.RankingMode.WEIGHTED, true,
+            synonyms, false, 1);
+        SearchIndex index = service.buildIndex(testItems);
+        
+        List<SearchResult> results = service.search("spreadsheet", index, 5);
+        
+        assertEquals(1, results.size());
+        assertEquals("poncho-table", results.get(0).item().id());
+        assertEquals(3.0 * 0.5, results.get(0).score(), 1e-9, "Keyword exacta por el peso del grupo");
+        assertEquals(results, service.search("hojas", index, 5), "Los miembros del grupo comparten postings");
+    }
+
+    @Test
+    void shouldNotAddSynonymWeightWhenKeywordMatchesDirectly() {
+        SynonymDictionary synonyms = SynonymDictionary.parse(List.of("tabla, grilla"));
+        KeywordSearchService service = new KeywordSearchService(KeywordSearchService.RankingMode.WEIGHTED, true,
+            synonyms, false, 1);
+        
+        assertEquals(searchService.search("grilla", testItems, 5), service.search("grilla", testItems, 5));
+    }
+
+    @Test
+    void bm25ShouldWeighKeywordMatchesFromPostings() {
+        KeywordSearchService service = new KeywordSearchService(KeywordSearchService.RankingMode.BM25, true,
+            SynonymDictionary.EMPTY, false, 1);
+        SearchIndex index = service.buildIndex(List.of(
+            new SearchableItem("uno", "Uno", null, null, List.of("semaforo"), "component", Map.of()),
+            new SearchableItem("dos", "Dos", null, null, List.of("otro"), "component", Map.of())));
+        // Un item de dos con la keyword y campos de igual largo: el peso es el IDF, log(2)
+        double weight = Math.log(2);
+        
+        assertEquals(1.5 * weight, service.search("semaforo", index, 5).get(0).score(), 1e-9);
+        assertEquals(1.5 * weight * 2 / 3, service.search("sema", index, 5).get(0).score(), 1e-9);
+        assertEquals(1.5 * weight * 5 / 3, service.search("semaforo sema", index, 5).get(0).score(), 1e-9);
+    }
+
+    // Actualización incremental del índice
+
+    @Test
+    void incrementalUpdateShouldMatchFullRebuild() {
+        assertIncrementalUpdateMatchesFullRebuild(KeywordSearchService.RankingMode.WEIGHTED);
+    }
+
+    @Test
+    void incrementalBm25UpdateShouldMatchFullRebuild() {
+        // Las altas y bajas cambian IDF y largo promedio también para los items no modificados
+        assertIncrementalUpdateMatchesFullRebuild(KeywordSearchService.RankingMode.BM25);
+    }
+
+    private static void assertIncrementalUpdateMatchesFullRebuild(KeywordSearchService.RankingMode mode) {
+        KeywordSearchService service = new KeywordSearchService(mode, true, SynonymDictionary.bundled(), false,
+            1, 1.0);
+        List<SearchableItem> catalog = LegacyKeywordScorer.loadCatalog();
+        SearchIndex index = service.buildIndex(catalog);
+        
+        SearchableItem removed = catalog.get(0);
+        SearchableItem original = catalog.get(3);
+        SearchableItem edited = new SearchableItem(original.id(), original.name(), original.category(),
+            "Agenda de turnos con franjas horarias", List.of("turnos", "agenda", "tabla"), original.type(),
+            original.metadata());
+        SearchableItem added = new SearchableItem("poncho-turnero", "PonchoTurnero", "data",
+            "Reserva de turnos online", List.of("turnos", "reserva"), "component", Map.of());
+        SearchIndex updated = service.update(index, List.of(removed.id()), List.of(edited, added));
+        SearchIndex rebuilt = service.buildIndex(updated.items());
+        
+        assertEquals(catalog.size(), updated.size());
+        assertTrue(updated.fragmentation() > 0);
+        for (String query : List.of(removed.name(), original.name(), "turnos", "agenda", "tabla filtros",
+                "formulraio", "mapa", "login contraseña", String.join(" ", original.keywords()))) {
+            assertEquals(service.search(query, rebuilt, 20), service.search(query, updated, 20),
+                "Resultados distintos para: " + query);
+        }
+    }
+
+    @Test
+    void updateShouldRebuildWhenFragmentationExceedsThreshold() {
+        KeywordSearchService service = new KeywordSearchService(KeywordSearchService.RankingMode.BM25, true,
+            SynonymDictionary.EMPTY, false, 1, 0.25);
+        SearchIndex index = service.buildIndex(testItems);
+        
+        SearchIndex incremental = service.update(index, List.of("poncho-map"), List.of());
+        assertEquals(0.25, incremental.fragmentation());
+        assertEquals(3, incremental.size());
+        assertTrue(service.search("leaflet", incremental, 5).isEmpty());
+        
+        SearchIndex rebuilt = service.update(incremental, List.of("template-login"), List.of());
+        assertEquals(0.0, rebuilt.fragmentation());
+        assertEquals(List.of("poncho-table", "template-home"),
+            rebuilt.items().stream().map(SearchableItem::id).toList());
+    }
 }
@@ -0,0 +1,173 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.service.KeywordSearchService.SearchResult;
+import com.argendata.mcp.poncho.service.KeywordSearchService.SearchableItem;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación de referencia del scorer original (recorrido completo del catálogo).
+ * Se usa en tests para verificar que las optimizaciones del índice no cambian los resultados.
+ */
+final class LegacyKeywordScorer {
+
+    private static final Pattern DIACRITICS_PATTERN = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "de", "la", "el", "en", "y", "los", "las", "del", "un", "una",
+        "con", "para", "por", "es", "al", "se", "que", "su", "o", "como",
+        "the", "an", "and", "or", "of", "to", "in", "for", "on", "with"
+    );
+
+    private LegacyKeywordScorer() {}
+
+    static List<SearchResult> search(String query, List<SearchableItem> items, int maxResults) {
+        if (query == null || query.isBlank()) {
+            return Collections.emptyList();
+        }
+        Set<String> queryTokens = tokenize(query);
+        return items.stream()
+            .map(item -> new SearchResult(item, score(queryTokens, query, item)))
+            .filter(result -> result.score() > 0)
+            .sorted()
+            .limit(maxResults)
+            .collect(Collectors.toList());
+    }
+
+    static double score(Set<String> queryTokens, String originalQuery, SearchableItem item) {
+        double score = 0.0;
+        score += keywordScore(queryTokens, item.keywords());
+        score += nameScore(queryTokens, originalQuery, item.name());
+        score += descriptionScore(queryTokens, item.description());
+        score += categoryScore(queryTokens, item.category());
+        return score;
+    }
+
+    private static double keywordScore(Set<String> queryTokens, List<String> keywords) {
+        if (keywords == null || keywords.isEmpty()) {
+            return 0.0;
+        }
+        double score = 0.0;
+        Set<String> normalizedKeywords = keywords.stream()
+            .map(LegacyKeywordScorer::normalize)
+            .collect(Collectors.toSet());
+        for (String queryToken : queryTokens) {
+            if (normalizedKeywords.contains(queryToken)) {
+                score += 3.0;
+                continue;
+            }
+            for (String keyword : normalizedKeywords) {
+                if (keyword.contains(queryToken) || queryToken.contains(keyword)) {
+                    score += 2.0;
+                    break;
+                }
+            }
+        }
+        return score;
+    }
+
+    private static double nameScore(Set<String> queryTokens, String originalQuery, String name) {
+        if (name == null || name.isBlank()) {
+            return 0.0;
+        }
+        String normalizedName = normalize(name);
+        String normalizedQuery = normalize(originalQuery);
+        if (normalizedName.equals(normalizedQuery)) {
+            return 2.5 * 2;
+        }
+        if (normalizedName.contains(normalizedQuery)) {
+            return 2.5 * 1.5;
+        }
+        Set<String> nameTokens = tokenize(name);
+        long matches = queryTokens.stream()
+            .filter(qt -> nameTokens.stream().anyMatch(nt -> nt.contains(qt) || qt.contains(nt)))
+            .count();
+        return matches > 0 ? 2.5 * ((double) matches / queryTokens.size()) : 0.0;
+    }
+
+    private static double descriptionScore(Set<String> queryTokens, String description) {
+        if (description == null || description.isBlank()) {
+            return 0.0;
+        }
+        Set<String> descTokens = tokenize(description);
+        long matches = queryTokens.stream()
+            .filter(qt -> descTokens.stream().anyMatch(dt -> dt.contains(qt) || qt.contains(dt)))
+            .count();
+        return matches > 0 ? 1.0 * ((double) matches / queryTokens.size()) : 0.0;
+    }
+
+    private static double categoryScore(Set<String> queryTokens, String category) {
+        if (category == null || category.isBlank()) {
+            return 0.0;
+        }
+        String normalizedCategory = normalize(category);
+        Set<String> categoryTokens = tokenize(category);
+        for (String queryToken : queryTokens) {
+            if (normalizedCategory.contains(queryToken) ||
+                categoryTokens.stream().anyMatch(ct -> ct.contains(queryToken))) {
+                return 1.5;
+            }
+        }
+        return 0.0;
+    }
+
+    static Set<String> tokenize(String text) {
+        return new HashSet<>(tokenList(text));
+    }
+
+    static List<String> tokenList(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(normalize(text).split("\\s+"))
+            .filter(token -> token.length() > 1)
+            .filter(token -> !STOP_WORDS.contains(token))
+            .collect(Collectors.toList());
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String result = text.toLowerCase();
+        result = Normalizer.normalize(result, Normalizer.Form.NFD);
+        result = DIACRITICS_PATTERN.matcher(result).replaceAll("");
+        result = result.replaceAll("[-_]", " ");
+        result = result.replaceAll("[^a-z0-9\\s]", "");
+        return result.trim();
+    }
+
+    /**
+     * Carga el catálogo real de components.json como items buscables
+     */
+    static List<SearchableItem> loadCatalog() {
+        try (InputStream is = LegacyKeywordScorer.class.getClassLoader()
+                .getResourceAsStream("docs/components.json")) {
+            JsonNode root = new ObjectMapper().readTree(is);
+            List<SearchableItem> items = new ArrayList<>();
+            for (JsonNode node : root.get("components")) {
+                List<String> keywords = new ArrayList<>();
+                node.path("keywords").forEach(k -> keywords.add(k.asText()));
+                items.add(new SearchableItem(
+                    node.get("id").asText(),
+                    node.get("name").asText(),
+                    node.get("category").asText(),
+                    node.get("description").asText(),
+                    keywords,
+                    node.path("type").asText("component"),
+                    Map.of()
+                ));
+            }
+            return items;
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo leer components.json", e);
+        }
+    }
+}
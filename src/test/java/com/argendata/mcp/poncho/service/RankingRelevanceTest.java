@@ -0,0 +1,127 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.service.KeywordSearchService.RankingMode;
+import com.argendata.mcp.poncho.service.KeywordSearchService.SearchResult;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Evaluación offline de relevancia sobre el catálogo real: compara el ranking BM25
+ * contra el ponderado con el set de consultas de {@code relevance/queries.tsv}.
+ */
+class RankingRelevanceTest {
+
+    private static final int CUTOFF = 3;
+
+    private static SearchIndex index;
+    private static Map<String, Set<String>> judgements;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        index = new KeywordSearchService().buildIndex(LegacyKeywordScorer.loadCatalog());
+        judgements = loadJudgements();
+    }
+
+    @Test
+    void bm25ShouldBeAtLeastAsRelevantAsWeighted() {
+        double weighted = meanReciprocalRank(RankingMode.WEIGHTED);
+        double bm25 = meanReciprocalRank(RankingMode.BM25);
+        
+        assertTrue(weighted > 0.6, "MRR ponderado: " + weighted);
+        assertTrue(bm25 >= weighted, "MRR BM25 " + bm25 + " < ponderado " + weighted);
+    }
+
+    @Test
+    void bm25ShouldRankRelevantItemsHigherOnAverage() {
+        double weighted = meanAveragePrecision(RankingMode.WEIGHTED);
+        double bm25 = meanAveragePrecision(RankingMode.BM25);
+        
+        assertTrue(bm25 >= weighted, "MAP BM25 " + bm25 + " < ponderado " + weighted);
+    }
+
+    @Test
+    void bm25ShouldFindRelevantItemInTopResultsForEveryQuery() {
+        KeywordSearchService service = new KeywordSearchService(RankingMode.BM25, true, SynonymDictionary.bundled(), false, 1);
+        
+        judgements.forEach((query, relevant) -> {
+            List<String> top = service.search(query, index, CUTOFF).stream()
+                .map(result -> result.item().id())
+                .toList();
+            assertTrue(top.stream().anyMatch(relevant::contains), query + " -> " + top);
+        });
+    }
+
+    @Test
+    void bm25ShouldReturnSameCandidatesAsWeighted() {
+        KeywordSearchService weighted = new KeywordSearchService(RankingMode.WEIGHTED, true, SynonymDictionary.bundled(), false, 1);
+        KeywordSearchService bm25 = new KeywordSearchService(RankingMode.BM25, true, SynonymDictionary.bundled(), false, 1);
+        
+        for (String query : judgements.keySet()) {
+            assertEquals(ids(weighted.search(query, index, 100)), ids(bm25.search(query, index, 100)),
+                "El modo de ranking no debe cambiar qué items coinciden: " + query);
+        }
+    }
+
+    private double meanReciprocalRank(RankingMode mode) {
+        KeywordSearchService service = new KeywordSearchService(mode, true, SynonymDictionary.bundled(), false, 1);
+        double sum = 0.0;
+        for (Map.Entry<String, Set<String>> entry : judgements.entrySet()) {
+            List<SearchResult> results = service.search(entry.getKey(), index, 10);
+            for (int rank = 0; rank < results.size(); rank++) {
+                if (entry.getValue().contains(results.get(rank).item().id())) {
+                    sum += 1.0 / (rank + 1);
+                    break;
+                }
+            }
+        }
+        return sum / judgements.size();
+    }
+
+    private double meanAveragePrecision(RankingMode mode) {
+        KeywordSearchService service = new KeywordSearchService(mode, true, SynonymDictionary.bundled(), false, 1);
+        double sum = 0.0;
+        for (Map.Entry<String, Set<String>> entry : judgements.entrySet()) {
+            List<SearchResult> results = service.search(entry.getKey(), index, 10);
+            int found = 0;
+            double precisionSum = 0.0;
+            for (int rank = 0; rank < results.size(); rank++) {
+                if (entry.getValue().contains(results.get(rank).item().id())) {
+                    found++;
+                    precisionSum += (double) found / (rank + 1);
+                }
+            }
+            sum += precisionSum / entry.getValue().size();
+        }
+        return sum / judgements.size();
+    }
+
+    private static Set<String> ids(List<SearchResult> results) {
+        Set<String> ids = new HashSet<>();
+        results.forEach(result -> ids.add(result.item().id()));
+        return ids;
+    }
+
+    private static Map<String, Set<String>> loadJudgements() throws IOException {
+        Map<String, Set<String>> result = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                RankingRelevanceTest.class.getResourceAsStream("/relevance/queries.tsv"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\t");
+                result.put(parts[0], Set.of(parts[1].split(",")));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,123 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.service.SearchIndex.FieldPostings;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    private static final String[] SYLLABLES = {"ta", "bla", "for", "mu", "la", "rio", "ma", "pa", "con", "sul", "a", "e"};
+
+    @Test
+    void trigramMatchingShouldEqualVocabularyScan() {
+        Random random = new Random(7);
+        FieldPostings.Builder builder = new FieldPostings.Builder();
+        for (int ordinal = 0; ordinal < 2_000; ordinal++) {
+            builder.add(word(random), ordinal);
+            builder.add(word(random) + " " + word(random), ordinal);
+        }
+        builder.add("", 2_000);
+        FieldPostings postings = builder.build();
+        
+        for (int i = 0; i < 500; i++) {
+            String token = i % 5 == 0 ? SYLLABLES[random.nextInt(SYLLABLES.length)] : word(random);
+            assertMatchesEqual(postings, token);
+        }
+    }
+
+    @Test
+    void shouldMatchTermsContainedInToken() {
+        FieldPostings.Builder builder = new FieldPostings.Builder();
+        builder.add("form", 0);
+        builder.add("formulario", 1);
+        builder.add("iniciar sesion", 2);
+        FieldPostings postings = builder.build();
+        
+        BitSet matches = new BitSet();
+        postings.collectMatches("formularios", matches);
+        
+        assertEquals(BitSet.valueOf(new long[] {0b11}), matches);
+        assertTrue(postings.anyContains("sesion"));
+        assertFalse(postings.anyContains("sesiones"));
+    }
+
+    @Test
+    void shouldRoundTripPackedPostings() {
+        FieldPostings.Builder builder = new FieldPostings.Builder();
+        int[] expected = new int[1_000];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = i * 37 + (i % 3) * 100_000;
+        }
+        Arrays.sort(expected);
+        for (int ordinal : expected) {
+            builder.add("tabla", ordinal);
+        }
+        FieldPostings postings = builder.build();
+        
+        int[] buffer = new int[expected.length];
+        int count = postings.load(postings.termId("tabla"), buffer);
+        
+        assertEquals(expected.length, count);
+        assertArrayEquals(expected, buffer);
+    }
+
+    @Test
+    void appliedChangesShouldMatchRebuiltPostings() {
+        Random random = new Random(11);
+        String[][] words = new String[1_100][];
+        for (int ordinal = 0; ordinal < words.length; ordinal++) {
+            words[ordinal] = new String[] {word(random), word(random)};
+        }
+        FieldPostings.Builder base = new FieldPostings.Builder();
+        FieldPostings.Builder removed = new FieldPostings.Builder();
+        FieldPostings.Builder added = new FieldPostings.Builder();
+        FieldPostings.Builder expected = new FieldPostings.Builder();
+        for (int ordinal = 0; ordinal < words.length; ordinal++) {
+            boolean isAdded = ordinal >= 1_000;
+            boolean isRemoved = !isAdded && ordinal % 7 == 0;
+            for (String word : words[ordinal]) {
+                (isAdded ? added : base).add(word, ordinal);
+                if (isRemoved) {
+                    removed.add(word, ordinal);
+                } else {
+                    expected.add(word, ordinal);
+                }
+            }
+        }
+        
+        FieldPostings applied = base.build().apply(removed, added);
+        FieldPostings rebuilt = expected.build();
+        
+        for (int i = 0; i < 300; i++) {
+            String token = i % 5 == 0 ? SYLLABLES[random.nextInt(SYLLABLES.length)] : word(random);
+            BitSet expectedMatches = new BitSet();
+            BitSet actualMatches = new BitSet();
+            rebuilt.collectMatches(token, expectedMatches);
+            applied.collectMatches(token, actualMatches);
+            assertEquals(expectedMatches, actualMatches, "Coincidencias distintas para: " + token);
+            assertEquals(rebuilt.anyContains(token), applied.anyContains(token));
+        }
+    }
+
+    private static void assertMatchesEqual(FieldPostings postings, String token) {
+        BitSet expected = new BitSet();
+        BitSet actual = new BitSet();
+        postings.collectMatchesByScan(token, expected);
+        postings.collectMatches(token, actual);
+        assertEquals(expected, actual, "Coincidencias distintas para: " + token);
+    }
+
+    private static String word(Random random) {
+        StringBuilder word = new StringBuilder();
+        int syllables = 1 + random.nextInt(4);
+        for (int s = 0; s < syllables; s++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return word.toString();
+    }
+}
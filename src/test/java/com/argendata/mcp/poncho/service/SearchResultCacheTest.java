@@ -0,0 +1,79 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.model.ComponentSearchResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchResultCacheTest {
+
+    private static final List<ComponentSearchResult> RESULTS =
+        List.of(new ComponentSearchResult("poncho-table", "PonchoTable", "data", "Tabla", 3.0));
+
+    @Test
+    void shouldServeRepeatedQueriesFromCache() {
+        SearchResultCache cache = new SearchResultCache(10, Duration.ofMinutes(1));
+        AtomicInteger searches = new AtomicInteger();
+        SearchResultCache.Key key = new SearchResultCache.Key("tabla", "all", 5);
+        
+        cache.get(key, () -> { searches.incrementAndGet(); return RESULTS; });
+        List<ComponentSearchResult> cached = cache.get(key, () -> { searches.incrementAndGet(); return RESULTS; });
+        
+        assertEquals(RESULTS, cached);
+        assertEquals(1, searches.get());
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntry() {
+        SearchResultCache cache = new SearchResultCache(2, Duration.ZERO);
+        SearchResultCache.Key a = new SearchResultCache.Key("a", "all", 5);
+        SearchResultCache.Key b = new SearchResultCache.Key("b", "all", 5);
+        SearchResultCache.Key c = new SearchResultCache.Key("c", "all", 5);
+        
+        cache.get(a, () -> RESULTS);
+        cache.get(b, () -> RESULTS);
+        cache.get(a, () -> RESULTS);
+        cache.get(c, () -> RESULTS);
+        
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(2, cache.stats().size());
+        AtomicInteger searches = new AtomicInteger();
+        cache.get(b, () -> { searches.incrementAndGet(); return RESULTS; });
+        assertEquals(1, searches.get(), "b era el menos usado y debió ser desalojado");
+    }
+
+    @Test
+    void shouldExpireEntriesAfterTtl() throws InterruptedException {
+        SearchResultCache cache = new SearchResultCache(10, Duration.ofMillis(1));
+        SearchResultCache.Key key = new SearchResultCache.Key("tabla", "all", 5);
+        cache.get(key, () -> RESULTS);
+        
+        Thread.sleep(5);
+        AtomicInteger searches = new AtomicInteger();
+        cache.get(key, () -> { searches.incrementAndGet(); return RESULTS; });
+        
+        assertEquals(1, searches.get());
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void shouldNotStoreResultsComputedBeforeInvalidation() {
+        SearchResultCache cache = new SearchResultCache(10, Duration.ZERO);
+        SearchResultCache.Key key = new SearchResultCache.Key("tabla", "all", 5);
+        
+        // El catálogo se recarga mientras la búsqueda todavía usa el anterior
+        List<ComponentSearchResult> stale = cache.get(key, () -> { cache.invalidate(); return RESULTS; });
+        
+        assertEquals(RESULTS, stale);
+        assertEquals(0, cache.stats().size());
+        AtomicInteger searches = new AtomicInteger();
+        cache.get(key, () -> { searches.incrementAndGet(); return List.of(); });
+        assertEquals(1, searches.get(), "La búsqueda debe recalcularse con el catálogo nuevo");
+    }
+}
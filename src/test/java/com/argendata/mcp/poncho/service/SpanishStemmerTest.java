@@ -0,0 +1,35 @@
+package com.argendata.mcp.poncho.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpanishStemmerTest {
+
+    @Test
+    void shouldUnifyPluralAndGender() {
+        assertEquals(SpanishStemmer.stem("tabla"), SpanishStemmer.stem("tablas"));
+        assertEquals(SpanishStemmer.stem("formulario"), SpanishStemmer.stem("formularios"));
+        assertEquals(SpanishStemmer.stem("interactivo"), SpanishStemmer.stem("interactiva"));
+        assertEquals(SpanishStemmer.stem("imagen"), SpanishStemmer.stem("imagenes"));
+    }
+
+    @Test
+    void shouldHandleSpecialPluralEndings() {
+        assertEquals("luz", SpanishStemmer.stem("luces"));
+        assertEquals("mes", SpanishStemmer.stem("meses"));
+    }
+
+    @Test
+    void shouldKeepShortWords() {
+        assertEquals("mapa", SpanishStemmer.stem("mapa"));
+        assertEquals("dni", SpanishStemmer.stem("dni"));
+        assertEquals("", SpanishStemmer.stem(""));
+    }
+
+    @Test
+    void shouldStemEachWordOfPhrase() {
+        assertEquals("column combinad", SpanishStemmer.stemPhrase("columnas combinadas"));
+        assertEquals(SpanishStemmer.stem("filtros"), SpanishStemmer.stemPhrase("filtros"));
+    }
+}
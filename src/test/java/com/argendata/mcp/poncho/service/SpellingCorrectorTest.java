@@ -0,0 +1,58 @@
+package com.argendata.mcp.poncho.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpellingCorrectorTest {
+
+    private final SpellingCorrector corrector = SpellingCorrector.build(Map.of(
+        "formulario", 6, "tabla", 5, "tablas", 1, "contrasena", 3, "mapa", 5, "datos", 4
+    ));
+
+    @Test
+    void shouldCorrectTransposition() {
+        assertEquals(Optional.of("formulario"), corrector.correct("formulraio"));
+        assertEquals(Optional.of("tabla"), corrector.correct("tabal"));
+    }
+
+    @Test
+    void shouldCorrectInsertionsAndDeletions() {
+        assertEquals(Optional.of("contrasena"), corrector.correct("contrasna"));
+        assertEquals(Optional.of("formulario"), corrector.correct("formullarioo"));
+    }
+
+    @Test
+    void shouldPreferMoreFrequentTermOnEqualDistance() {
+        // "tabls" está a distancia 1 de "tabla" y de "tablas"
+        assertEquals(Optional.of("tabla"), corrector.correct("tabls"));
+    }
+
+    @Test
+    void shouldNotCorrectKnownShortOrDistantWords() {
+        assertTrue(corrector.correct("tabla").isEmpty());
+        assertTrue(corrector.correct("map").isEmpty());
+        assertTrue(corrector.correct("xyzcomponente").isEmpty());
+    }
+
+    @Test
+    void shouldComputeRestrictedDamerauDistance() {
+        assertEquals(1, SpellingCorrector.distance("tabal", "tabla", 2));
+        assertEquals(2, SpellingCorrector.distance("frmulrio", "formulario", 2));
+        assertEquals(3, SpellingCorrector.distance("abcdef", "ghijkl", 2));
+    }
+
+    @Test
+    void shouldApplyVocabularyChanges() {
+        SpellingCorrector updated = corrector.withChanges(Map.of("mapa", -5, "calendario", 2));
+        
+        assertFalse(updated.isKnown("mapa"));
+        assertTrue(updated.isKnown("calendario"));
+        assertEquals(Optional.of("calendario"), updated.correct("calendraio"));
+        assertNotEquals(Optional.of("mapa"), updated.correct("mapas"));
+        assertEquals(Optional.of("tabla"), updated.correct("tabls"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.argendata.mcp.poncho.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SynonymDictionaryTest {
+
+    @Test
+    void shouldParseGroupsWithOptionalWeight() {
+        SynonymDictionary dictionary = SynonymDictionary.parse(List.of(
+            "# comentario",
+            "",
+            "Tabla, grilla, DataTable",
+            "0.5 | calendario, agenda"
+        ));
+        
+        assertEquals(2, dictionary.groupCount());
+        int[] tableGroups = dictionary.groupsOf("datatable");
+        assertEquals(1, tableGroups.length);
+        assertEquals(SynonymDictionary.DEFAULT_WEIGHT, dictionary.weight(tableGroups[0]));
+        assertEquals(0.5, dictionary.weight(dictionary.groupsOf("agenda")[0]));
+        assertEquals(0, dictionary.groupsOf("mapa").length);
+    }
+
+    @Test
+    void shouldNormalizeTermsAndMatchByStem() {
+        SynonymDictionary dictionary = SynonymDictionary.parse(List.of("contraseña, clave"));
+        
+        assertEquals(1, dictionary.groupsOf("contrasena").length);
+        assertEquals(1, dictionary.groupsOfStem(SpanishStemmer.stem("claves")).length);
+    }
+
+    @Test
+    void shouldOrderGroupsByDescendingWeight() {
+        SynonymDictionary dictionary = SynonymDictionary.parse(List.of("0.4 | mapa, plano", "0.9 | mapa, map"));
+        
+        int[] groups = dictionary.groupsOf("mapa");
+        assertEquals(0.9, dictionary.weight(groups[0]));
+        assertEquals(0.4, dictionary.weight(groups[1]));
+    }
+
+    @Test
+    void shouldRejectWeightOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> SynonymDictionary.parse(List.of("1.5 | a1, b1")));
+    }
+
+    @Test
+    void shouldLoadExternalFileOrFallBackToBundled(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("sinonimos.txt");
+        Files.writeString(file, "boton, button, cta\n");
+        
+        assertEquals(1, SynonymDictionary.load(file.toString()).groupCount());
+        assertEquals(SynonymDictionary.bundled().groupCount(),
+            SynonymDictionary.load(dir.resolve("no-existe.txt").toString()).groupCount());
+        assertTrue(SynonymDictionary.bundled().groupCount() > 0);
+    }
+}
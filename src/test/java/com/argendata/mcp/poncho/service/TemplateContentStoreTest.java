@@ -0,0 +1,47 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.model.CacheStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateContentStoreTest {
+
+    private static final String FORMULARIO = "pages/formularios/formulario_completo.html";
+
+    @Test
+    void shouldReadTemplateOnlyOnceWhenLazy() {
+        TemplateContentStore store = new TemplateContentStore(false);
+        store.init();
+        
+        Optional<String> first = store.getContent(FORMULARIO);
+        Optional<String> second = store.getContent(FORMULARIO);
+        
+        assertTrue(first.isPresent());
+        assertSame(first.get(), second.get(), "La segunda lectura debe salir del cache");
+        CacheStats stats = store.stats();
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.size());
+    }
+
+    @Test
+    void shouldPreloadAllTemplatesWhenEager() {
+        TemplateContentStore store = new TemplateContentStore(true);
+        store.init();
+        
+        assertTrue(store.stats().size() > 30, "Debe precargar todas las plantillas de pages/");
+        assertTrue(store.getContent(FORMULARIO).isPresent());
+        assertEquals(0, store.stats().misses(), "Con precarga no debe haber lecturas del jar por request");
+    }
+
+    @Test
+    void shouldReturnEmptyForMissingTemplate() {
+        TemplateContentStore store = new TemplateContentStore(false);
+        
+        assertTrue(store.getContent("pages/inexistente/nada.html").isEmpty());
+        assertEquals(0, store.stats().size());
+    }
+}
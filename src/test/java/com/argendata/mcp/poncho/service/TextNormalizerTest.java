@@ -0,0 +1,78 @@
+package com.argendata.mcp.poncho.service;
+
+import com.argendata.mcp.poncho.service.KeywordSearchService.SearchableItem;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compatibilidad del normalizador por tabla con la normalización original (regex + NFD)
+ */
+class TextNormalizerTest {
+
+    private static final String FUZZ_ALPHABET =
+        "abcxyzABCXYZ0189 áéíóúüñÁÉÍÓÚÜÑàèçÇãõâêô-_.,;:!¡?¿()\"'#@/\\\t\n\r\u000B\f  " +
+        "́̃̈İıKﬁ½²ªº€ßÆæØøŁłĐđ漢字ДжΣσς😀￿\u0000";
+
+    @Test
+    void shouldMatchOriginalForEveryCharacter() {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            String text = "a" + (char) c + "b";
+            assertEquals(LegacyKeywordScorer.normalize(text), TextNormalizer.normalize(text),
+                "Carácter U+" + Integer.toHexString(c));
+        }
+    }
+
+    @Test
+    void shouldMatchOriginalOverCatalog() {
+        for (SearchableItem item : LegacyKeywordScorer.loadCatalog()) {
+            List<String> texts = new ArrayList<>(List.of(item.id(), item.name(), item.category(), item.description()));
+            texts.addAll(item.keywords());
+            texts.forEach(TextNormalizerTest::assertCompatible);
+        }
+    }
+
+    @Test
+    void shouldMatchOriginalOverTemplateHtml() throws IOException {
+        Resource[] pages = new PathMatchingResourcePatternResolver().getResources("classpath*:templates/pages/**/*.html");
+        assertTrue(pages.length > 0);
+        for (Resource page : pages) {
+            assertCompatible(page.getContentAsString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void shouldMatchOriginalOnFuzzCorpus() {
+        Random random = new Random(2024);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int j = 0; j < length; j++) {
+                text.append(FUZZ_ALPHABET.charAt(random.nextInt(FUZZ_ALPHABET.length())));
+            }
+            assertCompatible(text.toString());
+        }
+    }
+
+    @Test
+    void shouldHandleNullAndReuseNormalizedInput() {
+        assertEquals("", TextNormalizer.normalize(null));
+        assertTrue(TextNormalizer.tokenList(null).isEmpty());
+        String normalized = "tabla con filtros";
+        assertSame(normalized, TextNormalizer.normalize(normalized));
+    }
+
+    private static void assertCompatible(String text) {
+        assertEquals(LegacyKeywordScorer.normalize(text), TextNormalizer.normalize(text), text);
+        assertEquals(LegacyKeywordScorer.tokenList(text), TextNormalizer.tokenList(text), text);
+        assertEquals(LegacyKeywordScorer.tokenize(text), TextNormalizer.tokenize(text), text);
+    }
+}
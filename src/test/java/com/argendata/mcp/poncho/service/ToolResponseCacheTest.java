@@ -0,0 +1,55 @@
+package com.argendata.mcp.poncho.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolResponseCacheTest {
+
+    @Test
+    void shouldRenderOncePerToolAndArguments() {
+        ToolResponseCache cache = new ToolResponseCache(100);
+        AtomicInteger renders = new AtomicInteger();
+        
+        String first = cache.get("listar_componentes", () -> "data-" + renders.incrementAndGet(), "data");
+        String second = cache.get("listar_componentes", () -> "data-" + renders.incrementAndGet(), "data");
+        String other = cache.get("listar_componentes", () -> "maps-" + renders.incrementAndGet(), "maps");
+        
+        assertEquals("data-1", first);
+        assertEquals(first, second);
+        assertEquals("maps-2", other);
+        assertEquals(1, cache.stats().hits());
+        assertEquals(2, cache.stats().misses());
+    }
+
+    @Test
+    void shouldTreatNullArgumentAsEmpty() {
+        ToolResponseCache cache = new ToolResponseCache(100);
+        
+        cache.get("listar_componentes", () -> "todos", (String) null);
+        
+        assertEquals("todos", cache.get("listar_componentes", () -> "otro", ""));
+    }
+
+    @Test
+    void shouldInvalidateOnCatalogReload() {
+        ToolResponseCache cache = new ToolResponseCache(100);
+        cache.get("listar_temas_mapa", () -> "v1");
+        
+        cache.onCatalogReloaded(new CatalogReloadedEvent(10));
+        
+        assertEquals("v2", cache.get("listar_temas_mapa", () -> "v2"));
+    }
+
+    @Test
+    void shouldNotStoreBeyondMaxEntries() {
+        ToolResponseCache cache = new ToolResponseCache(1);
+        cache.get("obtener_documentacion", () -> "a", "a");
+        
+        assertEquals("b", cache.get("obtener_documentacion", () -> "b", "b"));
+        assertEquals("c", cache.get("obtener_documentacion", () -> "c", "b"));
+        assertEquals(1, cache.stats().size());
+    }
+}
@@ -0,0 +1,73 @@
+package com.argendata.mcp.poncho.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKCollectorTest {
+
+    @Test
+    void shouldMatchStableSortOnRandomScores() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            int n = 1 + random.nextInt(500);
+            int k = 1 + random.nextInt(20);
+            // Pocos valores distintos para forzar empates
+            double[] scores = IntStream.range(0, n).mapToDouble(i -> random.nextInt(8) * 0.5).toArray();
+            
+            TopKCollector topK = new TopKCollector(k);
+            for (int ordinal = 0; ordinal < n; ordinal++) {
+                topK.offer(ordinal, scores[ordinal]);
+            }
+            double[] actualScores = new double[topK.size()];
+            int[] actual = topK.drainSorted(actualScores);
+            
+            int[] expected = IntStream.range(0, n).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> scores[i]).reversed())
+                .limit(k)
+                .mapToInt(Integer::intValue)
+                .toArray();
+            
+            assertArrayEquals(expected, actual);
+            for (int i = 0; i < actual.length; i++) {
+                assertEquals(scores[actual[i]], actualScores[i]);
+            }
+        }
+    }
+
+    @Test
+    void shouldBreakTiesByOrdinalRegardlessOfOfferOrder() {
+        TopKCollector topK = new TopKCollector(2);
+        topK.offer(7, 1.0);
+        topK.offer(3, 1.0);
+        topK.offer(5, 1.0);
+        
+        assertArrayEquals(new int[] {3, 5}, topK.drainSorted(new double[2]));
+    }
+
+    @Test
+    void shouldMergeShards() {
+        TopKCollector left = new TopKCollector(2);
+        left.offer(0, 1.0);
+        left.offer(1, 4.0);
+        TopKCollector right = new TopKCollector(2);
+        right.offer(2, 3.0);
+        right.offer(3, 5.0);
+        
+        left.addAll(right);
+        
+        assertArrayEquals(new int[] {3, 1}, left.drainSorted(new double[2]));
+    }
+
+    @Test
+    void shouldKeepNothingWithZeroCapacity() {
+        TopKCollector topK = new TopKCollector(0);
+        topK.offer(0, 1.0);
+        
+        assertEquals(0, topK.size());
+    }
+}
@@ -1,9 +1,13 @@
 package com.argendata.mcp.poncho.tools;
 
+import com.argendata.mcp.poncho.tools.PonchoDocsTools.ConsultaBusqueda;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.Collections;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -14,7 +18,7 @@ class PonchoDocsToolsTest {
 
     @Test
     void buscarComponenteShouldReturnResults() {
-        String result = ponchoDocsTools.buscar_componente("tabla", 5);
+        String result = ponchoDocsTools.buscar_componente("tabla", 5, null);
         
         assertNotNull(result);
         assertTrue(result.contains("Resultados de búsqueda"));
@@ -23,7 +27,7 @@ class PonchoDocsToolsTest {
 
     @Test
     void buscarComponenteShouldHandleNoResults() {
-        String result = ponchoDocsTools.buscar_componente("xyzcomponenteinexistente123", 5);
+        String result = ponchoDocsTools.buscar_componente("xyzcomponenteinexistente123", 5, null);
         
         assertNotNull(result);
         // Puede retornar resultados con baja relevancia o mensaje de no encontrado
@@ -31,12 +35,27 @@ class PonchoDocsToolsTest {
 
     @Test
     void buscarComponenteShouldUseDefaultMaxResults() {
-        String result = ponchoDocsTools.buscar_componente("mapa", null);
+        String result = ponchoDocsTools.buscar_componente("mapa", null, null);
         
         assertNotNull(result);
         assertTrue(result.contains("Resultados de búsqueda"));
     }
 
+    @Test
+    void buscarComponenteShouldFilterByCategory() {
+        String result = ponchoDocsTools.buscar_componente("mapa", 5, "maps");
+        
+        assertTrue(result.contains("Resultados de búsqueda"));
+        assertFalse(result.contains("Categoría: tablas"));
+    }
+
+    @Test
+    void buscarComponenteShouldRejectUnknownCategory() {
+        String result = ponchoDocsTools.buscar_componente("tabla", 5, "inexistente");
+        
+        assertTrue(result.contains("Categoría no encontrada"));
+    }
+
     @Test
     void obtenerDocumentacionShouldReturnComponentDocs() {
         String result = ponchoDocsTools.obtener_documentacion("poncho-table");
@@ -69,6 +88,11 @@ class PonchoDocsToolsTest {
         assertTrue(result.contains("data"));
     }
 
+    @Test
+    void listarComponentesShouldNormalizeCategory() {
+        assertEquals(ponchoDocsTools.listar_componentes("data"), ponchoDocsTools.listar_componentes("  Data "));
+    }
+
     @Test
     void listarComponentesShouldHandleInvalidCategory() {
         String result = ponchoDocsTools.listar_componentes("categoria-inexistente");
@@ -92,4 +116,59 @@ class PonchoDocsToolsTest {
         assertNotNull(result);
         assertTrue(result.contains("Componente no encontrado"));
     }
+
+    @Test
+    void buscarOpcionShouldReturnOptionWithItsComponent() {
+        String result = ponchoDocsTools.buscar_opcion("ordenar por columna", 3);
+        
+        assertTrue(result.contains("**ordenColumna**"), result);
+        assertTrue(result.contains("`poncho-table`"));
+    }
+
+    @Test
+    void buscarOpcionShouldHandleNoMatches() {
+        assertTrue(ponchoDocsTools.buscar_opcion("xyzinexistente", 3).startsWith("No se encontraron opciones"));
+    }
+
+    @Test
+    void buscarVariosShouldReturnOneSectionPerQueryInOrder() {
+        String result = ponchoDocsTools.buscar_varios(List.of(
+            new ConsultaBusqueda("tabla", "componentes", null, 3),
+            new ConsultaBusqueda("login", "plantillas", null, null),
+            new ConsultaBusqueda("mapa", null, "maps", 2)
+        ));
+        
+        assertTrue(result.contains("# Resultados de 3 búsquedas"));
+        int tabla = result.indexOf("## 1. \"tabla\" (componentes)");
+        int login = result.indexOf("## 2. \"login\" (plantillas)");
+        int mapa = result.indexOf("## 3. \"mapa\" (componentes y plantillas, categoría maps)");
+        assertTrue(tabla >= 0 && tabla < login && login < mapa, result);
+        assertTrue(result.contains("poncho-table"));
+        assertTrue(result.contains("template-login"));
+    }
+
+    @Test
+    void buscarVariosShouldReportInvalidQueriesInTheirSection() {
+        String result = ponchoDocsTools.buscar_varios(List.of(
+            new ConsultaBusqueda("tabla", "widgets", null, 3),
+            new ConsultaBusqueda("tabla", null, "inexistente", 3),
+            new ConsultaBusqueda("   ", null, null, 3),
+            new ConsultaBusqueda("tabla", "componentes", null, 3)
+        ));
+        
+        assertTrue(result.contains("Alcance no válido: widgets"));
+        assertTrue(result.contains("Categoría no encontrada: inexistente"));
+        assertTrue(result.contains("Consulta vacía"));
+        assertTrue(result.contains("poncho-table"));
+    }
+
+    @Test
+    void buscarVariosShouldRejectEmptyOrOversizedBatch() {
+        assertTrue(ponchoDocsTools.buscar_varios(List.of()).startsWith("Error"));
+        assertTrue(ponchoDocsTools.buscar_varios(null).startsWith("Error"));
+        
+        List<ConsultaBusqueda> tooMany = Collections.nCopies(PonchoDocsTools.MAX_BATCH_QUERIES + 1,
+            new ConsultaBusqueda("tabla", null, null, 1));
+        assertTrue(ponchoDocsTools.buscar_varios(tooMany).startsWith("Error"));
+    }
 }
@@ -61,7 +61,7 @@ class PonchoTemplateToolsTest {
 
     @Test
     void buscarPlantillaShouldReturnResultsForCommonTerm() {
-        String result = ponchoTemplateTools.buscar_plantilla("login");
+        String result = ponchoTemplateTools.buscar_plantilla("login", null);
 
         assertNotNull(result);
         assertTrue(result.contains("Resultados") || result.contains("plantilla(s)"),
@@ -70,9 +70,24 @@ class PonchoTemplateToolsTest {
                 "Para 'login' debe haber al menos un resultado");
     }
 
+    @Test
+    void buscarPlantillaShouldFilterByCategory() {
+        String result = ponchoTemplateTools.buscar_plantilla("formulario", "formularios");
+
+        assertTrue(result.contains("plantilla(s)"));
+        assertFalse(result.contains("**Categoría:** login-registro"));
+    }
+
+    @Test
+    void buscarPlantillaShouldRejectInvalidCategory() {
+        String result = ponchoTemplateTools.buscar_plantilla("login", "categoria-invalida");
+
+        assertTrue(result.contains("Categorías válidas"));
+    }
+
     @Test
     void buscarPlantillaShouldHandleNoResults() {
-        String result = ponchoTemplateTools.buscar_plantilla("xyzbusquedaimposible123");
+        String result = ponchoTemplateTools.buscar_plantilla("xyzbusquedaimposible123", null);
 
         assertNotNull(result);
         assertTrue(